@@ -7,6 +7,7 @@ import org.springframework.context.ApplicationListener;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 
 import com.example.cwmAi.Service.aiService;
+import com.example.cwmAi.Service.uploadWatcherService;
 
 //@MapperScan("com.example.cwmAi.Repository") // loginMapper 패키지
 @SpringBootApplication
@@ -18,12 +19,14 @@ public class AiProjectApplication implements ApplicationListener<ApplicationRead
 
 	/**
 	 * 서버 기동이 모두 완료된 뒤 한 번만 호출되어
-	 * 업로드된 모든 문서를 청킹하고 메모리 저장소에 적재한다.
+	 * 업로드된 모든 문서를 청킹하고 메모리 저장소에 적재한 뒤,
+	 * 이후 uploads에 바뀌는 파일을 반영하도록 디렉터리 감시를 시작한다.
 	 */
 	@Override
 	public void onApplicationEvent(ApplicationReadyEvent event) {
 		aiService aiService = event.getApplicationContext().getBean(aiService.class);
 		aiService.loadAllDocuments();
+		event.getApplicationContext().getBean(uploadWatcherService.class).start();
 	}
 }
 
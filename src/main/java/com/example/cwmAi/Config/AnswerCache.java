@@ -0,0 +1,274 @@
+package com.example.cwmAi.Config;
+
+import reactor.core.publisher.Mono;
+
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 질문 → 모델 결과 캐시 (1단계 추천 조항, 2단계 답변).
+ * - 범위(scope: 단계 + 카테고리 + 파일 선택/추천 조항)가 같은 항목끼리만 비교한다.
+ * - 정확 일치: 정규화한 질문이 같으면 적중
+ * - 의미 일치(선택, 임계값 0이면 사용 안 함): 정확 일치가 없으면 질문 임베딩의 코사인 유사도가 임계값 이상이고
+ *   질문의 단어 집합이 같은 항목 중 가장 가까운 것.
+ *   임베딩 모델(all-MiniLM-L6-v2)은 영어 전용이라 "허용되나요"/"금지되나요"처럼 뜻이 반대인 한국어 질문도
+ *   유사도가 거의 1이므로, 단어가 하나라도 다르면 유사도와 관계없이 다른 질문으로 본다. (어순/띄어쓰기 차이만 허용)
+ * - 최대 항목 수를 넘으면 가장 오래 쓰지 않은 항목부터 지우고(LRU), TTL이 지난 항목은 조회할 때 지운다.
+ * - 저장소 버전이 바뀌면 전체를 비운다. (조항 내용이 바뀌었을 수 있음)
+ */
+public final class AnswerCache<V> {
+
+    // 단어 비교 시 지우는 문장부호 (글자/숫자/공백 외)
+    private static final Pattern PUNCTUATION_PATTERN = Pattern.compile("[^\\p{L}\\p{N}\\s]+");
+
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMs;
+    // 0 이하이면 의미 일치를 쓰지 않는다.
+    private final double semanticThreshold;
+    private final ChunkEmbedder embedder;
+    // 접근 순서 LinkedHashMap (맨 앞이 가장 오래 쓰지 않은 항목)
+    private final LinkedHashMap<String, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long storeVersion = Long.MIN_VALUE;
+
+    private long exactHits;
+    private long semanticHits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    private static final class Entry<V> {
+        final String key;
+        final String scope;
+        final float[] vector;
+        final String words;
+        final V value;
+        final long createdAt;
+
+        Entry(String key, String scope, float[] vector, String words, V value, long createdAt) {
+            this.key = key;
+            this.scope = scope;
+            this.vector = vector;
+            this.words = words;
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 조회 결과. 놓쳤으면 같은 Lookup으로 put하여 질문 임베딩을 다시 계산하지 않는다.
+     */
+    public static final class Lookup<V> {
+        private final String scope;
+        private final String key;
+        private final long storeVersion;
+        private final float[] vector;
+        private final String words;
+        private final V value;
+
+        Lookup(String scope, String key, long storeVersion, float[] vector, String words, V value) {
+            this.scope = scope;
+            this.key = key;
+            this.storeVersion = storeVersion;
+            this.vector = vector;
+            this.words = words;
+            this.value = value;
+        }
+
+        public boolean isHit() {
+            return value != null;
+        }
+
+        public V getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * @param name 로그/통계에 표시할 이름
+     * @param semanticThreshold 의미 일치 코사인 유사도 임계값 (0 이하이면 정확 일치만)
+     * @param embedder 의미 일치에 쓸 임베딩 모델 (null이면 정확 일치만)
+     */
+    public AnswerCache(String name, int maxEntries, long ttlMs, double semanticThreshold, ChunkEmbedder embedder) {
+        this.name = name;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMs;
+        this.semanticThreshold = semanticThreshold;
+        this.embedder = embedder;
+    }
+
+    /**
+     * 캐시에 있으면 바로, 없으면 loader의 결과를 반환한다. cacheable을 만족하는 결과만 저장한다.
+     */
+    public Mono<V> get(String scope, String question, long storeVersion, Supplier<Mono<V>> loader, Predicate<V> cacheable) {
+        return Mono.defer(() -> {
+            Lookup<V> lookup = lookup(scope, question, storeVersion);
+            if (lookup.isHit()) {
+                return Mono.just(lookup.getValue());
+            }
+            return loader.get().doOnNext(value -> {
+                if (cacheable.test(value)) {
+                    put(lookup, value);
+                }
+            });
+        });
+    }
+
+    /**
+     * 정확 일치 → 의미 일치 순서로 조회한다.
+     */
+    public Lookup<V> lookup(String scope, String question, long storeVersion) {
+        long startTime = System.nanoTime();
+        String normalized = normalizeQuestion(question);
+        String key = scope + "\n" + normalized;
+        String words = words(normalized);
+        synchronized (this) {
+            invalidateIfStale(storeVersion);
+            Entry<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                expirations++;
+            } else if (entry != null) {
+                exactHits++;
+                logHit("정확 일치", startTime);
+                return new Lookup<>(scope, key, storeVersion, null, words, entry.value);
+            }
+        }
+
+        float[] vector = semanticThreshold > 0 && embedder != null ? embedder.embed(normalized) : null;
+        synchronized (this) {
+            if (vector != null && storeVersion == this.storeVersion) {
+                Entry<V> best = null;
+                double bestSimilarity = semanticThreshold;
+                for (Iterator<Entry<V>> it = entries.values().iterator(); it.hasNext(); ) {
+                    Entry<V> candidate = it.next();
+                    if (isExpired(candidate)) {
+                        it.remove();
+                        expirations++;
+                        continue;
+                    }
+                    if (candidate.vector == null || !candidate.scope.equals(scope) || !candidate.words.equals(words)) {
+                        continue;
+                    }
+                    double similarity = dot(vector, candidate.vector);
+                    if (similarity >= bestSimilarity) {
+                        bestSimilarity = similarity;
+                        best = candidate;
+                    }
+                }
+                if (best != null) {
+                    // values() 순회는 접근 순서를 바꾸지 않으므로 적중한 항목을 직접 조회하여 최근 사용으로 옮긴다.
+                    entries.get(best.key);
+                    semanticHits++;
+                    logHit("의미 일치 " + String.format("%.3f", bestSimilarity), startTime);
+                    return new Lookup<>(scope, key, storeVersion, vector, words, best.value);
+                }
+            }
+            misses++;
+        }
+        return new Lookup<>(scope, key, storeVersion, vector, words, null);
+    }
+
+    /**
+     * 놓친 조회의 결과를 저장한다. 그 사이 저장소 버전이 바뀌었으면 저장하지 않는다.
+     */
+    public synchronized void put(Lookup<V> lookup, V value) {
+        if (value == null || lookup.isHit()) {
+            return;
+        }
+        invalidateIfStale(lookup.storeVersion);
+        if (lookup.storeVersion != storeVersion) {
+            return;
+        }
+        entries.put(lookup.key, new Entry<>(lookup.key, lookup.scope, lookup.vector, lookup.words, value, System.currentTimeMillis()));
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions++;
+        }
+    }
+
+    // 더 새로운 저장소 버전이 보이면 이전 버전의 항목을 모두 버린다.
+    private void invalidateIfStale(long version) {
+        if (version > storeVersion) {
+            if (!entries.isEmpty()) {
+                invalidations += entries.size();
+                entries.clear();
+            }
+            storeVersion = version;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlMs > 0 && System.currentTimeMillis() - entry.createdAt > ttlMs;
+    }
+
+    private void logHit(String kind, long startTime) {
+        System.out.println("[답변 캐시] " + name + ": " + kind + " 적중 ("
+                + (System.nanoTime() - startTime) / 1_000_000.0 + "ms)");
+    }
+
+    /**
+     * 공백/대소문자/전각 문자/끝 문장부호만 다른 질문은 같은 질문으로 본다.
+     */
+    public static String normalizeQuestion(String question) {
+        if (question == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(question, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("\\s+", " ")
+                .trim();
+        return normalized.replaceAll("[\\s?.!。]+$", "");
+    }
+
+    // 질문의 단어 집합 (문장부호 제거, 정렬). 의미 일치는 이 값이 같은 항목끼리만 허용한다.
+    private static String words(String normalized) {
+        TreeSet<String> words = new TreeSet<>();
+        for (String word : PUNCTUATION_PATTERN.matcher(normalized).replaceAll(" ").split(" ")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 적중률과 항목 수
+     */
+    public synchronized Map<String, Object> getStatistics() {
+        long lookups = exactHits + semanticHits + misses;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlMs", ttlMs);
+        stats.put("semanticThreshold", semanticThreshold);
+        stats.put("storeVersion", storeVersion == Long.MIN_VALUE ? null : storeVersion);
+        stats.put("lookups", lookups);
+        stats.put("exactHits", exactHits);
+        stats.put("semanticHits", semanticHits);
+        stats.put("misses", misses);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) (exactHits + semanticHits) / lookups);
+        stats.put("evictions", evictions);
+        stats.put("expirations", expirations);
+        stats.put("invalidations", invalidations);
+        return stats;
+    }
+}
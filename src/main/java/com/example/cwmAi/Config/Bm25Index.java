@@ -0,0 +1,394 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * 청크 본문과 조항 이름에 대한 BM25 역색인 (생성 후 변경 불가).
+ * - 토큰은 NgramTokenizer의 문자 2/3-gram
+ * - 조항 이름 토큰은 TITLE_BOOST배의 빈도로 계산
+ * - 포스팅은 (문서 번호 차이, 빈도) 쌍을 가변 길이 정수(varint)로 압축한 byte[]
+ */
+public class Bm25Index {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_BOOST = 3;
+
+    private final chunkDTO[] docs;
+    private final int[] docLengths;
+    private final double avgDocLength;
+    private final Map<String, Integer> termIds;
+    private final byte[][] postings;
+    private final int[] docFreqs;
+
+    private Bm25Index(chunkDTO[] docs, int[] docLengths, Map<String, Integer> termIds,
+                      byte[][] postings, int[] docFreqs) {
+        this.docs = docs;
+        this.docLengths = docLengths;
+        this.termIds = termIds;
+        this.postings = postings;
+        this.docFreqs = docFreqs;
+        long total = 0;
+        for (int length : docLengths) {
+            total += length;
+        }
+        this.avgDocLength = docs.length == 0 ? 1.0 : Math.max(1.0, (double) total / docs.length);
+    }
+
+    /**
+     * 청크 리스트로 색인을 만든다. 문서 번호는 리스트 순서와 같다.
+     */
+    public static Bm25Index build(List<chunkDTO> chunks) {
+        chunkDTO[] docs = chunks.toArray(new chunkDTO[0]);
+        int[] docLengths = new int[docs.length];
+        PostingsBuilder postings = new PostingsBuilder();
+        for (int doc = 0; doc < docs.length; doc++) {
+            docLengths[doc] = addDocument(postings, doc, docs[doc]);
+        }
+        return postings.toIndex(docs, docLengths);
+    }
+
+    /**
+     * 이 색인을 바뀐 청크 리스트에 맞게 갱신한 새 색인을 만든다. (이 색인은 그대로 유지)
+     * - 기존 문서 중 chunks에 같은 순서로 남아 있는 것은 포스팅을 옮겨 쓰고, 나머지 청크만 새로 토큰화한다.
+     * - 저장소는 제거(순서 유지)와 뒤에 추가만 하므로 보통 추가된 청크만 토큰화된다.
+     *   순서가 바뀐 청크는 제거 후 추가된 것으로 처리되므로 결과는 build(chunks)와 같다.
+     */
+    public Bm25Index update(List<chunkDTO> chunks) {
+        chunkDTO[] newDocs = chunks.toArray(new chunkDTO[0]);
+        int[] docLengthsAfter = new int[newDocs.length];
+        // 기존 문서 번호 → 새 문서 번호 (-1은 제거됨)
+        int[] newDocIds = new int[docs.length];
+        int kept = 0;
+        for (int doc = 0; doc < docs.length; doc++) {
+            if (kept < newDocs.length && newDocs[kept] == docs[doc]) {
+                docLengthsAfter[kept] = docLengths[doc];
+                newDocIds[doc] = kept++;
+            } else {
+                newDocIds[doc] = -1;
+            }
+        }
+
+        String[] terms = new String[termIds.size()];
+        for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+            terms[entry.getValue()] = entry.getKey();
+        }
+        PostingsBuilder builder = new PostingsBuilder();
+        int[] position = new int[1];
+        for (int termId = 0; termId < terms.length; termId++) {
+            byte[] posting = postings[termId];
+            position[0] = 0;
+            int doc = 0;
+            while (position[0] < posting.length) {
+                doc += readVarInt(posting, position);
+                int tf = readVarInt(posting, position);
+                if (newDocIds[doc] >= 0) {
+                    builder.add(terms[termId], newDocIds[doc], tf);
+                }
+            }
+        }
+        for (int doc = kept; doc < newDocs.length; doc++) {
+            docLengthsAfter[doc] = addDocument(builder, doc, newDocs[doc]);
+        }
+        return builder.toIndex(newDocs, docLengthsAfter);
+    }
+
+    /**
+     * 문서 하나의 조항 이름/본문 토큰을 포스팅에 추가한다.
+     * @return 문서 길이 (조항 이름 토큰은 TITLE_BOOST개로 셈)
+     */
+    private static int addDocument(PostingsBuilder postings, int doc, chunkDTO chunk) {
+        Map<String, Integer> termFreqs = new HashMap<>();
+        int length = 0;
+        for (String token : NgramTokenizer.tokenize(chunk.getArticleTitle())) {
+            termFreqs.merge(token, TITLE_BOOST, Integer::sum);
+            length += TITLE_BOOST;
+        }
+        for (String token : NgramTokenizer.tokenize(chunk.getText())) {
+            termFreqs.merge(token, 1, Integer::sum);
+            length++;
+        }
+        for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+            postings.add(entry.getKey(), doc, entry.getValue());
+        }
+        return length;
+    }
+
+    /**
+     * 용어별 (문서 번호, 빈도) 임시 목록. 문서 번호 오름차순으로 추가해야 한다.
+     */
+    private static final class PostingsBuilder {
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<int[]> pending = new ArrayList<>();
+        private int[] pendingSizes = new int[16];
+
+        void add(String term, int doc, int tf) {
+            Integer termId = termIds.get(term);
+            if (termId == null) {
+                termId = termIds.size();
+                termIds.put(term, termId);
+                pending.add(new int[8]);
+                if (pendingSizes.length <= termId) {
+                    pendingSizes = Arrays.copyOf(pendingSizes, pendingSizes.length * 2);
+                }
+            }
+            int[] list = pending.get(termId);
+            int size = pendingSizes[termId];
+            if (size + 2 > list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                pending.set(termId, list);
+            }
+            list[size] = doc;
+            list[size + 1] = tf;
+            pendingSizes[termId] = size + 2;
+        }
+
+        Bm25Index toIndex(chunkDTO[] docs, int[] docLengths) {
+            byte[][] postings = new byte[pending.size()][];
+            int[] docFreqs = new int[pending.size()];
+            for (int termId = 0; termId < pending.size(); termId++) {
+                int size = pendingSizes[termId];
+                docFreqs[termId] = size / 2;
+                postings[termId] = encodePostings(pending.get(termId), size);
+            }
+            return new Bm25Index(docs, docLengths, termIds, postings, docFreqs);
+        }
+    }
+
+    /**
+     * 문서 번호는 직전 번호와의 차이로, 빈도는 그대로 varint로 기록한다.
+     */
+    private static byte[] encodePostings(int[] list, int size) {
+        byte[] buffer = new byte[size * 5];
+        int position = 0;
+        int previousDoc = 0;
+        for (int i = 0; i < size; i += 2) {
+            position = writeVarInt(buffer, position, list[i] - previousDoc);
+            position = writeVarInt(buffer, position, list[i + 1]);
+            previousDoc = list[i];
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private static int writeVarInt(byte[] buffer, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static int readVarInt(byte[] buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[position[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /* =========================
+       저장/복원 (SnapshotFile)
+     ========================= */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(docs.length);
+        for (int length : docLengths) {
+            out.writeInt(length);
+        }
+        String[] terms = new String[termIds.size()];
+        for (Map.Entry<String, Integer> entry : termIds.entrySet()) {
+            terms[entry.getValue()] = entry.getKey();
+        }
+        out.writeInt(terms.length);
+        for (int termId = 0; termId < terms.length; termId++) {
+            SnapshotFile.writeString(out, terms[termId]);
+            out.writeInt(docFreqs[termId]);
+            out.writeInt(postings[termId].length);
+            out.write(postings[termId]);
+        }
+    }
+
+    /**
+     * 저장된 색인을 읽는다. chunks는 저장 당시와 같은 순서의 청크 리스트여야 한다.
+     */
+    static Bm25Index readFrom(ByteBuffer in, List<chunkDTO> chunks) {
+        int docCount = in.getInt();
+        if (docCount != chunks.size()) {
+            throw new IllegalStateException("BM25 문서 수가 청크 수와 다릅니다: " + docCount + " != " + chunks.size());
+        }
+        int[] docLengths = new int[docCount];
+        in.asIntBuffer().get(docLengths);
+        in.position(in.position() + docCount * Integer.BYTES);
+        int termCount = in.getInt();
+        Map<String, Integer> termIds = new HashMap<>(termCount * 2);
+        byte[][] postings = new byte[termCount][];
+        int[] docFreqs = new int[termCount];
+        for (int termId = 0; termId < termCount; termId++) {
+            termIds.put(SnapshotFile.readString(in), termId);
+            docFreqs[termId] = in.getInt();
+            postings[termId] = new byte[in.getInt()];
+            in.get(postings[termId]);
+        }
+        return new Bm25Index(chunks.toArray(new chunkDTO[0]), docLengths, termIds, postings, docFreqs);
+    }
+
+    public int size() {
+        return docs.length;
+    }
+
+    public int getTermCount() {
+        return termIds.size();
+    }
+
+    /**
+     * 압축된 포스팅 전체 크기 (바이트)
+     */
+    public long getPostingBytes() {
+        long total = 0;
+        for (byte[] posting : postings) {
+            total += posting.length;
+        }
+        return total;
+    }
+
+    /**
+     * BM25 점수 상위 k개 청크를 조회한다.
+     * @param query 검색 질의
+     * @param filter 문서 번호 조건 (null이면 전체)
+     * @param topK 최대 반환 개수
+     * @return 점수 내림차순 청크 리스트
+     */
+    public List<scoredChunkDTO> search(String query, IntPredicate filter, int topK) {
+        List<scoredChunkDTO> result = new ArrayList<>();
+        if (query == null || topK <= 0 || docs.length == 0) {
+            return result;
+        }
+        Map<String, Integer> queryTerms = new HashMap<>();
+        for (String token : NgramTokenizer.tokenize(query)) {
+            queryTerms.merge(token, 1, Integer::sum);
+        }
+
+        double[] scores = new double[docs.length];
+        boolean[] touched = new boolean[docs.length];
+        int[] touchedDocs = new int[docs.length];
+        int touchedCount = 0;
+        for (Map.Entry<String, Integer> entry : queryTerms.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            if (termId == null) {
+                continue;
+            }
+            double queryWeight = idf(docFreqs[termId]) * entry.getValue();
+
+            byte[] posting = postings[termId];
+            int position = 0;
+            int doc = 0;
+            while (position < posting.length) {
+                // varint 디코딩: 문서 번호 차이
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = posting[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                doc += delta;
+                // varint 디코딩: 빈도
+                int tf = 0;
+                shift = 0;
+                do {
+                    b = posting[position++];
+                    tf |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+
+                if (filter != null && !filter.test(doc)) {
+                    continue;
+                }
+                double norm = K1 * (1 - B + B * docLengths[doc] / avgDocLength);
+                scores[doc] += queryWeight * (tf * (K1 + 1)) / (tf + norm);
+                if (!touched[doc]) {
+                    touched[doc] = true;
+                    touchedDocs[touchedCount++] = doc;
+                }
+            }
+        }
+
+        PriorityQueue<Integer> heap = new PriorityQueue<>(topK + 1, (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touchedDocs[i];
+            if (heap.size() < topK) {
+                heap.add(doc);
+            } else if (scores[doc] > scores[heap.peek()]) {
+                heap.poll();
+                heap.add(doc);
+            }
+        }
+        while (!heap.isEmpty()) {
+            int doc = heap.poll();
+            result.add(new scoredChunkDTO(docs[doc], scores[doc]));
+        }
+        result.sort((a, b) -> Double.compare(b.getScore(), a.getScore()));
+        return result;
+    }
+
+    /**
+     * 색인에 없는 청크(항/호 하위 청크 등)의 본문을 이 색인의 IDF와 평균 문서 길이로 BM25 점수 매긴다.
+     * @return chunks와 같은 순서의 점수
+     */
+    public double[] score(String query, List<chunkDTO> chunks) {
+        double[] scores = new double[chunks.size()];
+        Map<String, Integer> queryTerms = new HashMap<>();
+        for (String token : NgramTokenizer.tokenize(query)) {
+            queryTerms.merge(token, 1, Integer::sum);
+        }
+        if (queryTerms.isEmpty()) {
+            return scores;
+        }
+        for (int i = 0; i < scores.length; i++) {
+            List<String> tokens = NgramTokenizer.tokenize(chunks.get(i).getText());
+            Map<String, Integer> termFreqs = new HashMap<>();
+            for (String token : tokens) {
+                termFreqs.merge(token, 1, Integer::sum);
+            }
+            double norm = K1 * (1 - B + B * tokens.size() / avgDocLength);
+            for (Map.Entry<String, Integer> entry : queryTerms.entrySet()) {
+                Integer tf = termFreqs.get(entry.getKey());
+                if (tf == null) {
+                    continue;
+                }
+                Integer termId = termIds.get(entry.getKey());
+                double queryWeight = idf(termId == null ? 0 : docFreqs[termId]) * entry.getValue();
+                scores[i] += queryWeight * (tf * (K1 + 1)) / (tf + norm);
+            }
+        }
+        return scores;
+    }
+
+    private double idf(int docFreq) {
+        return Math.log(1 + (docs.length - docFreq + 0.5) / (docFreq + 0.5));
+    }
+
+    /**
+     * 문서 번호에 해당하는 청크
+     */
+    public chunkDTO getChunk(int doc) {
+        return docs[doc];
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.cwmAi.Config;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -9,28 +11,32 @@ import java.util.List;
 
 import com.example.cwmAi.dto.ai_DTO.messageDTO;
 
+/**
+ * Ollama /api/chat 요청 본문.
+ * - 생성 파라미터(num_predict, temperature 등)는 options 안에 넣는다. (단계별 값은 OllamaProfiles 참고)
+ * - null인 항목은 보내지 않는다.
+ */
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class ChatRequest {
     private String model;
     private List<messageDTO> messages;
 
-    // Ollama API 필드명
-    // 최대 생성 길이 제한 (Ollama는 num_predict 사용)
-    @com.fasterxml.jackson.annotation.JsonProperty("num_predict")
-    private Integer num_predict = 1024;
+    // 스트리밍 사용 여부
+    private Boolean stream = false;
 
-    // 출력 다양성 조절 (담백한 응답을 위해 0.2로 설정)
-    private Double temperature = 0.2;
+    // 출력 형식: "json" 또는 JSON 스키마 객체 (null이면 자유 텍스트)
+    private Object format;
 
-    // 고려할 단어 확률 범위 조절
-    @com.fasterxml.jackson.annotation.JsonProperty("min_p")
-    private Double min_p = 0.1;
+    // 요청 후 모델을 메모리에 유지할 시간 (예: "30m", "-1"이면 계속 유지)
+    @JsonProperty("keep_alive")
+    private String keepAlive;
 
-    // 스트리밍 사용 여부
-    private Boolean stream = false;
+    // 생성 파라미터
+    private OllamaOptions options;
 
     // 사용자 편의를 위한 오버로드된 생성자 (기본값 사용)
     public ChatRequest(String model, List<messageDTO> messages) {
@@ -0,0 +1,127 @@
+package com.example.cwmAi.Config;
+
+import org.springframework.stereotype.Component;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+
+import dev.langchain4j.data.embedding.Embedding;
+import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.embedding.AllMiniLmL6V2EmbeddingModel;
+import dev.langchain4j.model.embedding.EmbeddingModel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+public class ChunkEmbedder {
+
+    /* =========================
+       임베딩 모델 (all-MiniLM-L6-v2, 프로세스 내 ONNX 실행)
+     ========================= */
+    public static final int DIMENSION = 384;
+
+    private volatile EmbeddingModel model;
+    private volatile boolean unavailable = false;
+
+    /**
+     * 모델은 처음 사용할 때 한 번만 로딩한다.
+     * 로딩에 실패하면 임베딩 기능만 비활성화하고 나머지 기능은 그대로 동작한다.
+     */
+    private EmbeddingModel getModel() {
+        if (model == null && !unavailable) {
+            synchronized (this) {
+                if (model == null && !unavailable) {
+                    try {
+                        long startTime = System.currentTimeMillis();
+                        model = new AllMiniLmL6V2EmbeddingModel();
+                        System.out.println("=== 임베딩 모델 로딩 완료 (" + (System.currentTimeMillis() - startTime) + "ms) ===");
+                    } catch (Throwable e) {
+                        unavailable = true;
+                        System.err.println("[임베딩] 모델 로딩 실패, 임베딩 검색을 비활성화합니다: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return model;
+    }
+
+    public boolean isAvailable() {
+        return getModel() != null;
+    }
+
+    /**
+     * 청크를 임베딩할 때 사용할 텍스트 (법령명 + 조항 이름 + 본문)
+     */
+    public static String embeddingText(chunkDTO chunk) {
+        StringBuilder sb = new StringBuilder();
+        if (chunk.getLawName() != null) {
+            sb.append(chunk.getLawName()).append(" ");
+        }
+        if (chunk.getArticleTitle() != null) {
+            sb.append(chunk.getArticleTitle());
+        }
+        sb.append("\n").append(chunk.getText() != null ? chunk.getText() : "");
+        return sb.toString();
+    }
+
+    /**
+     * 텍스트 하나를 임베딩한다.
+     * @return L2 정규화된 벡터, 모델을 사용할 수 없으면 null
+     */
+    public float[] embed(String text) {
+        EmbeddingModel embeddingModel = getModel();
+        if (embeddingModel == null || text == null) {
+            return null;
+        }
+        try {
+            float[] vector = embeddingModel.embed(text).content().vector();
+            return normalize(vector);
+        } catch (Exception e) {
+            System.err.println("[임베딩] 임베딩 실패: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 여러 텍스트를 한 번에 임베딩한다.
+     * @return 입력 순서와 같은 정규화된 벡터 리스트, 모델을 사용할 수 없으면 null
+     */
+    public List<float[]> embedAll(List<String> texts) {
+        EmbeddingModel embeddingModel = getModel();
+        if (embeddingModel == null || texts == null) {
+            return null;
+        }
+        try {
+            List<TextSegment> segments = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                segments.add(TextSegment.from(text));
+            }
+            List<Embedding> embeddings = embeddingModel.embedAll(segments).content();
+            List<float[]> result = new ArrayList<>(embeddings.size());
+            for (Embedding embedding : embeddings) {
+                result.add(normalize(embedding.vector()));
+            }
+            return result;
+        } catch (Exception e) {
+            System.err.println("[임베딩] 일괄 임베딩 실패: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 코사인 유사도를 내적으로 계산할 수 있도록 L2 정규화한다.
+     */
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = (float) (vector[i] / norm);
+            }
+        }
+        return vector;
+    }
+}
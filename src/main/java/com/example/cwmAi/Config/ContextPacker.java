@@ -0,0 +1,245 @@
+package com.example.cwmAi.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 2단계 프롬프트에 넣을 조항들을 토큰 예산 안에 담는다.
+ * - 우선순위 단계가 앞선 조항부터, 같은 단계에서는 관련도가 높은 조항부터 넣고, 남은 예산보다 긴 조항은 문장/줄 경계에서 잘라 넣거나 뺀다.
+ * - 가장 관련도가 높은 조항은 예산이 모자라도 잘라서라도 넣는다.
+ * - 토큰 수는 모델 토크나이저 없이 글자 종류별로 보수적으로 추정한다.
+ */
+public final class ContextPacker {
+
+    // 우선순위 단계: 질문으로 찾은 조항 → 그 조항이 참조하는 조항
+    public static final int TIER_PRIMARY = 0;
+    public static final int TIER_REFERENCED = 1;
+    // 잘린 조항 끝에 붙이는 표시
+    public static final String TRIM_MARKER = "\n…(이하 생략)";
+    // 남은 예산이 이보다 작으면 조항을 잘라 넣지 않고 뺀다. (머리말만 남는 조각 방지)
+    private static final int MIN_TRIMMED_TOKENS = 80;
+    // 자른 위치에서 이 비율 안쪽까지 거슬러 올라가며 문장/줄 경계를 찾는다.
+    private static final double BOUNDARY_SEARCH_RATIO = 0.3;
+
+    private ContextPacker() {
+    }
+
+    /**
+     * 프롬프트에 넣을 조항 하나
+     */
+    public static final class Section {
+        final String header;
+        final String body;
+        final int tier;
+        final double relevance;
+
+        /**
+         * 질문으로 찾은 조항 (TIER_PRIMARY)
+         */
+        public Section(String header, String body, double relevance) {
+            this(header, body, TIER_PRIMARY, relevance);
+        }
+
+        /**
+         * @param header 조항 머리말 (예: "【법령명 제1조 목적】\n"), 자르지 않는다.
+         * @param body 조항 본문 (끝의 공백/줄바꿈은 다음 조항과의 구분자로 보고 본문을 잘라도 유지한다)
+         * @param tier 우선순위 단계 (작을수록 먼저 넣는다, 관련도와 무관)
+         * @param relevance 같은 단계 안의 관련도 (높을수록 먼저 넣는다)
+         */
+        public Section(String header, String body, int tier, double relevance) {
+            this.header = header;
+            this.body = body;
+            this.tier = tier;
+            this.relevance = relevance;
+        }
+    }
+
+    /**
+     * 담기 결과
+     */
+    public static final class Result {
+        private final List<String> texts;
+        private final int usedTokens;
+        private final int budget;
+        private final int trimmedCount;
+        private final int droppedCount;
+
+        Result(List<String> texts, int usedTokens, int budget, int trimmedCount, int droppedCount) {
+            this.texts = texts;
+            this.usedTokens = usedTokens;
+            this.budget = budget;
+            this.trimmedCount = trimmedCount;
+            this.droppedCount = droppedCount;
+        }
+
+        /**
+         * @return 입력과 같은 순서의 조항 텍스트 (머리말 + 본문), 뺀 조항은 null
+         */
+        public List<String> getTexts() {
+            return texts;
+        }
+
+        public int getUsedTokens() {
+            return usedTokens;
+        }
+
+        public int getBudget() {
+            return budget;
+        }
+
+        public int getIncludedCount() {
+            return texts.size() - droppedCount;
+        }
+
+        public int getTrimmedCount() {
+            return trimmedCount;
+        }
+
+        public int getDroppedCount() {
+            return droppedCount;
+        }
+    }
+
+    /**
+     * 우선순위 단계, 관련도 순으로 조항을 예산 안에 담는다.
+     * @param sections 조항 리스트 (단계와 관련도가 같으면 앞의 조항을 먼저 넣는다)
+     * @param budget 조항들에 쓸 수 있는 토큰 수
+     */
+    public static Result pack(List<Section> sections, int budget) {
+        Integer[] order = new Integer[sections.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> sections.get(a).tier != sections.get(b).tier
+                ? Integer.compare(sections.get(a).tier, sections.get(b).tier)
+                : Double.compare(sections.get(b).relevance, sections.get(a).relevance));
+
+        List<String> texts = new ArrayList<>(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            texts.add(null);
+        }
+        int used = 0;
+        int trimmed = 0;
+        int dropped = 0;
+        for (int rank = 0; rank < order.length; rank++) {
+            Section section = sections.get(order[rank]);
+            String text = section.header + section.body;
+            int tokens = estimateTokens(text);
+            int remaining = budget - used;
+            if (tokens <= remaining) {
+                texts.set(order[rank], text);
+                used += tokens;
+                continue;
+            }
+            if (rank > 0 && remaining < MIN_TRIMMED_TOKENS) {
+                dropped++;
+                continue;
+            }
+            // 본문을 남은 예산에 맞게 자른다. (가장 관련도가 높은 조항은 머리말만 남더라도 넣는다)
+            String body = section.body.stripTrailing();
+            String separator = section.body.substring(body.length());
+            int bodyBudget = remaining - estimateTokens(section.header) - estimateTokens(TRIM_MARKER);
+            String trimmedText = section.header + trimToTokens(body, bodyBudget) + TRIM_MARKER + separator;
+            texts.set(order[rank], trimmedText);
+            used += estimateTokens(trimmedText);
+            trimmed++;
+        }
+        return new Result(texts, used, budget, trimmed, dropped);
+    }
+
+    /**
+     * 추정 토큰 수가 maxTokens 이하가 되도록 앞에서부터 자른다.
+     * 자를 위치 가까이에 줄바꿈, 문장 끝("다."), 항/호 시작이 있으면 그 앞에서 자른다.
+     */
+    static String trimToTokens(String text, int maxTokens) {
+        if (maxTokens <= 0) {
+            return "";
+        }
+        // 글자별 토큰을 10배 정수로 누적해 예산을 넘기 직전 위치를 찾는다.
+        long limit = maxTokens * 10L;
+        long total = 0;
+        int cut = 0;
+        int run = 0;
+        int length = text.length();
+        while (cut < length) {
+            char c = text.charAt(cut);
+            run = isAsciiLetterOrDigit(c) ? run + 1 : 0;
+            long next = total + charWeight(c, run);
+            if (next > limit) {
+                break;
+            }
+            total = next;
+            cut++;
+        }
+        if (cut >= length) {
+            return text;
+        }
+        int floor = cut - (int) (cut * BOUNDARY_SEARCH_RATIO);
+        for (int i = cut; i > floor; i--) {
+            char c = text.charAt(i - 1);
+            if (c == '\n' || (c == '.' && i >= 2 && text.charAt(i - 2) == '다') || isEnumeratorStart(text, i)) {
+                return text.substring(0, i).stripTrailing();
+            }
+        }
+        for (int i = cut; i > floor; i--) {
+            if (Character.isWhitespace(text.charAt(i - 1))) {
+                return text.substring(0, i).stripTrailing();
+            }
+        }
+        return text.substring(0, cut);
+    }
+
+    // 다음 글자가 항 번호(①~⑳)이면 그 앞이 경계
+    private static boolean isEnumeratorStart(String text, int index) {
+        if (index >= text.length()) {
+            return false;
+        }
+        char c = text.charAt(index);
+        return c >= '①' && c <= '⑳';
+    }
+
+    /**
+     * 텍스트의 토큰 수를 추정한다.
+     * - 한글/한자 음절: 1.2토큰 (자주 쓰이는 음절은 1토큰, 드문 음절은 바이트 단위로 나뉨)
+     * - 영문/숫자: 4글자에 1토큰 (연속 구간마다 올림)
+     * - 공백: 0, 그 밖의 ASCII 기호: 1토큰, 그 밖의 문자(①, ·, 【 등): 2토큰
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long tenths = 0;
+        int run = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            run = isAsciiLetterOrDigit(c) ? run + 1 : 0;
+            tenths += charWeight(c, run);
+        }
+        return (int) ((tenths + 9) / 10);
+    }
+
+    /**
+     * 글자 하나의 추정 토큰 수 (10배 정수). 영문/숫자 구간은 첫 글자가 1토큰을 차지하고 4글자마다 1토큰씩 늘어난다.
+     * @param run c가 영문/숫자이면 c까지의 연속 구간 길이 (1부터), 아니면 0 (호출하는 쪽이 앞에서부터 세어 전달)
+     */
+    private static int charWeight(char c, int run) {
+        if (c < 0x80) {
+            if (Character.isWhitespace(c)) {
+                return 0;
+            }
+            if (run > 0) {
+                return (run - 1) % 4 == 0 ? 10 : 0;
+            }
+            return 10;
+        }
+        if ((c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x4E00 && c <= 0x9FFF)) {
+            return 12;
+        }
+        return 20;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c < 0x80 && Character.isLetterOrDigit(c);
+    }
+}
@@ -12,6 +12,35 @@ import java.util.regex.Pattern;
 @Component
 public class DocumentChunker {
 
+    // 청킹 규칙(조항/하위 청크 분할, 참조 추출)이 바뀌면 올린다. (인덱스 파일 헤더에 기록)
+    public static final int VERSION = 1;
+
+    /* =========================
+       미리 컴파일한 패턴 (스레드 간 공유, Matcher는 호출마다 생성)
+       ========================= */
+    // 장 제목: "제1장 총칙"
+    private static final Pattern CHAPTER_PATTERN =
+            Pattern.compile("(?m)^\\s*제\\s*\\d+장\\s*([^\\n]+)");
+    // 조항 시작: "제3조(목적)", "제5조의2(정관의 기재사항)"
+    private static final Pattern ARTICLE_PATTERN =
+            Pattern.compile("(?m)^\\s*제\\s*(\\d+)(?:조(?:의\\s*\\d+)?)?\\s*(?:\\(([^)]+)\\))?");
+    // 조항 번호 뒤에 조사/참조 키워드가 오는지
+    private static final Pattern REFERENCE_AFTER_PATTERN = Pattern.compile(
+            "^(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|제\\s*\\d+항).*");
+    // 앞부분의 다른 조항 참조: "제X조를", "제X조제X항", "제X조에 따르면" 등
+    private static final Pattern REFERENCE_BEFORE_PATTERN = Pattern.compile(
+            "제\\s*\\d+(?:조(?:의\\s*\\d+)?)?(?:제\\s*\\d+항)?(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|및|와|과)");
+    // 앞부분이 줄바꿈(+공백)으로 끝나는지
+    private static final Pattern LINE_BREAK_BEFORE_PATTERN = Pattern.compile(".*\\n\\s*$");
+    private static final Pattern SUB_ARTICLE_PATTERN = Pattern.compile("조의\\s*(\\d+)");
+    private static final Pattern ARTICLE_NUMBER_PATTERN = Pattern.compile("제\\s*\\d+(?:조(?:의\\s*\\d+)?)?");
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("\\.[^.]+$");
+    private static final Pattern LAW_NAME_PATTERN = Pattern.compile(
+            "([가-힣\\s]+(시행규칙|시행령|법률|법|규정|지침))");
+
+    // 참조 판단 시 조항 앞뒤로 살펴보는 글자 수
+    private static final int REFERENCE_CONTEXT = 50;
+
     /**
      * 하나의 법령 문서를 조(조항) 단위로 분할하여 청크를 생성한다.
      * 각 청크는 다음 정보를 포함한다.
@@ -40,73 +69,75 @@ public class DocumentChunker {
         System.out.println("추출된 법령명: " + lawName);
 
         /* =========================
-           1. 장 제목 추출 (번호 제거)
-           ========================= */
-        Pattern chapterPattern =
-                Pattern.compile("(?m)^\\s*제\\s*\\d+장\\s*([^\\n]+)");
-        Matcher chapterMatcher = chapterPattern.matcher(text);
-
-        List<Integer> chapterPositions = new ArrayList<>();
-        List<String> chapterTitles = new ArrayList<>();
-
-        while (chapterMatcher.find()) {
-            chapterPositions.add(chapterMatcher.start());
-            chapterTitles.add(chapterMatcher.group(1).trim());
-        }
-        System.out.println("발견된 장(章) 수: " + chapterPositions.size());
-
-        /* =========================
-           2. 조 제목 추출 (개선)
+           1~2. 장 제목 / 조 제목 추출 (한 번 훑기)
+           - 줄 시작 위치마다 미리 컴파일한 장/조 패턴을 그 위치에 맞춰 본다.
            - 기본: "제3조(개인정보의 수집·이용)" 형태
            - "제5조의2(정관의 기재사항)" 처럼 '조의n' 구조도 지원
-           - 괄호 안 제목이 없을 때도 null이 되지 않도록 전체 매칭 문자열을 사용
-           - 줄바꿈을 고려하여 조 경계를 정확히 찾음
+           - 괄호 안 제목이 없을 때도 null이 되지 않도록 조항 번호를 사용
            - 법률 참조 패턴을 제외하여 실제 조항만 추출
+           - 각 패턴은 이전 매칭이 끝난 뒤의 줄 시작부터 다시 찾는다. (find()를 이어 부른 것과 같은 결과)
            ========================= */
-        
-        // 실제 조항 시작 패턴: 줄 시작에 "제 숫자조" 또는 "제 숫자조의숫자" 형태
-        // 단, 법률 참조가 아닌 실제 조항 시작만 매칭
-        Pattern articlePattern =
-                Pattern.compile("(?m)^\\s*제\\s*(\\d+)(?:조(?:의\\s*\\d+)?)?\\s*(?:\\(([^)]+)\\))?");
-        Matcher articleMatcher = articlePattern.matcher(text);
+        List<Integer> chapterPositions = new ArrayList<>();
+        List<String> chapterTitles = new ArrayList<>();
 
         List<Integer> articlePositions = new ArrayList<>();
         List<String> articleTitles = new ArrayList<>();
         List<String> articleNumbers = new ArrayList<>(); // 조항 번호 저장
 
-        while (articleMatcher.find()) {
-            int position = articleMatcher.start();
-            String matchedText = articleMatcher.group(0).trim();
-            String articleNum = articleMatcher.group(1); // 조항 번호
-            
-            // 해당 위치 주변 텍스트 확인 (앞 50자, 뒤 50자)
-            int contextStart = Math.max(0, position - 50);
-            int contextEnd = Math.min(text.length(), position + matchedText.length() + 50);
-            String context = text.substring(contextStart, contextEnd);
-            
-            // 법률 참조 패턴인지 확인
-            boolean isReference = isLawReference(context, position - contextStart, matchedText);
-            
-            if (!isReference) {
-                // 실제 조항 시작으로 판단
-                articlePositions.add(position);
-                
-                // 조항 번호 추출 (예: "제1조", "제2조", "제3조의2")
-                String fullMatch = articleMatcher.group(0).trim();
-                String articleNumberStr = extractArticleNumber(fullMatch, articleNum);
-                articleNumbers.add(articleNumberStr);
-                
-                String bracketTitle = articleMatcher.group(2); // 괄호 안 제목
-                String finalTitle;
-                if (bracketTitle != null && !bracketTitle.isBlank()) {
-                    finalTitle = bracketTitle.trim();
-                } else {
-                    // 괄호 안 제목이 없는 경우, 조항 번호를 제목으로 사용
-                    finalTitle = articleNumberStr;
+        int length = text.length();
+        Matcher chapterMatcher = CHAPTER_PATTERN.matcher(text);
+        Matcher articleMatcher = ARTICLE_PATTERN.matcher(text);
+        ReferenceMatchers references = new ReferenceMatchers(text);
+        int chapterFrom = 0;
+        int articleFrom = 0;
+
+        for (int lineStart = 0; lineStart < length; lineStart = nextLineStart(text, lineStart)) {
+            if (lineStart >= chapterFrom) {
+                chapterMatcher.region(lineStart, length);
+                if (chapterMatcher.lookingAt()) {
+                    chapterPositions.add(lineStart);
+                    chapterTitles.add(chapterMatcher.group(1).trim());
+                    chapterFrom = chapterMatcher.end();
                 }
-                articleTitles.add(finalTitle);
             }
+            if (lineStart < articleFrom) {
+                continue;
+            }
+            articleMatcher.region(lineStart, length);
+            if (!articleMatcher.lookingAt()) {
+                continue;
+            }
+            articleFrom = articleMatcher.end();
+
+            // 매칭 문자열의 앞뒤 공백을 뺀 범위
+            int position = lineStart;
+            int matchedStart = trimStart(text, position, articleFrom);
+            int matchedEnd = trimEnd(text, matchedStart, articleFrom);
+
+            // 법률 참조 패턴인지 확인 (앞 50자, 뒤 50자)
+            if (isLawReference(text, position, matchedEnd - matchedStart, references)) {
+                continue;
+            }
+
+            // 실제 조항 시작으로 판단
+            articlePositions.add(position);
+
+            // 조항 번호 추출 (예: "제1조", "제2조", "제3조의2")
+            String articleNumberStr = extractArticleNumber(
+                    references.subArticle, matchedStart, matchedEnd, articleMatcher.group(1));
+            articleNumbers.add(articleNumberStr);
+
+            String bracketTitle = articleMatcher.group(2); // 괄호 안 제목
+            String finalTitle;
+            if (bracketTitle != null && !bracketTitle.isBlank()) {
+                finalTitle = bracketTitle.trim();
+            } else {
+                // 괄호 안 제목이 없는 경우, 조항 번호를 제목으로 사용
+                finalTitle = articleNumberStr;
+            }
+            articleTitles.add(finalTitle);
         }
+        System.out.println("발견된 장(章) 수: " + chapterPositions.size());
         
         System.out.println("발견된 조항 수: " + articlePositions.size());
         if (articlePositions.isEmpty()) {
@@ -126,10 +157,8 @@ public class DocumentChunker {
                     ? articlePositions.get(i + 1)
                     : text.length();
 
-            String articleText = text.substring(start, end).trim();
-            
             // 조항 내용 정리: 불필요한 공백 제거, 하지만 구조는 유지
-            articleText = cleanArticleText(articleText);
+            String articleText = cleanArticleText(text, start, end);
             
             // 조항이 너무 짧으면(50자 미만) 건너뛰기 (잘못된 매칭일 가능성)
             if (articleText.length() < 50) {
@@ -195,16 +224,12 @@ public class DocumentChunker {
     
     /**
      * 법률 참조 패턴인지 확인
-     * @param context 주변 텍스트 (앞 50자 + 매칭 텍스트 + 뒤 50자)
-     * @param matchPosition 매칭된 텍스트의 시작 위치 (context 내에서)
-     * @param matchedText 매칭된 텍스트
+     * - 주변 텍스트(앞 50자 + 매칭 텍스트 + 뒤 50자)를 잘라내지 않고 원문 위치 범위로 검사한다.
+     * @param position 매칭 시작 위치
+     * @param matchedLength 공백을 뺀 매칭 텍스트 길이
      * @return 참조 패턴이면 true, 실제 조항 시작이면 false
      */
-    private boolean isLawReference(String context, int matchPosition, String matchedText) {
-        // 매칭 텍스트 앞부분 확인
-        String before = context.substring(0, matchPosition);
-        String after = context.substring(matchPosition + matchedText.length());
-        
+    private boolean isLawReference(String text, int position, int matchedLength, ReferenceMatchers references) {
         // 실제 조항 시작의 특징:
         // 1. 줄 시작에 위치 (앞에 줄바꿈이 있거나 텍스트 시작)
         // 2. 앞에 다른 조항 참조가 없음
@@ -212,63 +237,42 @@ public class DocumentChunker {
         // 참조 패턴의 특징:
         // 1. 문장 중간에 위치 (앞에 다른 텍스트가 있음)
         // 2. 뒤에 조사나 참조 키워드가 옴 (을, 를, 에, 의, 제X항 등)
-        
-        // 앞부분이 비어있거나 줄바꿈으로 끝나면 실제 조항일 가능성 높음
-        String beforeTrimmed = before.trim();
-        if (beforeTrimmed.isEmpty() || beforeTrimmed.endsWith("\n") || 
-            before.matches(".*\\n\\s*$")) {
-            // 뒷부분 확인: 조사나 참조 키워드가 바로 오면 참조
-            String afterTrimmed = after.trim();
-            if (afterTrimmed.matches("^(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|제\\s*\\d+항).*")) {
-                return true;
-            }
-            // 실제 조항으로 판단
-            return false;
-        }
-        
-        // 앞부분에 다른 조항 참조가 있으면 참조로 판단
-        // "제X조를", "제X조제X항", "제X조에 따르면" 등의 패턴
-        Pattern referenceBeforePattern = Pattern.compile(
-            "제\\s*\\d+(?:조(?:의\\s*\\d+)?)?(?:제\\s*\\d+항)?(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|및|와|과)"
-        );
-        if (referenceBeforePattern.matcher(beforeTrimmed).find()) {
-            return true;
-        }
-        
-        // 뒷부분에 참조 키워드가 있으면 참조로 판단
-        String afterTrimmed = after.trim();
-        if (afterTrimmed.matches("^(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|제\\s*\\d+항).*")) {
+        int beforeStart = Math.max(0, position - REFERENCE_CONTEXT);
+        int afterStart = position + matchedLength;
+        int afterEnd = Math.min(text.length(), afterStart + REFERENCE_CONTEXT);
+
+        // 뒷부분 확인: 조사나 참조 키워드가 바로 오면 참조
+        int afterTrimmedStart = trimStart(text, afterStart, afterEnd);
+        int afterTrimmedEnd = trimEnd(text, afterTrimmedStart, afterEnd);
+        if (references.after.region(afterTrimmedStart, afterTrimmedEnd).matches()) {
             return true;
         }
-        
-        // 문장 중간에 있고 앞뒤에 일반 텍스트가 있으면 참조일 가능성 높음
-        if (!beforeTrimmed.isEmpty() && !afterTrimmed.isEmpty() && 
-            !beforeTrimmed.endsWith("\n") && !afterTrimmed.startsWith("\n")) {
-            // 앞에 조항 번호가 있고 뒤에 조사가 오면 참조
-            if (beforeTrimmed.matches(".*제\\s*\\d+(?:조(?:의\\s*\\d+)?)?$") && 
-                afterTrimmed.matches("^(?:을|를|에|의|제\\s*\\d+항).*")) {
-                return true;
-            }
+
+        // 앞부분이 비어있거나 줄바꿈으로 끝나면 실제 조항으로 판단
+        int beforeTrimmedStart = trimStart(text, beforeStart, position);
+        int beforeTrimmedEnd = trimEnd(text, beforeTrimmedStart, position);
+        if (beforeTrimmedStart == beforeTrimmedEnd
+                || references.lineBreakBefore.region(beforeStart, position).matches()) {
+            return false;
         }
-        
-        // 기본적으로 실제 조항으로 판단
-        return false;
+
+        // 앞부분에 다른 조항 참조가 있으면 참조로 판단
+        // (문장 중간이라도 그 밖의 경우는 실제 조항으로 판단)
+        return references.before.region(beforeTrimmedStart, beforeTrimmedEnd).find();
     }
     
     /**
      * 조항 번호 추출
-     * @param fullMatch 매칭된 전체 문자열 (예: "제1조", "제3조의2", "제5조(제목)")
+     * @param subArticleMatcher 원문에 대한 "조의n" Matcher
+     * @param matchStart 매칭된 전체 문자열 시작 위치 (예: "제1조", "제3조의2", "제5조(제목)")
+     * @param matchEnd 매칭된 전체 문자열 끝 위치
      * @param articleNum 조항 번호 (숫자만)
      * @return 조항 번호 문자열 (예: "제1조", "제3조의2")
      */
-    private String extractArticleNumber(String fullMatch, String articleNum) {
+    private String extractArticleNumber(Matcher subArticleMatcher, int matchStart, int matchEnd, String articleNum) {
         // "제X조의Y" 패턴 확인
-        if (fullMatch.contains("조의")) {
-            Pattern subArticlePattern = Pattern.compile("조의\\s*(\\d+)");
-            Matcher subMatcher = subArticlePattern.matcher(fullMatch);
-            if (subMatcher.find()) {
-                return "제" + articleNum + "조의" + subMatcher.group(1);
-            }
+        if (subArticleMatcher.region(matchStart, matchEnd).find()) {
+            return "제" + articleNum + "조의" + subArticleMatcher.group(1);
         }
         // 기본: "제X조"
         return "제" + articleNum + "조";
@@ -298,7 +302,7 @@ public class DocumentChunker {
         // 조항 번호 검증
         if (articleNumber == null || articleNumber.trim().isEmpty()) {
             errors.add("조항 번호가 없음");
-        } else if (!articleNumber.matches("제\\s*\\d+(?:조(?:의\\s*\\d+)?)?")) {
+        } else if (!ARTICLE_NUMBER_PATTERN.matcher(articleNumber).matches()) {
             errors.add("조항 번호 형식이 올바르지 않음: " + articleNumber);
         }
         
@@ -333,26 +337,56 @@ public class DocumentChunker {
      * - 불필요한 공백 제거
      * - 연속된 줄바꿈 정리
      * - 하지만 조항 구조는 유지
+     * - 아래 세 치환을 차례로 적용한 것과 같은 결과를 한 번 훑어서 만든다.
+     *   [ \t]{2,} → " ",  \n{3,} → "\n\n",  (?m)[ \t]+$ → ""
      */
-    private String cleanArticleText(String text) {
-        // 연속된 공백을 하나로
-        text = text.replaceAll("[ \\t]{2,}", " ");
-        // 연속된 줄바꿈을 두 개로 제한
-        text = text.replaceAll("\\n{3,}", "\n\n");
-        // 줄 끝의 공백 제거
-        text = text.replaceAll("(?m)[ \\t]+$", "");
-        return text.trim();
+    private String cleanArticleText(String text, int start, int end) {
+        // 원문 범위를 그대로 읽어 부분 문자열을 만들지 않는다.
+        int i = trimStart(text, start, end);
+        int textEnd = trimEnd(text, i, end);
+        char[] cleaned = new char[textEnd - i];
+        int size = 0;
+        while (i < textEnd) {
+            char c = text.charAt(i);
+            int runEnd = i + 1;
+            if (c == ' ' || c == '\t') {
+                while (runEnd < textEnd && (text.charAt(runEnd) == ' ' || text.charAt(runEnd) == '\t')) {
+                    runEnd++;
+                }
+                // 줄 끝의 공백은 제거, 그 밖의 연속된 공백은 하나로
+                if (runEnd < textEnd && !isLineTerminator(text.charAt(runEnd))) {
+                    cleaned[size++] = runEnd - i >= 2 ? ' ' : c;
+                }
+            } else if (c == '\n') {
+                while (runEnd < textEnd && text.charAt(runEnd) == '\n') {
+                    runEnd++;
+                }
+                // 연속된 줄바꿈을 두 개로 제한
+                cleaned[size++] = c;
+                if (runEnd - i >= 2) {
+                    cleaned[size++] = c;
+                }
+            } else {
+                cleaned[size++] = c;
+            }
+            i = runEnd;
+        }
+        int cleanedStart = 0;
+        while (cleanedStart < size && cleaned[cleanedStart] <= ' ') {
+            cleanedStart++;
+        }
+        while (size > cleanedStart && cleaned[size - 1] <= ' ') {
+            size--;
+        }
+        return new String(cleaned, cleanedStart, size - cleanedStart);
     }
 
     /* ======================================================
        법령명 추출
        ====================================================== */
     private String extractLawName(String fileName) {
-        String name = fileName.replaceAll("\\.[^.]+$", "");
-        Pattern pattern = Pattern.compile(
-                "([가-힣\\s]+(시행규칙|시행령|법률|법|규정|지침))"
-        );
-        Matcher matcher = pattern.matcher(name);
+        String name = EXTENSION_PATTERN.matcher(fileName).replaceAll("");
+        Matcher matcher = LAW_NAME_PATTERN.matcher(name);
         if (matcher.find()) {
             return matcher.group(1).trim();
         }
@@ -361,21 +395,288 @@ public class DocumentChunker {
 
     /* =========================
        조 위치 기준 장 제목 찾기
+       - 장 위치는 오름차순이므로 이분 탐색으로 조 위치 이전의 마지막 장을 찾는다.
        ========================= */
     private String findChapterTitle(
             int articlePos,
             List<Integer> chapterPositions,
             List<String> chapterTitles
     ) {
-        String result = null;
-        for (int i = 0; i < chapterPositions.size(); i++) {
-            if (chapterPositions.get(i) <= articlePos) {
-                result = chapterTitles.get(i);
+        int low = 0;
+        int high = chapterPositions.size() - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (chapterPositions.get(mid) <= articlePos) {
+                found = mid;
+                low = mid + 1;
             } else {
+                high = mid - 1;
+            }
+        }
+        return found < 0 ? null : chapterTitles.get(found);
+    }
+
+    /* =========================
+       항/호 하위 청크 (계층 청킹)
+       - 조 청크 본문을 항(①②③) 단위로, 각 항(항이 없으면 조)을 호(1. 2. 3.) 단위로 나눈다.
+       - 하위 청크 ID는 상위 청크 ID에 순번을 붙인다. (예: "공제사업#12-2", "공제사업#12-2-3")
+       - 조 청크에서 결정적으로 만들어지므로 저장하지 않고 저장소가 조 청크를 등록할 때 다시 만든다.
+       ========================= */
+    // 하위 청크로 나누려면 번호가 이어지는 항/호가 이 개수 이상이어야 한다.
+    private static final int MIN_SUB_CHUNKS = 2;
+
+    /**
+     * 조 청크를 항/호 하위 청크로 나눈다.
+     * @param article 청크 ID가 부여된 조 청크
+     * @return 문서 순서의 하위 청크 (항 다음에 그 항의 호), 나눌 수 없으면 빈 리스트
+     */
+    public static List<chunkDTO> splitArticle(chunkDTO article) {
+        List<chunkDTO> subChunks = new ArrayList<>();
+        String text = article.getText();
+        if (article.getChunkId() == null || text == null) {
+            return subChunks;
+        }
+        List<Integer> paragraphStarts = findParagraphStarts(text);
+        if (paragraphStarts.size() < MIN_SUB_CHUNKS) {
+            // 항이 없으면 조 본문을 바로 호로 나눈다.
+            addItems(article, article.getChunkId(), text, subChunks);
+            return subChunks;
+        }
+        for (int i = 0; i < paragraphStarts.size(); i++) {
+            int start = paragraphStarts.get(i);
+            int end = i + 1 < paragraphStarts.size() ? paragraphStarts.get(i + 1) : text.length();
+            String paragraphText = text.substring(start, trimEnd(text, start, end));
+            String paragraphId = article.getChunkId() + "-" + (i + 1);
+            subChunks.add(subChunk(article, paragraphText, paragraphId, chunkDTO.LEVEL_PARAGRAPH,
+                    article.getChunkId(), String.valueOf(text.charAt(start))));
+            addItems(article, paragraphId, paragraphText, subChunks);
+        }
+        return subChunks;
+    }
+
+    private static void addItems(chunkDTO article, String parentId, String text, List<chunkDTO> subChunks) {
+        List<Integer> itemStarts = findItemStarts(text);
+        if (itemStarts.size() < MIN_SUB_CHUNKS) {
+            return;
+        }
+        for (int i = 0; i < itemStarts.size(); i++) {
+            int start = itemStarts.get(i);
+            int end = i + 1 < itemStarts.size() ? itemStarts.get(i + 1) : text.length();
+            subChunks.add(subChunk(article, text.substring(start, trimEnd(text, start, end)),
+                    parentId + "-" + (i + 1), chunkDTO.LEVEL_ITEM, parentId, (i + 1) + "."));
+        }
+    }
+
+    private static chunkDTO subChunk(chunkDTO article, String text, String chunkId, String level,
+                                     String parentChunkId, String label) {
+        return new chunkDTO(
+                article.getLawName(),
+                article.getChapterTitle(),
+                article.getArticleNumber(),
+                article.getArticleTitle(),
+                text,
+                chunkId,
+                article.getFileName(),
+                article.getChunkIndex(),
+                article.getCategory(),
+                level,
+                parentChunkId,
+                label
+        );
+    }
+
+    /**
+     * 항 번호(①, ②, ...)가 차례대로 나오는 위치 (번호가 끊기면 거기서 멈춘다)
+     */
+    private static List<Integer> findParagraphStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        char expected = '\u2460'; // ①
+        for (int i = 0; i < text.length() && expected <= '\u2473'; i++) { // ⑳까지
+            if (text.charAt(i) == expected) {
+                starts.add(i);
+                expected++;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * 호 번호("1. ", "2. ", ...)가 차례대로 나오는 위치
+     * - 번호 앞은 글의 시작이거나 공백이어야 하고, 번호 뒤에는 공백이 와야 한다.
+     * - 날짜("2013. 6. 17.")처럼 숫자 바로 뒤에 이어지는 번호는 호로 보지 않는다.
+     */
+    private static List<Integer> findItemStarts(String text) {
+        List<Integer> starts = new ArrayList<>();
+        int expected = 1;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (!isAsciiDigit(text.charAt(i)) || (i > 0 && !Character.isWhitespace(text.charAt(i - 1)))) {
+                continue;
+            }
+            int numberEnd = i;
+            int number = 0;
+            while (numberEnd < length && isAsciiDigit(text.charAt(numberEnd)) && numberEnd - i < 3) {
+                number = number * 10 + (text.charAt(numberEnd) - '0');
+                numberEnd++;
+            }
+            if (number != expected || numberEnd + 1 >= length || text.charAt(numberEnd) != '.'
+                    || !Character.isWhitespace(text.charAt(numberEnd + 1)) || followsNumber(text, i)) {
+                continue;
+            }
+            starts.add(i);
+            expected++;
+            i = numberEnd;
+        }
+        return starts;
+    }
+
+    // 바로 앞 낱말이 숫자 또는 "숫자."로 끝나는지 (날짜/금액 등)
+    private static boolean followsNumber(String text, int position) {
+        int last = position - 1;
+        while (last >= 0 && Character.isWhitespace(text.charAt(last))) {
+            last--;
+        }
+        if (last < 0) {
+            return false;
+        }
+        char c = text.charAt(last);
+        return isAsciiDigit(c) || (c == '.' && last > 0 && isAsciiDigit(text.charAt(last - 1)));
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /* =========================
+       조항 참조 추출 (조항 참조 그래프용)
+       - 조 본문의 "제12조에 따라", "제3조의2제1항" 같은 참조 중 같은 법령의 조를 가리키는 것을 모은다.
+       - 「다른 법령」 제N조, (괄호 설명) 제N조, "영 제N조", "같은 법 제N조"처럼 다른 법령을 가리키는 참조는 뺀다.
+         ("이 법 제N조"는 포함)
+       ========================= */
+    private static final Pattern ARTICLE_REFERENCE_PATTERN = Pattern.compile("제\\s*(\\d+)\\s*조(?:\\s*의\\s*(\\d+))?");
+    // 참조 바로 앞 어절이 이 말로 끝나면 다른 법령의 조항이다. (예: "개인정보 보호법 제15조", "영 제3조")
+    private static final String[] OTHER_LAW_SUFFIXES = {"법", "법률", "영", "령", "규칙", "규정", "지침"};
+
+    /**
+     * 조 청크 본문에서 같은 법령의 다른 조를 가리키는 참조를 추출한다.
+     * @param article 조 청크
+     * @return 참조하는 조항 번호 (예: "제12조", "제3조의2"), 처음 나온 순서, 중복/자기 참조 제외
+     */
+    public static List<String> extractArticleReferences(chunkDTO article) {
+        List<String> references = new ArrayList<>();
+        String text = article.getText();
+        if (text == null) {
+            return references;
+        }
+        // 본문 맨 앞의 조항 번호는 자기 조의 머리말이다.
+        int headingStart = trimStart(text, 0, text.length());
+        Matcher matcher = ARTICLE_REFERENCE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            if (matcher.start() == headingStart || refersToOtherLaw(text, matcher.start())) {
+                continue;
+            }
+            String articleNumber = matcher.group(2) == null
+                    ? "제" + matcher.group(1) + "조"
+                    : "제" + matcher.group(1) + "조의" + matcher.group(2);
+            if (!articleNumber.equals(article.getArticleNumber()) && !references.contains(articleNumber)) {
+                references.add(articleNumber);
+            }
+        }
+        return references;
+    }
+
+    private static boolean refersToOtherLaw(String text, int referenceStart) {
+        int wordEnd = trimEnd(text, 0, referenceStart);
+        if (wordEnd == 0) {
+            return false;
+        }
+        // 「법령명」 제N조, 「법령명」(이하 "법"이라 한다) 제N조, (기획재정부 계약예규) 제N조
+        if (text.charAt(wordEnd - 1) == '」' || text.charAt(wordEnd - 1) == ')') {
+            return true;
+        }
+        int wordStart = wordStart(text, wordEnd);
+        String word = text.substring(wordStart, wordEnd);
+        boolean lawName = false;
+        for (String suffix : OTHER_LAW_SUFFIXES) {
+            if (word.endsWith(suffix)) {
+                lawName = true;
                 break;
             }
         }
-        return result;
+        if (!lawName) {
+            return false;
+        }
+        // "이 법", "이 영", "이 규칙"은 같은 법령
+        int previousEnd = trimEnd(text, 0, wordStart);
+        return previousEnd == wordStart || !"이".equals(text.substring(wordStart(text, previousEnd), previousEnd));
+    }
+
+    private static int wordStart(String text, int wordEnd) {
+        int start = wordEnd;
+        while (start > 0 && Character.isLetter(text.charAt(start - 1))) {
+            start--;
+        }
+        return start;
     }
-}
 
+    /* =========================
+       원문 위치 기준 도우미
+       ========================= */
+
+    /**
+     * 다음 줄 시작 위치 ((?m)^ 과 같은 기준, \r\n은 구분자 하나)
+     * @return 다음 줄이 없으면 text.length()
+     */
+    private static int nextLineStart(String text, int from) {
+        int length = text.length();
+        for (int i = from; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                return i + 2;
+            }
+            if (isLineTerminator(c)) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+
+    // 정규식 줄 구분자 (\n, \r, \u0085, \u2028, \u2029)
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    // String.trim()과 같은 기준으로 범위 앞쪽 공백을 건너뛴다.
+    private static int trimStart(String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    // String.trim()과 같은 기준으로 범위 뒤쪽 공백을 건너뛴다.
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * 한 문서를 청킹하는 동안 재사용하는 참조 판단용 Matcher (원문에 대해 범위만 바꿔 사용)
+     */
+    private static final class ReferenceMatchers {
+        private final Matcher after;
+        private final Matcher before;
+        private final Matcher lineBreakBefore;
+        private final Matcher subArticle;
+
+        private ReferenceMatchers(String text) {
+            this.after = REFERENCE_AFTER_PATTERN.matcher(text);
+            this.before = REFERENCE_BEFORE_PATTERN.matcher(text);
+            this.lineBreakBefore = LINE_BREAK_BEFORE_PATTERN.matcher(text);
+            this.subArticle = SUB_ARTICLE_PATTERN.matcher(text);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.cwmAi.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+public class ExtractedTextCache {
+
+    /* =========================
+       추출 텍스트 디스크 캐시
+       - 키: 원본 파일 SHA-256 + 추출기 버전 (파일명 "<sha256>-v<버전>.txt.gz")
+       - 내용이 같은 파일은 이름/위치가 바뀌어도 다시 추출하지 않는다.
+       - 추출/정규화 로직이 바뀌면 추출기 버전을 올려 이전 캐시를 무시한다.
+     ========================= */
+    private final Path cacheDir;
+    private final boolean enabled;
+
+    public ExtractedTextCache(
+            @Value("${cwmai.text-cache.dir:index/text-cache}") String cacheDir,
+            @Value("${cwmai.text-cache.enabled:true}") boolean enabled
+    ) {
+        this.cacheDir = Paths.get(cacheDir).toAbsolutePath();
+        this.enabled = enabled;
+    }
+
+    /**
+     * 캐시된 추출 텍스트를 조회한다.
+     * @param sha256 원본 파일 SHA-256
+     * @param extractorVersion 추출기 버전
+     * @return 캐시된 텍스트, 없거나 읽을 수 없으면 null
+     */
+    public String get(String sha256, int extractorVersion) {
+        if (!enabled || sha256 == null) {
+            return null;
+        }
+        Path file = entryPath(sha256, extractorVersion);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file), 1 << 16)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("[텍스트 캐시] 읽기 실패, 다시 추출합니다: " + file.getFileName() + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 추출 텍스트를 압축하여 저장한다. 실패해도 로딩은 계속된다.
+     */
+    public void put(String sha256, int extractorVersion, String text) {
+        if (!enabled || sha256 == null || text == null) {
+            return;
+        }
+        Path file = entryPath(sha256, extractorVersion);
+        Path temp = null;
+        try {
+            Files.createDirectories(cacheDir);
+            // 같은 내용의 파일을 여러 스레드가 동시에 저장할 수 있으므로 임시 파일은 저장마다 따로 만든다.
+            temp = Files.createTempFile(cacheDir, sha256 + "-", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+                out.write(text.getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("[텍스트 캐시] 저장 실패: " + file.getFileName() + " - " + e.getMessage());
+            try {
+                if (temp != null) {
+                    Files.deleteIfExists(temp);
+                }
+            } catch (IOException ignored) {
+                // 임시 파일 정리 실패는 무시
+            }
+        }
+    }
+
+    private Path entryPath(String sha256, int extractorVersion) {
+        return cacheDir.resolve(sha256 + "-v" + extractorVersion + ".txt.gz");
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.cwmAi.Config;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * HNSW(Hierarchical Navigable Small World) 근사 최근접 이웃 그래프.
+ * - 노드 번호는 VectorStoreInMemory의 임베딩 행 번호와 같다.
+ * - 벡터 자체는 보관하지 않고 VectorAccess를 통해 유사도(내적)만 계산한다.
+ * - 삭제는 툼스톤 방식: 그래프 탐색에는 쓰이지만 결과에서는 제외된다.
+ * - 인접 목록은 PAGE_SIZE개 노드 단위 페이지에 담고, 복사본은 페이지 표만 복사한 뒤
+ *   처음 수정하는 페이지만 복사한다. (copy-on-write)
+ */
+public class HnswIndex {
+
+    /**
+     * 노드 벡터에 대한 유사도 계산 (정규화된 벡터의 내적 = 코사인 유사도)
+     */
+    public interface VectorAccess {
+        double similarity(float[] query, int node);
+
+        double similarity(int nodeA, int nodeB);
+    }
+
+    // 페이지 하나에 담는 노드 수
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final VectorAccess vectors;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    // pages[node >> PAGE_BITS][node & (PAGE_SIZE - 1)][level] = 해당 레벨의 이웃 노드 번호 (정확한 길이의 배열)
+    // 노드의 레벨 배열과 이웃 배열은 제자리에서 수정하지 않고 항상 새 배열로 교체한다.
+    private int[][][][] pages = new int[0][][][];
+    // 이 인덱스가 만든(제자리에서 수정해도 되는) 페이지
+    private final BitSet ownedPages;
+    private int nodeCount = 0;
+    private final BitSet deleted;
+    private int deletedCount = 0;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(VectorAccess vectors, int m, int efConstruction) {
+        this.vectors = vectors;
+        this.m = Math.max(2, m);
+        this.maxM0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+        this.random = new Random(42);
+        this.deleted = new BitSet();
+        this.ownedPages = new BitSet();
+    }
+
+    private HnswIndex(HnswIndex source, VectorAccess vectors) {
+        this.vectors = vectors;
+        this.m = source.m;
+        this.maxM0 = source.maxM0;
+        this.efConstruction = source.efConstruction;
+        this.levelMultiplier = source.levelMultiplier;
+        this.random = new Random(source.random.nextLong());
+        // 페이지는 처음 수정할 때 복사하므로 페이지 표만 복사한다. (이제 양쪽 모두 공유 페이지를 수정하지 않음)
+        this.pages = source.pages.clone();
+        this.ownedPages = new BitSet();
+        source.ownedPages.clear();
+        this.nodeCount = source.nodeCount;
+        this.deleted = (BitSet) source.deleted.clone();
+        this.deletedCount = source.deletedCount;
+        this.entryPoint = source.entryPoint;
+        this.maxLevel = source.maxLevel;
+    }
+
+    /**
+     * 같은 그래프를 가진 독립된 인덱스를 만든다. 복사본에 삽입/삭제해도 원본은 바뀌지 않는다.
+     * 인접 목록은 복사본이 수정하는 페이지만 복사되고 나머지는 원본과 공유한다.
+     * @param vectors 복사본이 사용할 벡터 저장소 (원본과 같은 행 번호 체계)
+     */
+    public HnswIndex copy(VectorAccess vectors) {
+        return new HnswIndex(this, vectors);
+    }
+
+    public int size() {
+        return nodeCount - deletedCount;
+    }
+
+    public int getDeletedCount() {
+        return deletedCount;
+    }
+
+    public int getM() {
+        return m;
+    }
+
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    /* =========================
+       저장/복원 (SnapshotFile)
+     ========================= */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(nodeCount);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeInt(deletedCount);
+        for (int node = deleted.nextSetBit(0); node >= 0; node = deleted.nextSetBit(node + 1)) {
+            out.writeInt(node);
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            int[][] levels = levelsOf(node);
+            out.writeInt(levels.length);
+            for (int[] level : levels) {
+                out.writeInt(level.length);
+                for (int neighbor : level) {
+                    out.writeInt(neighbor);
+                }
+            }
+        }
+    }
+
+    static HnswIndex readFrom(ByteBuffer in, VectorAccess vectors) {
+        HnswIndex index = new HnswIndex(vectors, in.getInt(), in.getInt());
+        index.nodeCount = in.getInt();
+        index.entryPoint = in.getInt();
+        index.maxLevel = in.getInt();
+        index.deletedCount = in.getInt();
+        for (int i = 0; i < index.deletedCount; i++) {
+            index.deleted.set(in.getInt());
+        }
+        for (int node = 0; node < index.nodeCount; node++) {
+            int[][] levels = new int[in.getInt()][];
+            for (int l = 0; l < levels.length; l++) {
+                int[] level = new int[in.getInt()];
+                in.asIntBuffer().get(level);
+                in.position(in.position() + level.length * Integer.BYTES);
+                levels[l] = level;
+            }
+            index.setLevels(node, levels);
+        }
+        return index;
+    }
+
+    /* =========================
+       삽입
+     ========================= */
+    /**
+     * 새 노드를 그래프에 추가한다. node는 직전까지의 노드 수와 같아야 한다(행 번호 순서대로 삽입).
+     */
+    public void insert(int node, float[] vector) {
+        if (node != nodeCount) {
+            throw new IllegalArgumentException("HNSW 노드는 순서대로 삽입해야 합니다: " + node + " != " + nodeCount);
+        }
+        int level = randomLevel();
+        int[][] levels = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            levels[l] = new int[0];
+        }
+        setLevels(node, levels);
+        nodeCount++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        // 상위 레벨에서는 탐욕 탐색으로 진입점만 좁힌다.
+        IntToDoubleFunction scorer = other -> vectors.similarity(vector, other);
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(scorer, current, l);
+        }
+
+        // 노드 레벨 이하에서는 efConstruction 후보로 이웃을 연결한다.
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(scorer, current, efConstruction, l, null);
+            int maxNeighbors = (l == 0) ? maxM0 : m;
+            int[] selected = selectNeighbors(candidates, m);
+            setNeighbors(node, l, selected);
+            for (int neighbor : selected) {
+                connect(neighbor, node, l, maxNeighbors);
+            }
+            current = candidates.get(0).node;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    /**
+     * 노드를 삭제 표시한다. 그래프 연결은 유지되어 탐색 경로로는 계속 사용된다.
+     */
+    public void markDeleted(int node) {
+        if (node >= 0 && node < nodeCount && !deleted.get(node)) {
+            deleted.set(node);
+            deletedCount++;
+        }
+    }
+
+    public boolean isDeleted(int node) {
+        return deleted.get(node);
+    }
+
+    /* =========================
+       검색
+     ========================= */
+    /**
+     * 질의 벡터와 가장 가까운 노드를 최대 k개 찾는다.
+     * @param filter 결과에 포함할 노드 조건 (null이면 삭제되지 않은 모든 노드)
+     * @return 유사도 내림차순 후보 리스트
+     */
+    public List<Candidate> search(float[] query, int k, int efSearch, IntPredicate filter) {
+        return search(node -> vectors.similarity(query, node), k, efSearch, filter);
+    }
+
+    /**
+     * 질의와 노드의 유사도를 외부 점수 함수로 계산하며 탐색한다.
+     * (양자화 코드 기반 근사 점수로 그래프를 탐색할 때 사용)
+     */
+    public List<Candidate> search(IntToDoubleFunction queryScorer, int k, int efSearch, IntPredicate filter) {
+        List<Candidate> result = new ArrayList<>();
+        if (entryPoint < 0 || k <= 0) {
+            return result;
+        }
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(queryScorer, current, l);
+        }
+        IntPredicate accept = node -> !deleted.get(node) && (filter == null || filter.test(node));
+        List<Candidate> candidates = searchLayer(queryScorer, current, Math.max(efSearch, k), 0, accept);
+        for (Candidate candidate : candidates) {
+            if (result.size() >= k) {
+                break;
+            }
+            result.add(candidate);
+        }
+        return result;
+    }
+
+    private int greedyClosest(IntToDoubleFunction queryScorer, int start, int level) {
+        int current = start;
+        double currentScore = queryScorer.applyAsDouble(current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int neighbor : neighborsOf(current, level)) {
+                double score = queryScorer.applyAsDouble(neighbor);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = neighbor;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 한 레벨 안에서 ef개의 후보를 유지하며 탐색한다.
+     * accept가 주어지면 결과 집합에는 조건을 만족하는 노드만 담고, 탐색 경로에는 모든 노드를 사용한다.
+     */
+    private List<Candidate> searchLayer(IntToDoubleFunction queryScorer, int entry, int ef, int level, IntPredicate accept) {
+        BitSet visited = new BitSet(nodeCount);
+        // 탐색 대기열: 유사도가 높은 순
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Double.compare(b.score, a.score));
+        // 결과 집합: 유사도가 가장 낮은 것이 맨 앞
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Double.compare(a.score, b.score));
+
+        Candidate start = new Candidate(entry, queryScorer.applyAsDouble(entry));
+        visited.set(entry);
+        frontier.add(start);
+        if (accept == null || accept.test(entry)) {
+            results.add(start);
+        }
+
+        while (!frontier.isEmpty()) {
+            Candidate candidate = frontier.poll();
+            if (results.size() >= ef && candidate.score < results.peek().score) {
+                break;
+            }
+            for (int neighbor : neighborsOf(candidate.node, level)) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                double score = queryScorer.applyAsDouble(neighbor);
+                if (results.size() < ef || score > results.peek().score) {
+                    Candidate next = new Candidate(neighbor, score);
+                    frontier.add(next);
+                    if (accept == null || accept.test(neighbor)) {
+                        results.add(next);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Double.compare(b.score, a.score));
+        if (sorted.isEmpty() && accept == null) {
+            sorted.add(start);
+        }
+        return sorted;
+    }
+
+    /**
+     * 이웃 선택 휴리스틱: 이미 선택된 이웃보다 질의 노드에 더 가까운 후보만 채택하여
+     * 그래프가 여러 방향으로 고르게 연결되도록 한다.
+     */
+    private int[] selectNeighbors(List<Candidate> candidates, int maxCount) {
+        List<Candidate> selected = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxCount) {
+                break;
+            }
+            boolean good = true;
+            for (Candidate chosen : selected) {
+                if (vectors.similarity(candidate.node, chosen.node) > candidate.score) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                selected.add(candidate);
+            }
+        }
+        // 휴리스틱으로 너무 적게 선택되면 남은 후보로 채운다.
+        for (Candidate candidate : candidates) {
+            if (selected.size() >= maxCount) {
+                break;
+            }
+            if (!selected.contains(candidate)) {
+                selected.add(candidate);
+            }
+        }
+        int[] result = new int[selected.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = selected.get(i).node;
+        }
+        return result;
+    }
+
+    /**
+     * from 노드의 이웃 목록에 to 노드를 추가하고, 최대 이웃 수를 넘으면 다시 선택한다.
+     */
+    private void connect(int from, int to, int level, int maxNeighbors) {
+        int[] current = neighborsOf(from, level);
+        int[] extended = Arrays.copyOf(current, current.length + 1);
+        extended[current.length] = to;
+        if (extended.length <= maxNeighbors) {
+            setNeighbors(from, level, extended);
+            return;
+        }
+        List<Candidate> candidates = new ArrayList<>(extended.length);
+        for (int neighbor : extended) {
+            candidates.add(new Candidate(neighbor, vectors.similarity(from, neighbor)));
+        }
+        candidates.sort((a, b) -> Double.compare(b.score, a.score));
+        setNeighbors(from, level, selectNeighbors(candidates, maxNeighbors));
+    }
+
+    private int[][] levelsOf(int node) {
+        return pages[node >> PAGE_BITS][node & (PAGE_SIZE - 1)];
+    }
+
+    private int[] neighborsOf(int node, int level) {
+        int[][] levels = levelsOf(node);
+        return level < levels.length ? levels[level] : new int[0];
+    }
+
+    private void setNeighbors(int node, int level, int[] nodeNeighbors) {
+        // 원본과 공유할 수 있는 레벨 배열은 수정하지 않고 복사하여 교체한다.
+        int[][] levels = levelsOf(node).clone();
+        levels[level] = nodeNeighbors;
+        setLevels(node, levels);
+    }
+
+    /**
+     * 노드의 레벨 배열을 교체한다. 원본과 공유하는 페이지면 먼저 복사한다.
+     */
+    private void setLevels(int node, int[][] levels) {
+        int page = node >> PAGE_BITS;
+        if (page >= pages.length) {
+            pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+        }
+        if (!ownedPages.get(page)) {
+            pages[page] = pages[page] == null ? new int[PAGE_SIZE][][] : pages[page].clone();
+            ownedPages.set(page);
+        }
+        pages[page][node & (PAGE_SIZE - 1)] = levels;
+    }
+
+    private int randomLevel() {
+        double r = random.nextDouble();
+        return (int) Math.floor(-Math.log(Math.max(r, 1e-12)) * levelMultiplier);
+    }
+
+    /**
+     * 검색 후보 (노드 번호 + 유사도)
+     */
+    public static class Candidate {
+        public final int node;
+        public final double score;
+
+        public Candidate(int node, double score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.cwmAi.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 형태소 분석기 없이 한국어 검색을 하기 위한 문자 n-gram 토크나이저.
+ * - 글자/숫자가 아닌 문자로 어절을 나눈 뒤 어절 안에서 2-gram, 3-gram을 만든다.
+ * - 2글자 이하 어절은 어절 자체도 토큰으로 사용한다. (예: "법", "계약")
+ * 예: "계약보증금을" → 계약, 약보, 보증, 증금, 금을, 계약보, 약보증, 보증금, 증금을
+ */
+public final class NgramTokenizer {
+
+    private NgramTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase();
+        int length = lower.length();
+        int wordStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                }
+            } else if (wordStart >= 0) {
+                addWordGrams(lower, wordStart, i, tokens);
+                wordStart = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addWordGrams(String text, int start, int end, List<String> tokens) {
+        int wordLength = end - start;
+        if (wordLength <= 2) {
+            tokens.add(text.substring(start, end));
+        }
+        for (int n = 2; n <= 3; n++) {
+            for (int i = start; i + n <= end; i++) {
+                if (n == 2 && wordLength == 2) {
+                    continue; // 어절 자체와 같은 2-gram은 한 번만
+                }
+                tokens.add(text.substring(i, i + n));
+            }
+        }
+    }
+}
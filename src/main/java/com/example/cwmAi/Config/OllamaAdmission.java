@@ -0,0 +1,275 @@
+package com.example.cwmAi.Config;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+@Component
+public class OllamaAdmission {
+
+    /* =========================
+       Ollama 호출 입장 제어
+       - 동시에 모델을 호출하는 요청 수를 max-concurrent개로 제한하고, 나머지는 대기열(최대 max-queue개)에서 기다린다.
+       - 자리가 나면 2단계(진행 중인 대화의 답변 생성) 대기 요청을 1단계(새 질문) 대기 요청보다 먼저 들여보낸다.
+       - 대기열이 가득 차면 바로 거절한다. 단, 2단계 요청은 가장 나중에 들어온 1단계 대기 요청을 밀어내고 들어간다.
+       - queue-timeout-ms 동안 자리가 나지 않으면 거절한다. (응답 타임아웃까지 모두 함께 느려지는 것 방지)
+     ========================= */
+    public enum Priority {
+        STAGE1, // 새 질문의 조항 추천
+        STAGE2  // 진행 중인 대화의 최종 답변
+    }
+
+    /**
+     * 대기열이 가득 찼거나 대기 시간이 지나 거절된 요청
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public static class BusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int queued;
+
+        BusyException(String message, int queued) {
+            super(message);
+            this.queued = queued;
+        }
+
+        // 거절 시점의 대기 요청 수
+        public int getQueued() {
+            return queued;
+        }
+    }
+
+    // 대기 중인 요청 하나 (상태 변경은 lock 안에서만)
+    private static final class Waiter {
+        final Priority priority;
+        FluxSink<Integer> sink;
+        Disposable timeout;
+        int position;
+        boolean queued;
+        boolean granted;
+        boolean done;
+
+        Waiter(Priority priority) {
+            this.priority = priority;
+        }
+    }
+
+    // lock 안에서 정한 알림을 lock 밖에서 보낸다. (position 0 = 입장, -1 = 거절)
+    private record Notice(Waiter waiter, int position, BusyException rejection) {
+    }
+
+    private final Object lock = new Object();
+    private final Deque<Waiter> stage2Queue = new ArrayDeque<>();
+    private final Deque<Waiter> stage1Queue = new ArrayDeque<>();
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long queueTimeoutMs;
+    private int active;
+    private long admittedCount;
+    private long queuedCount;
+    private long rejectedCount;
+
+    public OllamaAdmission(
+            @Value("${cwmai.ollama.max-concurrent:2}") int maxConcurrent,
+            @Value("${cwmai.ollama.max-queue:16}") int maxQueue,
+            @Value("${cwmai.ollama.queue-timeout-ms:60000}") long queueTimeoutMs
+    ) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.queueTimeoutMs = Math.max(0, queueTimeoutMs);
+    }
+
+    /**
+     * 자리가 나면 call을 실행한다. call이 끝나거나(오류/취소 포함) 대기 중에 구독이 취소되면 자리를 반납한다.
+     * @param queuedSignal 대기 순서(1부터, 바뀔 때마다)와 입장(0, 대기했던 경우만)을 알릴 값을 만든다. null이면 알리지 않는다.
+     * @return 대기 알림 뒤에 call의 결과, 거절되면 BusyException 오류
+     */
+    public <T> Flux<T> run(Priority priority, Supplier<? extends Publisher<T>> call, IntFunction<? extends T> queuedSignal) {
+        return Flux.defer(() -> {
+            Waiter waiter = new Waiter(priority);
+            Flux<Integer> admission = Flux.create(sink -> enqueue(waiter, sink));
+            Flux<T> waiting = queuedSignal == null
+                    ? admission.thenMany(Flux.<T>empty())
+                    : admission.map(queuedSignal::apply);
+            return Flux.concat(waiting, Flux.defer(call)).doFinally(signal -> release(waiter));
+        });
+    }
+
+    /**
+     * 대기 알림 없이 자리가 나면 call을 실행한다.
+     */
+    public <T> Mono<T> run(Priority priority, Supplier<Mono<T>> call) {
+        return run(priority, call, null).next();
+    }
+
+    private void enqueue(Waiter waiter, FluxSink<Integer> sink) {
+        List<Notice> notices = new ArrayList<>();
+        synchronized (lock) {
+            waiter.sink = sink;
+            if (waiter.done) {
+                // 구독하자마자 취소된 경우
+                return;
+            }
+            if (active < maxConcurrent && stage2Queue.isEmpty() && stage1Queue.isEmpty()) {
+                active++;
+                admittedCount++;
+                waiter.granted = true;
+            } else if (queueSize() < maxQueue) {
+                addToQueue(waiter, notices);
+            } else if (waiter.priority == Priority.STAGE2 && !stage1Queue.isEmpty()) {
+                // 진행 중인 대화를 살리기 위해 가장 나중에 들어온 새 질문을 밀어낸다.
+                Waiter evicted = stage1Queue.pollLast();
+                evicted.queued = false;
+                cancelTimeout(evicted);
+                rejectedCount++;
+                notices.add(new Notice(evicted, -1, busy("답변 생성 중인 대화가 우선 처리되어 요청이 취소되었습니다.")));
+                addToQueue(waiter, notices);
+            } else {
+                rejectedCount++;
+                notices.add(new Notice(waiter, -1, busy("요청이 많아 처리할 수 없습니다.")));
+            }
+        }
+        if (waiter.granted) {
+            sink.complete();
+        }
+        deliver(notices);
+    }
+
+    private void addToQueue(Waiter waiter, List<Notice> notices) {
+        (waiter.priority == Priority.STAGE2 ? stage2Queue : stage1Queue).addLast(waiter);
+        waiter.queued = true;
+        queuedCount++;
+        if (queueTimeoutMs > 0) {
+            waiter.timeout = Schedulers.parallel().schedule(() -> expire(waiter), queueTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+        updatePositions(notices);
+    }
+
+    // 대기 시간이 지난 요청을 거절한다.
+    private void expire(Waiter waiter) {
+        List<Notice> notices = new ArrayList<>();
+        synchronized (lock) {
+            if (!waiter.queued) {
+                return;
+            }
+            removeFromQueue(waiter);
+            rejectedCount++;
+            notices.add(new Notice(waiter, -1, busy("대기 시간(" + queueTimeoutMs / 1000 + "초)이 지나 요청이 취소되었습니다.")));
+            updatePositions(notices);
+        }
+        deliver(notices);
+    }
+
+    // 끝났거나 취소된 요청의 자리/대기열을 정리하고 다음 요청을 들여보낸다. (여러 번 불려도 한 번만 반납)
+    private void release(Waiter waiter) {
+        List<Notice> notices = new ArrayList<>();
+        synchronized (lock) {
+            if (waiter.done) {
+                return;
+            }
+            waiter.done = true;
+            if (waiter.queued) {
+                removeFromQueue(waiter);
+            } else if (waiter.granted) {
+                active--;
+            }
+            while (active < maxConcurrent && queueSize() > 0) {
+                Waiter next = !stage2Queue.isEmpty() ? stage2Queue.pollFirst() : stage1Queue.pollFirst();
+                next.queued = false;
+                next.granted = true;
+                cancelTimeout(next);
+                active++;
+                admittedCount++;
+                notices.add(new Notice(next, 0, null));
+            }
+            updatePositions(notices);
+        }
+        deliver(notices);
+    }
+
+    private void removeFromQueue(Waiter waiter) {
+        (waiter.priority == Priority.STAGE2 ? stage2Queue : stage1Queue).remove(waiter);
+        waiter.queued = false;
+        cancelTimeout(waiter);
+    }
+
+    // 2단계 대기열 → 1단계 대기열 순서로 대기 순서를 다시 매기고, 바뀐 요청에만 알린다.
+    private void updatePositions(List<Notice> notices) {
+        int position = 0;
+        for (Deque<Waiter> queue : List.of(stage2Queue, stage1Queue)) {
+            for (Waiter waiter : queue) {
+                position++;
+                if (waiter.position != position) {
+                    waiter.position = position;
+                    notices.add(new Notice(waiter, position, null));
+                }
+            }
+        }
+    }
+
+    private void deliver(List<Notice> notices) {
+        for (Notice notice : notices) {
+            FluxSink<Integer> sink = notice.waiter().sink;
+            if (notice.rejection() != null) {
+                sink.error(notice.rejection());
+            } else if (notice.position() == 0) {
+                sink.next(0);
+                sink.complete();
+            } else {
+                sink.next(notice.position());
+            }
+        }
+    }
+
+    private static void cancelTimeout(Waiter waiter) {
+        if (waiter.timeout != null) {
+            waiter.timeout.dispose();
+            waiter.timeout = null;
+        }
+    }
+
+    private BusyException busy(String reason) {
+        int queued = queueSize();
+        return new BusyException(reason + " (처리 중 " + active + "건, 대기 " + queued + "건)", queued);
+    }
+
+    private int queueSize() {
+        return stage2Queue.size() + stage1Queue.size();
+    }
+
+    /**
+     * 현재 처리/대기 현황과 누적 입장/대기/거절 수
+     */
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (lock) {
+            stats.put("maxConcurrent", maxConcurrent);
+            stats.put("maxQueue", maxQueue);
+            stats.put("queueTimeoutMs", queueTimeoutMs);
+            stats.put("active", active);
+            stats.put("queuedStage2", stage2Queue.size());
+            stats.put("queuedStage1", stage1Queue.size());
+            stats.put("admitted", admittedCount);
+            stats.put("queued", queuedCount);
+            stats.put("rejected", rejectedCount);
+        }
+        return stats;
+    }
+}
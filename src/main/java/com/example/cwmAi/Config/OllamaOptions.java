@@ -0,0 +1,49 @@
+package com.example.cwmAi.Config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Ollama /api/chat 요청의 "options" 객체 (모델 생성 파라미터).
+ * - Ollama는 생성 파라미터를 요청 최상위가 아니라 options 안에서만 읽는다.
+ * - null인 항목은 보내지 않아 모델 기본값(Modelfile)을 그대로 쓴다.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OllamaOptions {
+
+    // 최대 생성 토큰 수
+    @JsonProperty("num_predict")
+    private Integer numPredict;
+
+    // 컨텍스트 길이 (요청마다 다르면 Ollama가 모델을 다시 적재하므로 단계 간에 같은 값을 쓴다)
+    @JsonProperty("num_ctx")
+    private Integer numCtx;
+
+    // 출력 다양성 (0이면 가장 확률 높은 토큰만 선택)
+    private Double temperature;
+
+    // 확률 상위 k개 토큰만 고려
+    @JsonProperty("top_k")
+    private Integer topK;
+
+    // 누적 확률 top_p 안의 토큰만 고려
+    @JsonProperty("top_p")
+    private Double topP;
+
+    // 가장 높은 확률 대비 min_p 미만인 토큰 제외
+    @JsonProperty("min_p")
+    private Double minP;
+
+    // 반복 억제 강도
+    @JsonProperty("repeat_penalty")
+    private Double repeatPenalty;
+
+    // 난수 시드 (같은 입력에 같은 출력)
+    private Integer seed;
+}
@@ -0,0 +1,102 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.messageDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OllamaProfiles {
+
+    /* =========================
+       단계별 Ollama 생성 설정
+       - 1단계(조항 이름 추천): 짧은 JSON 배열만 필요하므로 생성 길이를 작게, temperature 0, 출력 형식을 JSON 스키마로 고정
+       - 2단계(최종 답변): 답변 길이만큼 생성, 약간의 다양성 허용
+       - num_ctx/keep_alive는 두 단계가 같은 값을 쓴다. (num_ctx가 바뀌면 Ollama가 모델을 다시 적재함)
+     ========================= */
+    // 1단계 출력 스키마: 조항 이름 문자열 배열 ("json" 형식은 객체를 내놓는 경우가 많아 배열 스키마를 지정)
+    static final Map<String, Object> STAGE1_FORMAT = Map.of(
+            "type", "array",
+            "items", Map.of("type", "string")
+    );
+
+    private final String keepAlive;
+    private final int numCtx;
+    private final int stage1NumPredict;
+    private final double stage1Temperature;
+    private final boolean stage1JsonFormat;
+    private final int stage2NumPredict;
+    private final double stage2Temperature;
+    private final double stage2MinP;
+
+    public OllamaProfiles(
+            @Value("${cwmai.ollama.keep-alive:30m}") String keepAlive,
+            @Value("${cwmai.ollama.num-ctx:8192}") int numCtx,
+            @Value("${cwmai.ollama.stage1.num-predict:256}") int stage1NumPredict,
+            @Value("${cwmai.ollama.stage1.temperature:0}") double stage1Temperature,
+            @Value("${cwmai.ollama.stage1.json-format:true}") boolean stage1JsonFormat,
+            @Value("${cwmai.ollama.stage2.num-predict:1024}") int stage2NumPredict,
+            @Value("${cwmai.ollama.stage2.temperature:0.2}") double stage2Temperature,
+            @Value("${cwmai.ollama.stage2.min-p:0.1}") double stage2MinP
+    ) {
+        this.keepAlive = keepAlive == null || keepAlive.isBlank() ? null : keepAlive.trim();
+        this.numCtx = numCtx;
+        this.stage1NumPredict = stage1NumPredict;
+        this.stage1Temperature = stage1Temperature;
+        this.stage1JsonFormat = stage1JsonFormat;
+        this.stage2NumPredict = stage2NumPredict;
+        this.stage2Temperature = stage2Temperature;
+        this.stage2MinP = stage2MinP;
+    }
+
+    /**
+     * 1단계(조항 이름 추천) 요청을 만든다.
+     */
+    public ChatRequest stage1Request(String model, List<messageDTO> messages) {
+        OllamaOptions options = baseOptions();
+        options.setNumPredict(stage1NumPredict);
+        options.setTemperature(stage1Temperature);
+        ChatRequest request = baseRequest(model, messages, options);
+        if (stage1JsonFormat) {
+            request.setFormat(STAGE1_FORMAT);
+        }
+        return request;
+    }
+
+    /**
+     * 2단계(최종 답변) 요청을 만든다.
+     */
+    public ChatRequest stage2Request(String model, List<messageDTO> messages) {
+        OllamaOptions options = baseOptions();
+        options.setNumPredict(stage2NumPredict);
+        options.setTemperature(stage2Temperature);
+        options.setMinP(stage2MinP);
+        return baseRequest(model, messages, options);
+    }
+
+    public int getNumCtx() {
+        return numCtx;
+    }
+
+    public int getStage2NumPredict() {
+        return stage2NumPredict;
+    }
+
+    private OllamaOptions baseOptions() {
+        OllamaOptions options = new OllamaOptions();
+        // 0 이하이면 모델 기본 컨텍스트 길이 사용
+        if (numCtx > 0) {
+            options.setNumCtx(numCtx);
+        }
+        return options;
+    }
+
+    private ChatRequest baseRequest(String model, List<messageDTO> messages, OllamaOptions options) {
+        ChatRequest request = new ChatRequest(model, messages);
+        request.setKeepAlive(keepAlive);
+        request.setOptions(options);
+        return request;
+    }
+}
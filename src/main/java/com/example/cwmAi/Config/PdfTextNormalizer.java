@@ -0,0 +1,383 @@
+package com.example.cwmAi.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PDF 추출 텍스트 정규화기 (한 번 훑기, 입력 길이에 선형)
+ * - 기존 정규식 단계와 결과가 같다.
+ *   1) 편집 이력 제거: &lt;[^&gt;]+&gt;
+ *   2) 머리글/바닥글 줄 제거: (?m)^.*(국가법령정보센터|법제처).*$
+ *   3) 쪽수만 있는 줄 제거: (?m)^\s*\d+\s*$
+ *   4) "\n" 기준 줄 나누기 → trim → 빈 줄 제거 → 조/장 시작 줄 앞은 줄바꿈, 나머지는 공백으로 연결
+ *   5) 연속 공백/탭 정리: [ \t]{2,} → " "
+ *   6) 연속 개행 정리: \n{3,} → \n\n (4단계 결과에는 연속 개행이 없으므로 생략)
+ * - 입력은 append로 여러 번 나누어 넣을 수 있으며(페이지 구간 단위 추출), 나누는 위치는 결과에 영향이 없다.
+ * - 정규식의 줄 구분자(\n, \r\n, \r, \u0085, \u2028, \u2029)와 4단계의 "\n" 줄 나누기를 따로 다루어
+ *   줄 구분자가 섞인 텍스트에서도 결과가 같다.
+ * 문서 하나에 인스턴스 하나를 사용한다. (스레드 안전하지 않음)
+ */
+public final class PdfTextNormalizer {
+
+    private static final String[] FOOTER_KEYWORDS = {"국가법령정보센터", "법제처"};
+
+    /* =========================
+       1단계: 편집 이력 태그
+       - "<" 이후 ">"가 나올 때까지 모아 두었다가 닫히면 버린다.
+     ========================= */
+    private final StringBuilder tag = new StringBuilder();
+    private boolean inTag;
+
+    /* =========================
+       2단계 입력: 정규식 기준 줄
+     ========================= */
+    private final StringBuilder regexLine = new StringBuilder();
+    private boolean pendingCarriageReturn;
+
+    /* =========================
+       3단계 입력: 2단계 결과를 다시 나눈 줄
+       - 지워진 줄 양옆의 "\r"와 "\n"은 구분자 하나("\r\n")로 합쳐지므로 줄을 다시 나눈다.
+     ========================= */
+    private final StringBuilder filteredLine = new StringBuilder();
+    private boolean filteredCarriageReturn;
+
+    /* =========================
+       3단계: 쪽수 줄 제거 상태
+       - prefix: 쪽수 줄 앞에 있으면 함께 지워지는 공백 줄들 (공백 종류 구분자로 끝남)
+       - trailing: 쪽수 줄을 지운 뒤, 이어지는 공백 줄도 지우는 중 (지운 구간 뒤에 남을 구분자 보관)
+       - trailingAtLineStart: 지운 구간이 빈 줄에서 끝나 다음 검사가 그 줄 시작에서 이어지는지
+     ========================= */
+    private final List<String[]> prefix = new ArrayList<>();
+    private boolean trailing;
+    private boolean trailingAtLineStart;
+    private String trailingTerminator;
+
+    /* =========================
+       4~5단계: "\n" 기준 줄과 결과
+     ========================= */
+    private final StringBuilder newlineLine = new StringBuilder();
+    private final StringBuilder result = new StringBuilder();
+    private boolean finished;
+
+    /**
+     * 텍스트 전체를 한 번에 정규화한다.
+     */
+    public static String normalize(CharSequence text) {
+        PdfTextNormalizer normalizer = new PdfTextNormalizer();
+        normalizer.append(text);
+        return normalizer.finish();
+    }
+
+    /**
+     * 추출 텍스트 일부를 넣는다.
+     */
+    public void append(CharSequence text) {
+        if (finished) {
+            throw new IllegalStateException("이미 끝난 정규화기입니다.");
+        }
+        for (int i = 0, length = text.length(); i < length; i++) {
+            acceptRaw(text.charAt(i));
+        }
+    }
+
+    /**
+     * 남은 입력을 처리하고 정규화 결과를 반환한다.
+     */
+    public String finish() {
+        if (!finished) {
+            finished = true;
+            if (inTag) {
+                // 닫히지 않은 "<"는 지우지 않는다. (이후에도 ">"가 없으므로 뒤따르는 "<"도 그대로 둔다.)
+                inTag = false;
+                for (int i = 0; i < tag.length(); i++) {
+                    acceptLineChar(tag.charAt(i));
+                }
+            }
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                endRegexLine("\r");
+            }
+            endRegexLine(null);
+            if (filteredCarriageReturn) {
+                filteredCarriageReturn = false;
+                endFilteredLine("\r");
+            }
+            endFilteredLine(null);
+            if (newlineLine.length() > 0) {
+                endNewlineLine();
+            }
+        }
+        return result.toString();
+    }
+
+    /* =========================
+       1단계
+     ========================= */
+    private void acceptRaw(char c) {
+        if (!inTag) {
+            if (c == '<') {
+                inTag = true;
+                tag.setLength(0);
+                tag.append(c);
+            } else {
+                acceptLineChar(c);
+            }
+            return;
+        }
+        if (c != '>') {
+            tag.append(c);
+            return;
+        }
+        inTag = false;
+        if (tag.length() == 1) {
+            // "<>"는 태그가 아니다.
+            acceptLineChar('<');
+            acceptLineChar('>');
+        }
+    }
+
+    /* =========================
+       정규식 기준 줄 나누기 (\r\n은 구분자 하나)
+     ========================= */
+    private void acceptLineChar(char c) {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            if (c == '\n') {
+                endRegexLine("\r\n");
+                return;
+            }
+            endRegexLine("\r");
+        }
+        if (c == '\r') {
+            pendingCarriageReturn = true;
+        } else if (c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            endRegexLine(String.valueOf(c));
+        } else {
+            regexLine.append(c);
+        }
+    }
+
+    /**
+     * @param terminator 줄 구분자 (입력 끝이면 null)
+     */
+    private void endRegexLine(String terminator) {
+        String content = regexLine.toString();
+        regexLine.setLength(0);
+        // 2단계: 머리글/바닥글 키워드가 있는 줄은 내용만 지운다.
+        for (String keyword : FOOTER_KEYWORDS) {
+            if (content.contains(keyword)) {
+                content = "";
+                break;
+            }
+        }
+        for (int i = 0; i < content.length(); i++) {
+            acceptFilteredChar(content.charAt(i));
+        }
+        if (terminator != null) {
+            for (int i = 0; i < terminator.length(); i++) {
+                acceptFilteredChar(terminator.charAt(i));
+            }
+        }
+    }
+
+    private void acceptFilteredChar(char c) {
+        if (filteredCarriageReturn) {
+            filteredCarriageReturn = false;
+            if (c == '\n') {
+                endFilteredLine("\r\n");
+                return;
+            }
+            endFilteredLine("\r");
+        }
+        if (c == '\r') {
+            filteredCarriageReturn = true;
+        } else if (c == '\n' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+            endFilteredLine(String.valueOf(c));
+        } else {
+            filteredLine.append(c);
+        }
+    }
+
+    private void endFilteredLine(String terminator) {
+        String content = filteredLine.toString();
+        filteredLine.setLength(0);
+        removePageNumberLines(content, terminator);
+    }
+
+    /* =========================
+       3단계
+       - 정규식은 줄 시작에서 공백(구분자 포함)을 건너 숫자를 찾으므로,
+         쪽수 줄 바로 앞의 공백 줄들과 바로 뒤의 공백 줄들도 구분자째 함께 지워진다.
+     ========================= */
+    private void removePageNumberLines(String content, String terminator) {
+        if (trailing) {
+            if (isWhitespaceTerminator(trailingTerminator) && isBlank(content)) {
+                // 지우는 구간이 이 줄 끝까지 늘어난다.
+                trailingTerminator = terminator;
+                trailingAtLineStart = content.isEmpty();
+                if (terminator == null) {
+                    trailing = false;
+                } else if (!isWhitespaceTerminator(terminator)) {
+                    trailing = false;
+                    emit("", terminator);
+                }
+                return;
+            }
+            trailing = false;
+            if (trailingAtLineStart) {
+                // 남은 빈 줄은 다음 쪽수 줄 앞의 공백 줄이 될 수 있다.
+                prefix.add(new String[]{"", trailingTerminator});
+            } else {
+                emit("", trailingTerminator);
+            }
+        }
+
+        if (isPageNumber(content)) {
+            // 앞의 공백 줄들과 이 줄 내용을 지운다.
+            prefix.clear();
+            if (terminator == null) {
+                return;
+            }
+            if (isWhitespaceTerminator(terminator)) {
+                trailing = true;
+                trailingAtLineStart = false;
+                trailingTerminator = terminator;
+            } else {
+                emit("", terminator);
+            }
+            return;
+        }
+        if (terminator != null && isWhitespaceTerminator(terminator) && isBlank(content)) {
+            prefix.add(new String[]{content, terminator});
+            return;
+        }
+        for (String[] line : prefix) {
+            emit(line[0], line[1]);
+        }
+        prefix.clear();
+        emit(content, terminator);
+    }
+
+    // \s에 포함되는 구분자인지 (\u0085, \u2028, \u2029는 \s가 아님)
+    private static boolean isWhitespaceTerminator(String terminator) {
+        return terminator != null && terminator.charAt(terminator.length() - 1) <= '\r';
+    }
+
+    // 줄 안의 \s 문자 (구분자 제외)
+    private static boolean isInlineWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\u000B' || c == '\f';
+    }
+
+    private static boolean isBlank(String content) {
+        for (int i = 0; i < content.length(); i++) {
+            if (!isInlineWhitespace(content.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPageNumber(String content) {
+        int i = 0;
+        int length = content.length();
+        while (i < length && isInlineWhitespace(content.charAt(i))) {
+            i++;
+        }
+        int digitStart = i;
+        while (i < length && isAsciiDigit(content.charAt(i))) {
+            i++;
+        }
+        if (i == digitStart) {
+            return false;
+        }
+        while (i < length && isInlineWhitespace(content.charAt(i))) {
+            i++;
+        }
+        return i == length;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /* =========================
+       4~5단계: "\n" 기준 줄 연결
+     ========================= */
+    private void emit(String content, String terminator) {
+        newlineLine.append(content);
+        if (terminator == null) {
+            return;
+        }
+        if (terminator.equals("\n") || terminator.equals("\r\n")) {
+            if (terminator.length() == 2) {
+                newlineLine.append('\r');
+            }
+            endNewlineLine();
+        } else {
+            newlineLine.append(terminator);
+        }
+    }
+
+    private void endNewlineLine() {
+        String line = newlineLine.toString().trim();
+        newlineLine.setLength(0);
+        if (line.isEmpty()) {
+            return;
+        }
+        if (isArticleOrChapterStart(line) && result.length() > 0) {
+            // 조/장 시작 전에는 줄바꿈 유지
+            result.append('\n');
+        } else if (result.length() > 0) {
+            // 일반 줄은 공백으로 연결
+            result.append(' ');
+        }
+        appendCollapsingSpaces(line);
+    }
+
+    /**
+     * ^\s*제\s*\d+[장조].* 와 같은 판정 (trim된 줄 기준, "제n조의m"도 포함됨)
+     */
+    private static boolean isArticleOrChapterStart(String line) {
+        if (line.charAt(0) != '제') {
+            return false;
+        }
+        int i = 1;
+        int length = line.length();
+        while (i < length && (isInlineWhitespace(line.charAt(i)) || line.charAt(i) == '\n' || line.charAt(i) == '\r')) {
+            i++;
+        }
+        int digitStart = i;
+        while (i < length && isAsciiDigit(line.charAt(i))) {
+            i++;
+        }
+        if (i == digitStart || i == length || (line.charAt(i) != '장' && line.charAt(i) != '조')) {
+            return false;
+        }
+        // ".*"는 줄 구분자를 지나지 못한다.
+        for (i++; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 연속된 공백/탭(2개 이상)은 공백 하나로
+    private void appendCollapsingSpaces(String line) {
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            if (c == ' ' || c == '\t') {
+                int runEnd = i + 1;
+                while (runEnd < length && (line.charAt(runEnd) == ' ' || line.charAt(runEnd) == '\t')) {
+                    runEnd++;
+                }
+                result.append(runEnd - i >= 2 ? ' ' : c);
+                i = runEnd - 1;
+            } else {
+                result.append(c);
+            }
+        }
+    }
+}
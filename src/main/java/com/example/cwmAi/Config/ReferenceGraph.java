@@ -0,0 +1,164 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 법령별 조항 참조 그래프 (조 청크 → 본문에서 참조하는 같은 법령의 조 청크).
+ * - 같은 법령 = 같은 카테고리의 같은 파일. 참조는 법령 안에서만 이어지므로 법령마다 따로 그래프를 만든다.
+ * - 법령 그래프의 문서 번호는 그 법령 청크의 순서이고, 인접 리스트는 CSR 형태의 int 배열 두 개에 담는다.
+ *   (offsets[doc] ~ offsets[doc + 1] 구간의 targets가 doc이 참조하는 문서)
+ * - 같은 조항 번호가 여러 번 나오면 (목차 등) 본문이 가장 긴 청크를 가리킨다.
+ * - 청크가 바뀌면 바뀐 법령의 그래프만 다시 만들고 나머지는 이전 그래프와 공유한다.
+ * - 만든 뒤에는 수정하지 않으므로 여러 스레드가 동시에 읽어도 안전하다.
+ */
+public final class ReferenceGraph {
+
+    /**
+     * 법령 하나의 참조 그래프
+     */
+    private static final class LawGraph {
+        private final List<chunkDTO> docs;
+        private final Map<chunkDTO, Integer> docIds;
+        private final int[] offsets;
+        private final int[] targets;
+
+        private LawGraph(List<chunkDTO> docs, Map<chunkDTO, Integer> docIds, int[] offsets, int[] targets) {
+            this.docs = docs;
+            this.docIds = docIds;
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+    }
+
+    // 법령 키(카테고리/파일) → 법령 그래프
+    private final Map<String, LawGraph> laws;
+    private final int size;
+    private final int edgeCount;
+
+    private ReferenceGraph(Map<String, LawGraph> laws) {
+        this.laws = laws;
+        int docs = 0;
+        int edges = 0;
+        for (LawGraph law : laws.values()) {
+            docs += law.docs.size();
+            edges += law.targets.length;
+        }
+        this.size = docs;
+        this.edgeCount = edges;
+    }
+
+    /**
+     * store 전체의 조항 참조를 추출하여 그래프를 만든다.
+     */
+    public static ReferenceGraph build(List<chunkDTO> store) {
+        Map<String, List<chunkDTO>> lawChunks = new LinkedHashMap<>();
+        for (chunkDTO chunk : store) {
+            lawChunks.computeIfAbsent(lawKey(chunk), key -> new ArrayList<>()).add(chunk);
+        }
+        Map<String, LawGraph> laws = new HashMap<>();
+        for (Map.Entry<String, List<chunkDTO>> entry : lawChunks.entrySet()) {
+            laws.put(entry.getKey(), buildLaw(entry.getValue()));
+        }
+        return new ReferenceGraph(laws);
+    }
+
+    /**
+     * 바뀐 법령의 그래프만 다시 만든 새 그래프를 돌려준다. (이 그래프는 그대로 유지된다)
+     * @param changedLaws 법령 키 → 그 법령의 현재 청크 전체 (비어 있으면 법령 삭제)
+     */
+    public ReferenceGraph update(Map<String, List<chunkDTO>> changedLaws) {
+        Map<String, LawGraph> updated = new HashMap<>(laws);
+        for (Map.Entry<String, List<chunkDTO>> entry : changedLaws.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                updated.remove(entry.getKey());
+            } else {
+                updated.put(entry.getKey(), buildLaw(entry.getValue()));
+            }
+        }
+        return new ReferenceGraph(updated);
+    }
+
+    private static LawGraph buildLaw(List<chunkDTO> chunks) {
+        List<chunkDTO> docs = List.copyOf(chunks);
+        Map<chunkDTO, Integer> docIds = new IdentityHashMap<>(docs.size());
+        // 조항 번호 → 문서 번호
+        Map<String, Integer> articles = new HashMap<>();
+        for (int doc = 0; doc < docs.size(); doc++) {
+            chunkDTO chunk = docs.get(doc);
+            docIds.put(chunk, doc);
+            if (chunk.getArticleNumber() == null) {
+                continue;
+            }
+            Integer existing = articles.get(chunk.getArticleNumber());
+            if (existing == null || textLength(docs.get(existing)) < textLength(chunk)) {
+                articles.put(chunk.getArticleNumber(), doc);
+            }
+        }
+
+        int[] offsets = new int[docs.size() + 1];
+        int[] targets = new int[Math.max(16, docs.size())];
+        int edges = 0;
+        for (int doc = 0; doc < docs.size(); doc++) {
+            offsets[doc] = edges;
+            for (String articleNumber : DocumentChunker.extractArticleReferences(docs.get(doc))) {
+                Integer target = articles.get(articleNumber);
+                if (target == null || target == doc) {
+                    continue;
+                }
+                if (edges == targets.length) {
+                    targets = Arrays.copyOf(targets, edges * 2);
+                }
+                targets[edges++] = target;
+            }
+        }
+        offsets[docs.size()] = edges;
+        return new LawGraph(docs, docIds, offsets, Arrays.copyOf(targets, edges));
+    }
+
+    /**
+     * @return 청크가 참조하는 같은 법령의 조 청크 (본문에 처음 나온 순서), 그래프에 없는 청크면 빈 배열
+     */
+    public chunkDTO[] getReferencedChunks(chunkDTO chunk) {
+        LawGraph law = laws.get(lawKey(chunk));
+        Integer doc = law == null ? null : law.docIds.get(chunk);
+        if (doc == null) {
+            return new chunkDTO[0];
+        }
+        chunkDTO[] referenced = new chunkDTO[law.offsets[doc + 1] - law.offsets[doc]];
+        for (int i = 0; i < referenced.length; i++) {
+            referenced[i] = law.docs.get(law.targets[law.offsets[doc] + i]);
+        }
+        return referenced;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getLawCount() {
+        return laws.size();
+    }
+
+    /**
+     * 청크가 속한 법령 키 (카테고리/파일)
+     */
+    static String lawKey(chunkDTO chunk) {
+        return (chunk.getCategory() == null ? "" : chunk.getCategory()) + "/" + chunk.getFileName();
+    }
+
+    private static int textLength(chunkDTO chunk) {
+        return chunk.getText() == null ? 0 : chunk.getText().length();
+    }
+}
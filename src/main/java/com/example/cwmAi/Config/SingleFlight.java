@@ -0,0 +1,91 @@
+package com.example.cwmAi.Config;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키의 호출이 진행 중이면 새로 호출하지 않고 진행 중인 호출의 결과를 함께 받는다. (single-flight)
+ * - 진행 중인 호출의 결과는 처음부터 다시 보내 주므로 늦게 합류한 구독자도 전체 결과를 받는다.
+ * - 구독자 수를 세어 마지막 구독자가 취소할 때만 호출을 취소한다. (한 클라이언트가 끊어도 나머지는 계속 받음)
+ * - 호출이 끝나면(완료/오류/취소) 결과를 구독자에게 보내기 전에 키를 지우므로 결과를 캐시하지는 않는다.
+ *   (끝난 직후 같은 키로 들어온 요청은 끝난 호출의 결과를 다시 받지 않고 새로 호출한다)
+ */
+public final class SingleFlight<K, T> {
+
+    private final String name;
+    private final ConcurrentMap<K, Flux<T>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong startedCount = new AtomicLong();
+    private final AtomicLong joinedCount = new AtomicLong();
+
+    /**
+     * @param name 로그에 표시할 호출 이름
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 같은 키의 호출이 진행 중이면 합류하고, 없으면 call을 시작한다.
+     */
+    public Flux<T> run(K key, Supplier<? extends Publisher<T>> call) {
+        return Flux.defer(() -> {
+            boolean[] started = new boolean[1];
+            Flux<T> shared = inFlight.computeIfAbsent(key, k -> {
+                started[0] = true;
+                return share(k, call);
+            });
+            if (started[0]) {
+                startedCount.incrementAndGet();
+            } else {
+                joinedCount.incrementAndGet();
+                System.out.println("[동일 질문 병합] " + name + ": 진행 중인 호출에 합류 (" + key + ")");
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * 결과가 하나인 호출을 병합한다.
+     */
+    public Mono<T> run(K key, Mono<T> call) {
+        return run(key, () -> call).singleOrEmpty();
+    }
+
+    private Flux<T> share(K key, Supplier<? extends Publisher<T>> call) {
+        AtomicReference<Flux<T>> self = new AtomicReference<>();
+        AtomicBoolean connected = new AtomicBoolean();
+        Runnable remove = () -> inFlight.remove(key, self.get());
+        // 모든 구독자가 취소한 뒤 (키를 지우기 직전에 이 호출을 받아 간) 구독자가 다시 연결하면
+        // 등록되지 않은 호출을 따로 시작하지 않고 같은 키의 새 호출에 합류하거나 새 호출을 등록한다.
+        Flux<T> shared = Flux.<T>defer(() -> connected.compareAndSet(false, true) ? call.get() : run(key, call))
+                .doOnTerminate(remove)
+                .doOnCancel(remove)
+                .replay()
+                .refCount(1);
+        self.set(shared);
+        return shared;
+    }
+
+    // 새로 시작한 호출 수
+    public long getStartedCount() {
+        return startedCount.get();
+    }
+
+    // 진행 중인 호출에 합류한 요청 수 (모델 호출을 아낀 수)
+    public long getJoinedCount() {
+        return joinedCount.get();
+    }
+
+    // 지금 진행 중인 호출 수
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
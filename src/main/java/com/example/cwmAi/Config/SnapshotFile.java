@@ -0,0 +1,196 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.sourceFileDTO;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 저장소 스냅샷을 버전이 붙은 바이너리 파일로 저장/복원한다.
+ * - 파일 구조: 헤더(매직, 형식 버전, 임베딩 차원, 추출기 버전, 청커 버전) → 스냅샷 버전 → 원본 파일 목록(청크 ID 포함) → 스냅샷 본문
+ * - 본문: 청크 → 임베딩 행 → HNSW 그래프 → BM25 색인 (모두 big-endian)
+ * - 읽기는 FileChannel 메모리 매핑으로 하고, 쓰기는 임시 파일에 쓴 뒤 원자적으로 교체한다.
+ * - 매핑은 한 번 훑어 읽기만 하고, 복원한 스냅샷은 힙 배열/자체 매핑 파일에 다시 담는다.
+ *   (게시 후에도 행이 추가·압축되므로 읽기 전용 매핑을 그대로 공유하지 않는다.
+ *    하위 청크, 참조 그래프, PQ 코드북은 저장하지 않고 복원 시 다시 만든다.)
+ * 형식, 임베딩 차원, 추출기/청커 버전 중 하나라도 다르면 읽지 않으며, 호출 측은 전체 재구축으로 대체한다.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x43574D49; // "CWMI"
+    // 파일 구조가 바뀌면 올린다.
+    private static final int FORMAT_VERSION = 3;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 파일 헤더와 원본 파일 목록
+     */
+    public static class Header {
+        private final long version;
+        private final Map<String, sourceFileDTO> sources;
+
+        Header(long version, Map<String, sourceFileDTO> sources) {
+            this.version = version;
+            this.sources = sources;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public Map<String, sourceFileDTO> getSources() {
+            return sources;
+        }
+    }
+
+    /* =========================
+       저장
+     ========================= */
+    /**
+     * @param extractorVersion 청크 텍스트를 만든 PDF 추출기 버전
+     */
+    public static void write(StoreSnapshot snapshot, Path file, int extractorVersion) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(ChunkEmbedder.DIMENSION);
+            out.writeInt(extractorVersion);
+            out.writeInt(DocumentChunker.VERSION);
+            out.writeLong(snapshot.getVersion());
+            Map<String, sourceFileDTO> sources = snapshot.getSources();
+            out.writeInt(sources.size());
+            for (sourceFileDTO source : sources.values()) {
+                writeString(out, source.getPath());
+                out.writeLong(source.getSize());
+                out.writeLong(source.getLastModified());
+                writeString(out, source.getSha256());
+                out.writeInt(source.getChunkIds().size());
+                for (String chunkId : source.getChunkIds()) {
+                    writeString(out, chunkId);
+                }
+            }
+            snapshot.writeBody(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /* =========================
+       복원
+     ========================= */
+    /**
+     * 헤더와 원본 파일 목록만 읽는다. (본문을 읽기 전에 원본 변경 여부 확인용)
+     * @param extractorVersion 현재 PDF 추출기 버전 (다르면 IOException)
+     */
+    public static Header readHeader(Path file, int extractorVersion) throws IOException {
+        return readHeader(map(file), file, extractorVersion);
+    }
+
+    /**
+     * 파일 전체를 읽어 아직 게시되지 않은 스냅샷(빌더)을 만든다.
+     * @param extractorVersion 현재 PDF 추출기 버전 (다르면 IOException)
+     */
+    public static StoreSnapshot read(Path file, int extractorVersion, ChunkEmbedder embedder,
+                                     StoreSnapshot.Settings settings) throws IOException {
+        ByteBuffer buffer = map(file);
+        Header header = readHeader(buffer, file, extractorVersion);
+        try {
+            StoreSnapshot snapshot = StoreSnapshot.readBody(buffer, embedder, settings);
+            for (sourceFileDTO source : header.getSources().values()) {
+                snapshot.putSource(source);
+            }
+            return snapshot;
+        } catch (RuntimeException e) {
+            throw new IOException("인덱스 파일이 손상되었습니다: " + file, e);
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // 채널을 닫아도 매핑은 GC될 때까지 유효하다.
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static Header readHeader(ByteBuffer buffer, Path file, int extractorVersion) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("인덱스 파일 형식이 아닙니다: " + file);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("지원하지 않는 인덱스 파일 버전: " + formatVersion);
+            }
+            int dimension = buffer.getInt();
+            if (dimension != ChunkEmbedder.DIMENSION) {
+                throw new IOException("임베딩 차원이 다릅니다: " + dimension);
+            }
+            // 추출/청킹 규칙이 바뀌었으면 저장된 청크 텍스트를 그대로 쓸 수 없다.
+            int savedExtractorVersion = buffer.getInt();
+            if (savedExtractorVersion != extractorVersion) {
+                throw new IOException("PDF 추출기 버전이 다릅니다: " + savedExtractorVersion + " (현재 " + extractorVersion + ")");
+            }
+            int savedChunkerVersion = buffer.getInt();
+            if (savedChunkerVersion != DocumentChunker.VERSION) {
+                throw new IOException("청커 버전이 다릅니다: " + savedChunkerVersion + " (현재 " + DocumentChunker.VERSION + ")");
+            }
+            long version = buffer.getLong();
+            int sourceCount = buffer.getInt();
+            Map<String, sourceFileDTO> sources = new LinkedHashMap<>();
+            for (int i = 0; i < sourceCount; i++) {
+                String path = readString(buffer);
+                long size = buffer.getLong();
+                long lastModified = buffer.getLong();
+                String sha256 = readString(buffer);
+                int chunkCount = buffer.getInt();
+                List<String> chunkIds = new ArrayList<>(chunkCount);
+                for (int c = 0; c < chunkCount; c++) {
+                    chunkIds.add(readString(buffer));
+                }
+                sources.put(path, new sourceFileDTO(path, size, lastModified, sha256, chunkIds));
+            }
+            return new Header(version, sources);
+        } catch (RuntimeException e) {
+            throw new IOException("인덱스 파일이 손상되었습니다: " + file, e);
+        }
+    }
+
+    /* =========================
+       문자열 (길이 + UTF-8, null은 길이 -1)
+     ========================= */
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
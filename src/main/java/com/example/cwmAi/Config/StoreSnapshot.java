@@ -0,0 +1,1297 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+import com.example.cwmAi.dto.ai_DTO.sourceFileDTO;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * 청크 저장소의 한 시점 상태 (청크 리스트 + 해시 인덱스 + 임베딩 행렬 + HNSW + BM25).
+ * - 만드는 동안(빌더 상태)에는 한 스레드만 수정하고, freeze() 이후에는 변경할 수 없다.
+ * - 게시된 스냅샷은 잠금 없이 여러 스레드가 동시에 읽는다.
+ * - toBuilder()는 바뀌지 않는 부분을 원본과 공유한다. 임베딩 행렬과 행별 청크 배열은 뒤에 덧붙이기만 하고
+ *   (삭제는 HNSW 툼스톤), HNSW 인접 목록은 수정하는 페이지만, 해시 인덱스의 리스트/맵 값은 바뀌는 키만 복사한다.
+ *   따라서 파일 하나를 추가/삭제할 때 기존 청크의 벡터와 그래프를 복사하거나 다시 계산하지 않는다.
+ */
+public class StoreSnapshot {
+
+    /**
+     * 스냅샷 생성/검색에 필요한 설정 (VectorStoreInMemory가 application.properties에서 읽어 전달)
+     */
+    public static class Settings {
+        final VectorStorage.Mode storageMode;
+        // 양자화 모드의 원본 벡터 매핑 파일(vectors-N.f32)을 둘 디렉터리
+        final Path spillDirectory;
+        final int pqSubspaces;
+        final int rerankDepth;
+        final int hnswM;
+        final int hnswEfConstruction;
+        final int hnswEfSearch;
+        final int bruteForceThreshold;
+
+        public Settings(VectorStorage.Mode storageMode, Path spillDirectory, int pqSubspaces, int rerankDepth,
+                        int hnswM, int hnswEfConstruction, int hnswEfSearch, int bruteForceThreshold) {
+            this.storageMode = storageMode;
+            this.spillDirectory = spillDirectory;
+            this.pqSubspaces = pqSubspaces;
+            this.rerankDepth = Math.max(1, rerankDepth);
+            this.hnswM = hnswM;
+            this.hnswEfConstruction = hnswEfConstruction;
+            this.hnswEfSearch = hnswEfSearch;
+            this.bruteForceThreshold = bruteForceThreshold;
+        }
+    }
+
+    // 양자화 모드의 원본 벡터 매핑 파일 이름에 붙는 번호 (스냅샷마다 별도 파일)
+    private static final AtomicLong SPILL_FILE_SEQUENCE = new AtomicLong();
+
+    private final ChunkEmbedder embedder;
+    private final Settings settings;
+    private long version;
+    private volatile boolean frozen = false;
+    // 빌더로 만든 뒤 내용이 바뀌었는지 (바뀌지 않았으면 새 버전을 게시하지 않음)
+    private boolean modified = false;
+
+    /* =========================
+       법령 Chunk 저장소 (In-Memory)
+     ========================= */
+    private final List<chunkDTO> store;
+
+    /* =========================
+       보조 해시 인덱스 (store와 항상 함께 갱신)
+       - 질문마다 실행되는 조회가 전체 store를 훑지 않도록 한다.
+     ========================= */
+    // 청크ID → 청크
+    private final Map<String, chunkDTO> chunksById;
+    // 카테고리 → 청크 리스트 (store 순서)
+    private final Map<String, List<chunkDTO>> chunksByCategory;
+    // 카테고리 → 파일명 → (조항 이름 → 첫 번째 청크ID), 파일/조항 모두 추가된 순서 유지
+    private final Map<String, Map<String, Map<String, String>>> titlesByCategoryAndFile;
+    // 조항 이름 → 청크 리스트 (store 순서)
+    private final Map<String, List<chunkDTO>> chunksByTitle;
+    // 청크 → 추가된 순번 (여러 인덱스 결과를 store 순서로 합칠 때 사용)
+    private final Map<chunkDTO, Long> insertionOrder;
+    private long nextInsertionOrder;
+    // uploads 기준 상대 경로 → 적재된 원본 파일 정보
+    private final Map<String, sourceFileDTO> sources;
+    // 상위 청크ID → 바로 아래 항/호 하위 청크 (문서 순서, 조 청크를 등록할 때 만들어짐)
+    private final Map<String, List<chunkDTO>> subChunksByParent;
+    private int subChunkCount;
+    // 이 빌더가 만든 인덱스 값(리스트/맵). 여기 없는 값은 원본 스냅샷과 공유하므로 수정 전에 복사한다.
+    private Set<Object> ownedValues = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /* =========================
+       BM25 역색인 (어휘 검색)
+       - 빌더는 원본 스냅샷의 색인을 이어받고, 청크가 바뀌었으면 freeze() 시점에 바뀐 청크만 반영하여 갱신한다.
+       - 처음 만들 때는 store 전체로 만든다. (인덱스 파일에서 복원한 경우 그대로 사용)
+     ========================= */
+    private Bm25Index bm25;
+    // 청크가 추가/제거되어 bm25가 store와 다름
+    private boolean bm25Stale;
+
+    /* =========================
+       조항 참조 그래프 (조 → 본문에서 참조하는 같은 법령의 조)
+       - 빌더는 원본 스냅샷의 그래프를 이어받고, freeze() 시점에 청크가 바뀐 법령의 그래프만 다시 만든다.
+       - 처음 만들 때는 store 전체로 만든다. (인덱스 파일에는 저장하지 않음)
+     ========================= */
+    private ReferenceGraph references;
+    // 청크가 추가/제거된 법령 키 → 그 법령의 청크 하나 (카테고리 확인용)
+    private final Map<String, chunkDTO> changedLaws = new HashMap<>();
+
+    /* =========================
+       청크 임베딩 행렬
+       - 행 row의 벡터는 VectorStorage에 행 우선으로 저장 (FLOAT/INT8/PQ)
+       - rowChunks[row]는 해당 행의 청크 (복원된 삭제 행은 null)
+       - 행렬과 rowChunks는 원본 스냅샷과 공유하고 뒤에 덧붙이기만 한다. 삭제된 행은 HNSW 툼스톤으로 표시한다.
+       - 모든 벡터는 L2 정규화되어 있으므로 내적 = 코사인 유사도
+     ========================= */
+    private final int dim = ChunkEmbedder.DIMENSION;
+    private final VectorStorage vectors;
+    private chunkDTO[] rowChunks;
+    private int rowCount;
+
+    /* =========================
+       HNSW 근사 최근접 이웃 인덱스
+     ========================= */
+    // 삭제 표시된 행 비율이 이 값을 넘으면 행렬과 그래프를 다시 만든다.
+    private static final double COMPACTION_RATIO = 0.3;
+    private HnswIndex hnsw;
+
+    // 계층 검색에서 최고 점수 대비 이 비율 이상인 항/호만 남긴다.
+    private static final double PART_SCORE_RATIO = 0.5;
+
+    private StoreSnapshot(ChunkEmbedder embedder, Settings settings) {
+        this.embedder = embedder;
+        this.settings = settings;
+        this.store = new ArrayList<>();
+        this.chunksById = new HashMap<>();
+        this.chunksByCategory = new LinkedHashMap<>();
+        this.titlesByCategoryAndFile = new LinkedHashMap<>();
+        this.chunksByTitle = new HashMap<>();
+        this.insertionOrder = new IdentityHashMap<>();
+        this.nextInsertionOrder = 0;
+        this.sources = new LinkedHashMap<>();
+        this.subChunksByParent = new HashMap<>();
+        this.vectors = newVectorStorage();
+        this.rowChunks = new chunkDTO[0];
+        this.rowCount = 0;
+        this.hnsw = newHnswIndex();
+    }
+
+    /**
+     * 기존 스냅샷에서 수정 가능한 빌더를 만든다.
+     * 해시 인덱스는 참조만 복사하고 (값인 리스트/맵은 바뀔 때 복사), 행렬/rowChunks/HNSW 페이지는 공유한다.
+     */
+    private StoreSnapshot(StoreSnapshot source) {
+        this.embedder = source.embedder;
+        this.settings = source.settings;
+        this.version = source.version;
+        this.store = new ArrayList<>(source.store);
+        this.chunksById = new HashMap<>(source.chunksById);
+        this.chunksByCategory = new LinkedHashMap<>(source.chunksByCategory);
+        this.titlesByCategoryAndFile = new LinkedHashMap<>(source.titlesByCategoryAndFile);
+        this.chunksByTitle = new HashMap<>(source.chunksByTitle);
+        this.insertionOrder = new IdentityHashMap<>(source.insertionOrder);
+        this.nextInsertionOrder = source.nextInsertionOrder;
+        this.sources = new LinkedHashMap<>(source.sources);
+        this.subChunksByParent = new HashMap<>(source.subChunksByParent);
+        this.subChunkCount = source.subChunkCount;
+        this.vectors = source.vectors.copy(nextSpillFile());
+        // 원본은 자기 행 수 안쪽만 읽으므로 용량이 남아 있는 동안 같은 배열 뒤쪽에 이어 쓴다.
+        this.rowChunks = source.rowChunks;
+        this.rowCount = source.rowCount;
+        this.hnsw = source.hnsw.copy(vectorAccess());
+        // 둘 다 만든 뒤 변경하지 않으므로 청크가 바뀌기 전까지 원본과 함께 쓴다.
+        this.bm25 = source.bm25;
+        this.references = source.references;
+    }
+
+    /**
+     * 인덱스에서 key의 값을 수정할 수 있게 가져온다.
+     * 원본 스냅샷과 공유하는 값이면 복사하여 교체하고, 없으면 새로 만든다.
+     */
+    private <K, V> V writableValue(Map<K, V> index, K key, Supplier<V> create, UnaryOperator<V> copy) {
+        V value = index.get(key);
+        if (value != null && ownedValues.contains(value)) {
+            return value;
+        }
+        value = value == null ? create.get() : copy.apply(value);
+        ownedValues.add(value);
+        index.put(key, value);
+        return value;
+    }
+
+    private List<chunkDTO> writableList(Map<String, List<chunkDTO>> index, String key) {
+        return writableValue(index, key, ArrayList::new, ArrayList::new);
+    }
+
+    /**
+     * 비어 있는 빌더를 만든다. (전체 재로딩용)
+     */
+    public static StoreSnapshot empty(ChunkEmbedder embedder, Settings settings) {
+        return new StoreSnapshot(embedder, settings);
+    }
+
+    /**
+     * 이 스냅샷을 복사한 빌더를 만든다. 원본 스냅샷은 그대로 유지된다.
+     */
+    public StoreSnapshot toBuilder() {
+        return new StoreSnapshot(this);
+    }
+
+    /**
+     * 빌더를 게시 가능한 불변 스냅샷으로 만든다.
+     * BM25 색인과 양자화 코드를 미리 만들어 두어 읽기 경로에서는 아무것도 수정하지 않는다.
+     */
+    void freeze(long version) {
+        checkWritable();
+        this.version = version;
+        if (bm25 == null || bm25Stale) {
+            long startTime = System.currentTimeMillis();
+            String action = bm25 == null ? "생성" : "갱신";
+            this.bm25 = bm25 == null ? Bm25Index.build(store) : bm25.update(store);
+            this.bm25Stale = false;
+            System.out.println("[BM25] 역색인 " + action + " 완료: 청크 " + bm25.size() + "개, 용어 " + bm25.getTermCount()
+                    + "개, 포스팅 " + bm25.getPostingBytes() + "바이트 (" + (System.currentTimeMillis() - startTime) + "ms)");
+        }
+        refreshReferences();
+        vectors.prepare();
+        this.ownedValues = null;
+        this.frozen = true;
+    }
+
+    /**
+     * 참조 그래프가 없으면 만들고, 청크가 바뀐 법령이 있으면 그 법령만 다시 만든다.
+     */
+    private void refreshReferences() {
+        if (references != null && changedLaws.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        String action;
+        if (references == null) {
+            this.references = ReferenceGraph.build(store);
+            action = "생성";
+        } else {
+            Map<String, List<chunkDTO>> lawChunks = new HashMap<>();
+            for (Map.Entry<String, chunkDTO> changed : changedLaws.entrySet()) {
+                List<chunkDTO> chunks = new ArrayList<>();
+                for (chunkDTO chunk : chunksByCategory.getOrDefault(categoryKey(changed.getValue()), List.of())) {
+                    if (ReferenceGraph.lawKey(chunk).equals(changed.getKey())) {
+                        chunks.add(chunk);
+                    }
+                }
+                lawChunks.put(changed.getKey(), chunks);
+            }
+            this.references = references.update(lawChunks);
+            action = "갱신 (법령 " + lawChunks.size() + "개)";
+        }
+        changedLaws.clear();
+        System.out.println("[참조 그래프] " + action + " 완료: 법령 " + references.getLawCount() + "개, 청크 "
+                + references.size() + "개, 참조 " + references.getEdgeCount() + "개 ("
+                + (System.currentTimeMillis() - startTime) + "ms)");
+    }
+
+    /**
+     * 더 이상 게시되지 않는 스냅샷의 파일 자원을 정리한다.
+     * (이미 시작된 검색이 쓰고 있는 메모리 매핑은 닫히지 않는다)
+     */
+    void release() {
+        vectors.release();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private void checkWritable() {
+        if (frozen) {
+            throw new IllegalStateException("게시된 스냅샷은 수정할 수 없습니다 (version " + version + ")");
+        }
+    }
+
+    private VectorStorage newVectorStorage() {
+        return new VectorStorage(dim, settings.storageMode, nextSpillFile(), settings.pqSubspaces);
+    }
+
+    private Path nextSpillFile() {
+        return settings.spillDirectory.resolve("vectors-" + SPILL_FILE_SEQUENCE.incrementAndGet() + ".f32");
+    }
+
+    private HnswIndex newHnswIndex() {
+        return new HnswIndex(vectorAccess(), settings.hnswM, settings.hnswEfConstruction);
+    }
+
+    private HnswIndex.VectorAccess vectorAccess() {
+        return new HnswIndex.VectorAccess() {
+            @Override
+            public double similarity(float[] query, int node) {
+                return vectors.dot(query, node);
+            }
+
+            @Override
+            public double similarity(int nodeA, int nodeB) {
+                return vectors.dot(nodeA, nodeB);
+            }
+        };
+    }
+
+    /* =========================
+       빌더 수정 메서드
+     ========================= */
+    /**
+     * 여러 청크를 한 번에 추가하고, 임베딩을 일괄 계산하여 행렬과 HNSW 그래프에 덧붙인다.
+     * @param chunks 추가할 청크 리스트 (보통 파일 하나 분량)
+     */
+    public void addChunks(List<chunkDTO> chunks) {
+        checkWritable();
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        addChunks(chunks, embedChunks(embedder, chunks));
+    }
+
+    /**
+     * 임베딩을 미리 계산해 둔 청크를 추가한다. (병렬 적재 파이프라인용)
+     * @param embeddings chunks와 같은 순서의 임베딩, null이면 유사도 검색에서 제외
+     */
+    public void addChunks(List<chunkDTO> chunks, List<float[]> embeddings) {
+        checkWritable();
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        store.addAll(chunks);
+        for (chunkDTO chunk : chunks) {
+            indexChunk(chunk);
+            changedLaws.putIfAbsent(ReferenceGraph.lawKey(chunk), chunk);
+        }
+        bm25Stale = true;
+        modified = true;
+
+        if (embeddings == null || embeddings.size() != chunks.size()) {
+            // 임베딩을 계산하지 못한 청크는 유사도 검색에서만 제외된다.
+            return;
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            appendRow(chunks.get(i), embeddings.get(i));
+        }
+    }
+
+    /**
+     * 청크 임베딩을 일괄 계산한다. 스냅샷 상태와 무관하므로 여러 스레드에서 동시에 호출해도 된다.
+     * @return chunks와 같은 순서의 임베딩, 모델을 사용할 수 없으면 null
+     */
+    static List<float[]> embedChunks(ChunkEmbedder embedder, List<chunkDTO> chunks) {
+        List<String> texts = new ArrayList<>(chunks.size());
+        for (chunkDTO chunk : chunks) {
+            texts.add(ChunkEmbedder.embeddingText(chunk));
+        }
+        return embedder.embedAll(texts);
+    }
+
+    private void appendRow(chunkDTO chunk, float[] embedding) {
+        ensureRowCapacity(rowCount + 1);
+        int row = rowCount++;
+        vectors.append(embedding);
+        rowChunks[row] = chunk;
+        hnsw.insert(row, embedding);
+    }
+
+    /**
+     * 청크 ID로 청크를 저장소와 인덱스에서 제거한다. (파일 단위 재색인/삭제 시 원본 파일 목록의 청크 ID 사용)
+     * @param chunkIds 제거할 청크 ID
+     * @return 제거된 청크 수
+     */
+    public int removeChunks(Collection<String> chunkIds) {
+        checkWritable();
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return 0;
+        }
+        Set<String> idSet = new HashSet<>(chunkIds);
+        for (int row = 0; row < rowCount; row++) {
+            // rowChunks는 원본 스냅샷과 공유하므로 비우지 않고 툼스톤만 표시한다.
+            if (isLiveRow(row) && idSet.contains(rowChunks[row].getChunkId())) {
+                hnsw.markDeleted(row);
+            }
+        }
+        List<chunkDTO> removedChunks = new ArrayList<>();
+        store.removeIf(chunk -> {
+            if (idSet.contains(chunk.getChunkId())) {
+                removedChunks.add(chunk);
+                return true;
+            }
+            return false;
+        });
+        for (chunkDTO chunk : removedChunks) {
+            unindexChunk(chunk);
+            changedLaws.putIfAbsent(ReferenceGraph.lawKey(chunk), chunk);
+        }
+        bm25Stale = true;
+        modified = true;
+        int removed = removedChunks.size();
+
+        if (rowCount > 0 && hnsw.getDeletedCount() > rowCount * COMPACTION_RATIO) {
+            compactRows();
+        }
+        return removed;
+    }
+
+    /**
+     * 삭제된 행을 걷어내고 남은 벡터로 행렬과 HNSW 그래프를 다시 만든다.
+     */
+    private void compactRows() {
+        int oldRowCount = rowCount;
+        int[] keepRows = new int[hnsw.size()];
+        int kept = 0;
+        for (int row = 0; row < oldRowCount; row++) {
+            if (isLiveRow(row)) {
+                keepRows[kept++] = row;
+            }
+        }
+        keepRows = Arrays.copyOf(keepRows, kept);
+        vectors.compact(keepRows, nextSpillFile());
+
+        chunkDTO[] newRowChunks = new chunkDTO[Math.max(16, kept)];
+        for (int row = 0; row < kept; row++) {
+            newRowChunks[row] = rowChunks[keepRows[row]];
+        }
+        rowChunks = newRowChunks;
+        rowCount = kept;
+        hnsw = newHnswIndex();
+        for (int row = 0; row < kept; row++) {
+            hnsw.insert(row, vectors.vector(row));
+        }
+        System.out.println("[HNSW] 삭제된 행 정리 완료: " + oldRowCount + " → " + rowCount + "행");
+    }
+
+    /**
+     * 적재된 원본 파일 정보를 기록한다. (같은 경로는 덮어씀)
+     */
+    public void putSource(sourceFileDTO source) {
+        checkWritable();
+        sources.put(source.getPath(), source);
+        modified = true;
+    }
+
+    public void removeSource(String path) {
+        checkWritable();
+        if (sources.remove(path) != null) {
+            modified = true;
+        }
+    }
+
+    boolean isModified() {
+        return modified;
+    }
+
+    public Map<String, sourceFileDTO> getSources() {
+        return Collections.unmodifiableMap(sources);
+    }
+
+    public int getSize() {
+        return store.size();
+    }
+
+    /**
+     * 항/호 하위 청크 수 (검색 색인에는 들어가지 않음)
+     */
+    public int getSubChunkCount() {
+        return subChunkCount;
+    }
+
+    /**
+     * 삭제되지 않은 임베딩 행인지 (삭제된 행은 rowChunks에 남아 있어도 HNSW 툼스톤으로 표시됨)
+     */
+    private boolean isLiveRow(int row) {
+        return rowChunks[row] != null && !hnsw.isDeleted(row);
+    }
+
+    /* =========================
+       저장/복원 본문 (SnapshotFile)
+       청크 → 임베딩 행(행별 청크 번호, -1은 삭제된 행) → 벡터 → HNSW → BM25
+     ========================= */
+    void writeBody(DataOutputStream out) throws IOException {
+        out.writeInt(store.size());
+        Map<chunkDTO, Integer> chunkNumbers = new IdentityHashMap<>();
+        for (chunkDTO chunk : store) {
+            chunkNumbers.put(chunk, chunkNumbers.size());
+            SnapshotFile.writeString(out, chunk.getLawName());
+            SnapshotFile.writeString(out, chunk.getChapterTitle());
+            SnapshotFile.writeString(out, chunk.getArticleNumber());
+            SnapshotFile.writeString(out, chunk.getArticleTitle());
+            SnapshotFile.writeString(out, chunk.getText());
+            SnapshotFile.writeString(out, chunk.getChunkId());
+            SnapshotFile.writeString(out, chunk.getFileName());
+            out.writeInt(chunk.getChunkIndex());
+            SnapshotFile.writeString(out, chunk.getCategory());
+        }
+        out.writeInt(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            out.writeInt(isLiveRow(row) ? chunkNumbers.get(rowChunks[row]) : -1);
+        }
+        for (int row = 0; row < rowCount; row++) {
+            for (float value : vectors.vector(row)) {
+                out.writeFloat(value);
+            }
+        }
+        hnsw.writeTo(out);
+        bm25.writeTo(out);
+    }
+
+    static StoreSnapshot readBody(ByteBuffer in, ChunkEmbedder embedder, Settings settings) {
+        StoreSnapshot snapshot = new StoreSnapshot(embedder, settings);
+        int chunkCount = in.getInt();
+        for (int i = 0; i < chunkCount; i++) {
+            chunkDTO chunk = new chunkDTO(
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    SnapshotFile.readString(in),
+                    in.getInt(),
+                    SnapshotFile.readString(in)
+            );
+            snapshot.store.add(chunk);
+            snapshot.indexChunk(chunk);
+        }
+        int rows = in.getInt();
+        snapshot.ensureRowCapacity(rows);
+        for (int row = 0; row < rows; row++) {
+            int chunkNumber = in.getInt();
+            snapshot.rowChunks[row] = chunkNumber < 0 ? null : snapshot.store.get(chunkNumber);
+        }
+        snapshot.rowCount = rows;
+        FloatBuffer floats = in.asFloatBuffer();
+        float[] vector = new float[snapshot.dim];
+        for (int row = 0; row < rows; row++) {
+            floats.get(vector);
+            snapshot.vectors.append(vector);
+        }
+        in.position(in.position() + rows * snapshot.dim * Float.BYTES);
+
+        HnswIndex restored = HnswIndex.readFrom(in, snapshot.vectorAccess());
+        HnswIndex expected = snapshot.hnsw;
+        if (restored.getM() == expected.getM() && restored.getEfConstruction() == expected.getEfConstruction()) {
+            snapshot.hnsw = restored;
+        } else {
+            // HNSW 설정이 바뀌었으면 저장된 벡터로 그래프만 다시 만든다.
+            for (int row = 0; row < rows; row++) {
+                expected.insert(row, snapshot.vectors.vector(row));
+                if (snapshot.rowChunks[row] == null) {
+                    expected.markDeleted(row);
+                }
+            }
+        }
+        snapshot.bm25 = Bm25Index.readFrom(in, snapshot.store);
+        return snapshot;
+    }
+
+    private static String categoryKey(chunkDTO chunk) {
+        return chunk.getCategory() == null ? "" : chunk.getCategory();
+    }
+
+    private static boolean hasTitle(chunkDTO chunk) {
+        return chunk.getArticleTitle() != null && !chunk.getArticleTitle().trim().isEmpty();
+    }
+
+    /**
+     * 새 청크를 모든 보조 인덱스에 등록한다.
+     */
+    private void indexChunk(chunkDTO chunk) {
+        insertionOrder.put(chunk, nextInsertionOrder++);
+        if (chunk.getChunkId() != null) {
+            chunksById.putIfAbsent(chunk.getChunkId(), chunk);
+        }
+        writableList(chunksByCategory, categoryKey(chunk)).add(chunk);
+        if (chunk.getArticleTitle() != null) {
+            writableList(chunksByTitle, chunk.getArticleTitle()).add(chunk);
+        }
+        if (hasTitle(chunk)) {
+            // 같은 파일에 같은 조항 이름이 여러 개 있을 수 있으므로, 첫 번째 청크만 사용
+            Map<String, Map<String, String>> files = writableValue(titlesByCategoryAndFile, categoryKey(chunk),
+                    LinkedHashMap::new, LinkedHashMap::new);
+            writableValue(files, chunk.getFileName(), LinkedHashMap::new, LinkedHashMap::new)
+                    .putIfAbsent(chunk.getArticleTitle(), chunk.getChunkId());
+        }
+        for (chunkDTO subChunk : DocumentChunker.splitArticle(chunk)) {
+            writableList(subChunksByParent, subChunk.getParentChunkId()).add(subChunk);
+            chunksById.putIfAbsent(subChunk.getChunkId(), subChunk);
+            subChunkCount++;
+        }
+    }
+
+    /**
+     * 제거된 청크를 모든 보조 인덱스에서 지운다.
+     * (파일 단위 삭제 시에만 호출되므로 조항 이름 맵은 파일 항목 전체를 지운다)
+     */
+    private void unindexChunk(chunkDTO chunk) {
+        insertionOrder.remove(chunk);
+        if (chunk.getChunkId() != null && chunksById.get(chunk.getChunkId()) == chunk) {
+            chunksById.remove(chunk.getChunkId());
+        }
+        removeFromList(chunksByCategory, categoryKey(chunk), chunk);
+        if (chunk.getArticleTitle() != null) {
+            removeFromList(chunksByTitle, chunk.getArticleTitle(), chunk);
+        }
+        Map<String, Map<String, String>> files = titlesByCategoryAndFile.get(categoryKey(chunk));
+        if (files != null && files.containsKey(chunk.getFileName())) {
+            files = writableValue(titlesByCategoryAndFile, categoryKey(chunk), LinkedHashMap::new, LinkedHashMap::new);
+            files.remove(chunk.getFileName());
+            if (files.isEmpty()) {
+                titlesByCategoryAndFile.remove(categoryKey(chunk));
+            }
+        }
+        unindexSubChunks(chunk.getChunkId());
+    }
+
+    /**
+     * 청크 아래의 항/호 하위 청크를 모두 지운다.
+     */
+    private void unindexSubChunks(String parentChunkId) {
+        if (parentChunkId == null) {
+            return;
+        }
+        List<chunkDTO> subChunks = subChunksByParent.remove(parentChunkId);
+        if (subChunks == null) {
+            return;
+        }
+        for (chunkDTO subChunk : subChunks) {
+            if (chunksById.get(subChunk.getChunkId()) == subChunk) {
+                chunksById.remove(subChunk.getChunkId());
+            }
+            subChunkCount--;
+            unindexSubChunks(subChunk.getChunkId());
+        }
+    }
+
+    private void removeFromList(Map<String, List<chunkDTO>> index, String key, chunkDTO chunk) {
+        if (!index.containsKey(key)) {
+            return;
+        }
+        List<chunkDTO> chunks = writableList(index, key);
+        chunks.removeIf(existing -> existing == chunk);
+        if (chunks.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rowChunks.length >= rows) {
+            return;
+        }
+        // 새 배열은 이 빌더만 쓴다. (원본 스냅샷은 이전 배열을 계속 사용)
+        int newRows = Math.max(rows, Math.max(16, rowChunks.length * 2));
+        rowChunks = Arrays.copyOf(rowChunks, newRows);
+    }
+
+    /* =========================
+       임베딩 유사도 검색
+     ========================= */
+    /**
+     * 질문과 코사인 유사도가 높은 청크를 상위 k개 조회한다.
+     * - 임베딩된 청크가 bruteForceThreshold 이상이면 HNSW 근사 검색을 사용
+     * - 필터 조건이 좁아 HNSW 결과가 k개에 못 미치면 전수 비교로 보완
+     * - 양자화 모드에서는 코드 기반 점수로 후보를 고른 뒤 원본 벡터로 다시 정렬
+     * @param query 검색 질의
+     * @param category 카테고리 (null이면 전체)
+     * @param fileNames 파일명 리스트 (null이면 모든 파일)
+     * @param topK 최대 반환 개수
+     * @return 유사도 내림차순 청크 리스트, 임베딩을 사용할 수 없으면 빈 리스트
+     */
+    public List<scoredChunkDTO> searchSimilar(String query, String category, List<String> fileNames, int topK) {
+        if (query == null || query.isBlank() || topK <= 0 || hnsw.size() == 0) {
+            return new ArrayList<>();
+        }
+        float[] queryVector = embedder.embed(query);
+        if (queryVector == null) {
+            return new ArrayList<>();
+        }
+        IntPredicate filter = rowFilter(category, fileNames);
+        return toScoredChunks(searchRows(queryVector, topK, filter, settings.hnswEfSearch));
+    }
+
+    private List<HnswIndex.Candidate> searchRows(float[] queryVector, int topK, IntPredicate filter, int efSearch) {
+        IntToDoubleFunction scorer = vectors.approximateScorer(queryVector);
+        if (hnsw.size() >= settings.bruteForceThreshold) {
+            int candidateCount = vectors.isQuantized() ? Math.max(topK, efSearch) : topK;
+            List<HnswIndex.Candidate> result = rerank(queryVector,
+                    hnsw.search(scorer, candidateCount, efSearch, filter), topK);
+            if (result.size() >= topK) {
+                return result;
+            }
+        }
+        int candidateCount = vectors.isQuantized() ? Math.max(topK, settings.rerankDepth) : topK;
+        return rerank(queryVector, bruteForceSearch(scorer, candidateCount, filter), topK);
+    }
+
+    /**
+     * 양자화 모드에서 근사 점수로 고른 후보를 원본 벡터 내적으로 다시 정렬하여 상위 k개를 남긴다.
+     */
+    private List<HnswIndex.Candidate> rerank(float[] queryVector, List<HnswIndex.Candidate> candidates, int topK) {
+        if (!vectors.isQuantized()) {
+            return candidates.size() > topK ? new ArrayList<>(candidates.subList(0, topK)) : candidates;
+        }
+        List<HnswIndex.Candidate> rescored = new ArrayList<>(candidates.size());
+        for (HnswIndex.Candidate candidate : candidates) {
+            rescored.add(new HnswIndex.Candidate(candidate.node, vectors.dot(queryVector, candidate.node)));
+        }
+        rescored.sort((a, b) -> Double.compare(b.score, a.score));
+        return rescored.size() > topK ? new ArrayList<>(rescored.subList(0, topK)) : rescored;
+    }
+
+    private IntPredicate rowFilter(String category, List<String> fileNames) {
+        Set<String> fileNameSet = (fileNames != null && !fileNames.isEmpty()) ? new HashSet<>(fileNames) : null;
+        return row -> {
+            if (!isLiveRow(row)) {
+                return false;
+            }
+            chunkDTO chunk = rowChunks[row];
+            if (category != null && !category.isBlank() && !category.equals(chunk.getCategory())) {
+                return false;
+            }
+            return fileNameSet == null || fileNameSet.contains(chunk.getFileName());
+        };
+    }
+
+    private List<HnswIndex.Candidate> bruteForceSearch(IntToDoubleFunction scorer, int topK, IntPredicate filter) {
+        // 점수가 가장 낮은 후보가 맨 앞에 오는 최소 힙
+        PriorityQueue<HnswIndex.Candidate> heap =
+                new PriorityQueue<>(topK + 1, (a, b) -> Double.compare(a.score, b.score));
+        for (int row = 0; row < rowCount; row++) {
+            if (!filter.test(row)) {
+                continue;
+            }
+            double score = scorer.applyAsDouble(row);
+            if (heap.size() < topK) {
+                heap.add(new HnswIndex.Candidate(row, score));
+            } else if (score > heap.peek().score) {
+                heap.poll();
+                heap.add(new HnswIndex.Candidate(row, score));
+            }
+        }
+        List<HnswIndex.Candidate> result = new ArrayList<>(heap);
+        result.sort((a, b) -> Double.compare(b.score, a.score));
+        return result;
+    }
+
+    private List<scoredChunkDTO> toScoredChunks(List<HnswIndex.Candidate> candidates) {
+        List<scoredChunkDTO> result = new ArrayList<>(candidates.size());
+        for (HnswIndex.Candidate candidate : candidates) {
+            result.add(new scoredChunkDTO(rowChunks[candidate.node], candidate.score));
+        }
+        return result;
+    }
+
+    /* =========================
+       BM25 어휘 검색
+     ========================= */
+    private Bm25Index getLexicalIndex() {
+        // 게시 전(빌더 상태)에 검색하면 현재 store로 임시 색인을 만든다.
+        return bm25 != null && !bm25Stale ? bm25 : Bm25Index.build(store);
+    }
+
+    /**
+     * 질문과 어휘적으로 일치하는 청크를 BM25 점수 순으로 상위 k개 조회한다.
+     * @param query 검색 질의
+     * @param category 카테고리 (null이면 전체)
+     * @param fileNames 파일명 리스트 (null이면 모든 파일)
+     * @param topK 최대 반환 개수
+     * @return BM25 점수 내림차순 청크 리스트
+     */
+    public List<scoredChunkDTO> searchLexical(String query, String category, List<String> fileNames, int topK) {
+        if (query == null || query.isBlank() || topK <= 0) {
+            return new ArrayList<>();
+        }
+        Bm25Index index = getLexicalIndex();
+        Set<String> fileNameSet = (fileNames != null && !fileNames.isEmpty()) ? new HashSet<>(fileNames) : null;
+        boolean filterCategory = category != null && !category.isBlank();
+        IntPredicate filter = (!filterCategory && fileNameSet == null) ? null : doc -> {
+            chunkDTO chunk = index.getChunk(doc);
+            if (filterCategory && !category.equals(chunk.getCategory())) {
+                return false;
+            }
+            return fileNameSet == null || fileNameSet.contains(chunk.getFileName());
+        };
+        return index.search(query, filter, topK);
+    }
+
+    /**
+     * 임베딩이 계산된 (삭제되지 않은) 청크 수
+     */
+    public int getEmbeddedSize() {
+        return hnsw.size();
+    }
+
+    /**
+     * HNSW 검색의 재현율(recall)과 지연 시간을 efSearch 값별로 측정한다.
+     * 저장된 청크 벡터 일부를 질의로 사용하고, 전수 비교 결과를 정답으로 삼는다.
+     * @param queryCount 측정에 사용할 질의 수
+     * @param k 상위 k개 기준 재현율
+     * @return efSearch별 recall@k, 평균 지연(µs) 및 전수 비교 지연
+     */
+    public Map<String, Object> evaluateHnsw(int queryCount, int k) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("indexedChunks", hnsw.size());
+        report.put("deletedRows", hnsw.getDeletedCount());
+        report.put("m", hnsw.getM());
+        report.put("efConstruction", hnsw.getEfConstruction());
+        report.put("efSearch", settings.hnswEfSearch);
+        report.put("bruteForceThreshold", settings.bruteForceThreshold);
+        report.put("k", k);
+        if (hnsw.size() == 0 || queryCount <= 0 || k <= 0) {
+            report.put("results", new ArrayList<>());
+            return report;
+        }
+
+        // 삭제되지 않은 행 중에서 질의를 고정 시드로 추출
+        List<Integer> liveRows = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (isLiveRow(row)) {
+                liveRows.add(row);
+            }
+        }
+        Random random = new Random(7);
+        int count = Math.min(queryCount, liveRows.size());
+        List<float[]> queries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = liveRows.get(random.nextInt(liveRows.size()));
+            queries.add(vectors.vector(row));
+        }
+        IntPredicate all = this::isLiveRow;
+
+        // 정답: 전수 비교 결과
+        List<Set<Integer>> truth = new ArrayList<>(count);
+        long bruteStart = System.nanoTime();
+        for (float[] query : queries) {
+            Set<Integer> rows = new HashSet<>();
+            for (HnswIndex.Candidate candidate : bruteForceSearch(row -> vectors.dot(query, row), k, all)) {
+                rows.add(candidate.node);
+            }
+            truth.add(rows);
+        }
+        report.put("bruteForceAvgMicros", (System.nanoTime() - bruteStart) / 1000.0 / count);
+
+        Set<Integer> efValues = new TreeSet<>(List.of(k, 16, 32, 64, 128, 256, settings.hnswEfSearch));
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int ef : efValues) {
+            if (ef < k) {
+                continue;
+            }
+            int hits = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                float[] query = queries.get(i);
+                int candidateCount = vectors.isQuantized() ? Math.max(k, ef) : k;
+                List<HnswIndex.Candidate> found =
+                        rerank(query, hnsw.search(vectors.approximateScorer(query), candidateCount, ef, null), k);
+                for (HnswIndex.Candidate candidate : found) {
+                    if (truth.get(i).contains(candidate.node)) {
+                        hits++;
+                    }
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            int expected = 0;
+            for (Set<Integer> rows : truth) {
+                expected += rows.size();
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("efSearch", ef);
+            row.put("recall", expected == 0 ? 0.0 : (double) hits / expected);
+            row.put("avgMicros", elapsed / 1000.0 / count);
+            results.add(row);
+        }
+        report.put("results", results);
+        return report;
+    }
+
+    /**
+     * 벡터 저장 방식의 메모리 사용량과 양자화에 따른 재현율 변화를 보고한다.
+     * - approximateRecall: 양자화 코드 점수만으로 고른 상위 k개의 재현율
+     * - rerankedRecall: 코드로 rerankDepth개를 고른 뒤 원본 벡터로 재정렬한 상위 k개의 재현율
+     * @param queryCount 측정에 사용할 질의 수
+     * @param k 상위 k개 기준 재현율
+     */
+    public Map<String, Object> getVectorStorageStatistics(int queryCount, int k) {
+        Map<String, Object> stats = new LinkedHashMap<>(vectors.getMemoryStatistics());
+        stats.put("rerankDepth", settings.rerankDepth);
+        stats.put("k", k);
+        if (hnsw.size() == 0 || queryCount <= 0 || k <= 0) {
+            return stats;
+        }
+
+        List<Integer> liveRows = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            if (isLiveRow(row)) {
+                liveRows.add(row);
+            }
+        }
+        Random random = new Random(11);
+        int count = Math.min(queryCount, liveRows.size());
+        IntPredicate all = this::isLiveRow;
+        int approximateHits = 0;
+        int rerankedHits = 0;
+        int expected = 0;
+        for (int i = 0; i < count; i++) {
+            float[] query = vectors.vector(liveRows.get(random.nextInt(liveRows.size())));
+            Set<Integer> truth = new HashSet<>();
+            for (HnswIndex.Candidate candidate : bruteForceSearch(row -> vectors.dot(query, row), k, all)) {
+                truth.add(candidate.node);
+            }
+            expected += truth.size();
+
+            IntToDoubleFunction scorer = vectors.approximateScorer(query);
+            for (HnswIndex.Candidate candidate : bruteForceSearch(scorer, k, all)) {
+                if (truth.contains(candidate.node)) {
+                    approximateHits++;
+                }
+            }
+            int candidateCount = vectors.isQuantized() ? Math.max(k, settings.rerankDepth) : k;
+            for (HnswIndex.Candidate candidate : rerank(query, bruteForceSearch(scorer, candidateCount, all), k)) {
+                if (truth.contains(candidate.node)) {
+                    rerankedHits++;
+                }
+            }
+        }
+        stats.put("queries", count);
+        stats.put("approximateRecall", expected == 0 ? 0.0 : (double) approximateHits / expected);
+        stats.put("rerankedRecall", expected == 0 ? 0.0 : (double) rerankedHits / expected);
+        return stats;
+    }
+
+    /**
+     * 모든 청크를 조회한다.
+     * @return 저장된 모든 청크 리스트
+     */
+    public List<chunkDTO> getAllChunks() {
+        return new ArrayList<>(store);
+    }
+
+    /**
+     * 카테고리별 청크를 조회한다.
+     * @param category 카테고리 (null이면 전체)
+     * @return 해당 카테고리의 청크 리스트
+     */
+    public List<chunkDTO> getChunksByCategory(String category) {
+        if (category == null || category.isBlank()) {
+            return getAllChunks();
+        }
+        List<chunkDTO> chunks = chunksByCategory.get(category);
+        return chunks == null ? new ArrayList<>() : new ArrayList<>(chunks);
+    }
+
+    /**
+     * 조항 이름이 없는 청크를 찾는다.
+     * @return 조항 이름이 null이거나 비어있는 청크 리스트
+     */
+    public List<chunkDTO> findChunksWithoutArticleTitle() {
+        List<chunkDTO> result = new ArrayList<>();
+        for (chunkDTO chunk : store) {
+            if (chunk.getArticleTitle() == null || chunk.getArticleTitle().trim().isEmpty()) {
+                result.add(chunk);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 카테고리별 청크의 조항 이름 목록을 조회한다.
+     * @param category 카테고리
+     * @return 조항 이름과 청크ID를 매핑한 맵 (조항 이름 -> 청크ID)
+     */
+    public Map<String, String> getArticleTitlesByCategory(String category) {
+        return getArticleTitlesByCategoryAndFiles(category, null);
+    }
+    
+    /**
+     * 카테고리와 파일명 리스트로 필터링하여 조항 이름 목록을 조회한다.
+     * @param category 카테고리
+     * @param fileNames 파일명 리스트 (null이면 모든 파일)
+     * @return 조항 이름과 청크ID를 매핑한 맵 (조항 이름 -> 청크ID)
+     */
+    public Map<String, String> getArticleTitlesByCategoryAndFiles(String category, List<String> fileNames) {
+        Map<String, String> articleTitleToChunkId = new LinkedHashMap<>();
+        Set<String> fileNameSet = null;
+        if (fileNames != null && !fileNames.isEmpty()) {
+            fileNameSet = new HashSet<>(fileNames);
+        }
+        
+        // 카테고리 필터링: 해당 카테고리의 파일 맵만 사용
+        List<Map<String, Map<String, String>>> categoryFiles = new ArrayList<>();
+        if (category != null && !category.isBlank()) {
+            Map<String, Map<String, String>> files = titlesByCategoryAndFile.get(category);
+            if (files != null) {
+                categoryFiles.add(files);
+            }
+        } else {
+            categoryFiles.addAll(titlesByCategoryAndFile.values());
+        }
+        
+        for (Map<String, Map<String, String>> files : categoryFiles) {
+            for (Map.Entry<String, Map<String, String>> fileEntry : files.entrySet()) {
+                // 파일명 필터링
+                if (fileNameSet != null && !fileNameSet.contains(fileEntry.getKey())) {
+                    continue;
+                }
+                // 같은 조항 이름이 여러 파일에 있을 수 있으므로, 첫 번째 매칭만 사용
+                for (Map.Entry<String, String> titleEntry : fileEntry.getValue().entrySet()) {
+                    articleTitleToChunkId.putIfAbsent(titleEntry.getKey(), titleEntry.getValue());
+                }
+            }
+        }
+        return articleTitleToChunkId;
+    }
+
+
+    /**
+     * 조항 이름 리스트로 청크를 조회한다.
+     * @param articleTitles 조항 이름 리스트
+     * @param category 카테고리 (필터링용)
+     * @return 해당 조항 이름에 해당하는 청크 리스트
+     */
+    public List<chunkDTO> getChunksByArticleTitles(List<String> articleTitles, String category) {
+        List<chunkDTO> result = new ArrayList<>();
+        Set<String> articleTitleSet = new LinkedHashSet<>(articleTitles);
+        
+        for (String articleTitle : articleTitleSet) {
+            List<chunkDTO> chunks = chunksByTitle.get(articleTitle);
+            if (chunks == null) {
+                continue;
+            }
+            for (chunkDTO chunk : chunks) {
+                // 카테고리 필터링
+                if (category != null && !category.isBlank() && !category.equals(chunk.getCategory())) {
+                    continue;
+                }
+                result.add(chunk);
+            }
+        }
+        // 저장소에 추가된 순서로 정렬 (기존 전체 순회 결과와 같은 순서)
+        result.sort((a, b) -> Long.compare(insertionOrder.get(a), insertionOrder.get(b)));
+        return result;
+    }
+
+    /**
+     * 청크 바로 아래의 항/호 하위 청크를 조회한다.
+     * @param parentChunkId 조 청크ID 또는 항 청크ID
+     * @return 문서 순서의 하위 청크 리스트, 없으면 빈 리스트
+     */
+    public List<chunkDTO> getSubChunks(String parentChunkId) {
+        List<chunkDTO> subChunks = parentChunkId == null ? null : subChunksByParent.get(parentChunkId);
+        return subChunks == null ? new ArrayList<>() : new ArrayList<>(subChunks);
+    }
+
+    /**
+     * 청크 본문을 질문과의 BM25 점수로 매긴다. (전체 색인의 IDF 사용)
+     * @return chunks와 같은 순서의 점수
+     */
+    public double[] scoreChunks(String query, List<chunkDTO> chunks) {
+        return getLexicalIndex().score(query, chunks);
+    }
+
+    /**
+     * 조 청크들이 본문에서 참조하는 같은 법령의 조 청크를 모은다. (1단계 이웃만)
+     * @param chunks 기준 조 청크 리스트 (결과에서 제외됨)
+     * @param maxChunks 최대 반환 개수
+     * @return 참조한 기준 청크가 많은 순, 같으면 먼저 참조된 순의 조 청크 리스트
+     */
+    public List<chunkDTO> getReferencedChunks(List<chunkDTO> chunks, int maxChunks) {
+        if (!frozen) {
+            refreshReferences();
+        }
+        ReferenceGraph graph = references;
+        Set<chunkDTO> excluded = Collections.newSetFromMap(new IdentityHashMap<>());
+        excluded.addAll(chunks);
+        Map<chunkDTO, Integer> counts = new IdentityHashMap<>();
+        List<chunkDTO> candidates = new ArrayList<>();
+        for (chunkDTO chunk : chunks) {
+            for (chunkDTO referenced : graph.getReferencedChunks(chunk)) {
+                if (excluded.contains(referenced)) {
+                    continue;
+                }
+                if (counts.merge(referenced, 1, Integer::sum) == 1) {
+                    candidates.add(referenced);
+                }
+            }
+        }
+        // 안정 정렬이므로 참조 수가 같으면 먼저 참조된 순서가 유지된다.
+        candidates.sort((a, b) -> Integer.compare(counts.get(b), counts.get(a)));
+        return candidates.size() > maxChunks ? new ArrayList<>(candidates.subList(0, Math.max(0, maxChunks))) : candidates;
+    }
+
+    /**
+     * 조항에서 질문과 관련된 항/호만 골라 조항 머리말(첫 항 앞 본문)과 함께 반환한다. (계층 검색)
+     * - 하위 청크를 BM25로 점수 매겨 최고 점수의 PART_SCORE_RATIO 이상인 것을 최대 maxParts개 남긴다.
+     * - 남긴 항이 길면 그 항의 호에 대해 같은 방식으로 다시 고른다.
+     * - 하위 청크가 없거나, 본문이 짧거나, 어느 하위 청크도 질문과 겹치지 않으면 본문 전체를 사용한다.
+     * @param article 조 청크
+     * @param query 사용자 질문
+     * @param maxParts 한 단계에서 남길 최대 항/호 수
+     * @param minSplitLength 이 길이(자) 미만의 본문은 나누지 않는다.
+     * @return 프롬프트에 넣을 조항 본문
+     */
+    public String getArticleContext(chunkDTO article, String query, int maxParts, int minSplitLength) {
+        StringBuilder context = new StringBuilder();
+        boolean omitted = appendRelevantParts(article, query, Math.max(1, maxParts), minSplitLength, context);
+        if (omitted) {
+            context.append("\n(질문과 관련이 적은 항·호는 생략)");
+        }
+        return context.toString();
+    }
+
+    /**
+     * @return 생략한 하위 청크가 있으면 true
+     */
+    private boolean appendRelevantParts(chunkDTO chunk, String query, int maxParts, int minSplitLength,
+                                        StringBuilder out) {
+        String text = chunk.getText();
+        List<chunkDTO> subChunks = subChunksByParent.get(chunk.getChunkId());
+        int leadEnd = subChunks == null ? -1 : text.indexOf(subChunks.get(0).getText());
+        if (subChunks == null || subChunks.size() < 2 || text.length() < minSplitLength || leadEnd < 0
+                || query == null || query.isBlank()) {
+            out.append(text);
+            return false;
+        }
+        double[] scores = getLexicalIndex().score(query, subChunks);
+        double best = 0;
+        for (double score : scores) {
+            best = Math.max(best, score);
+        }
+        if (best <= 0) {
+            out.append(text);
+            return false;
+        }
+        // 점수 순으로 maxParts개까지 고른 뒤 문서 순서로 붙인다.
+        Integer[] order = new Integer[subChunks.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(scores[b], scores[a]));
+        boolean[] selected = new boolean[subChunks.size()];
+        for (int rank = 0; rank < order.length && rank < maxParts; rank++) {
+            if (scores[order[rank]] >= best * PART_SCORE_RATIO) {
+                selected[order[rank]] = true;
+            }
+        }
+
+        out.append(text, 0, leadEnd);
+        trimTrailingWhitespace(out);
+        boolean omitted = false;
+        for (int i = 0; i < subChunks.size(); i++) {
+            if (!selected[i]) {
+                omitted = true;
+                continue;
+            }
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            omitted |= appendRelevantParts(subChunks.get(i), query, maxParts, minSplitLength, out);
+        }
+        return omitted;
+    }
+
+    private static void trimTrailingWhitespace(StringBuilder out) {
+        int length = out.length();
+        while (length > 0 && Character.isWhitespace(out.charAt(length - 1))) {
+            length--;
+        }
+        out.setLength(length);
+    }
+
+    /**
+     * 청크ID로 청크를 조회한다.
+     * @param chunkId 청크ID
+     * @return 해당 청크, 없으면 null
+     */
+    public chunkDTO getChunkById(String chunkId) {
+        if (chunkId == null) {
+            return null;
+        }
+        return chunksById.get(chunkId);
+    }
+
+    /**
+     * 조항 이름이 없는 청크의 통계 정보를 반환한다.
+     * @return 통계 정보 맵
+     */
+    public Map<String, Object> getChunksWithoutArticleTitleStatistics() {
+        Map<String, Object> stats = new HashMap<>();
+        List<chunkDTO> chunksWithoutTitle = findChunksWithoutArticleTitle();
+        
+        stats.put("totalChunks", store.size());
+        stats.put("chunksWithoutTitle", chunksWithoutTitle.size());
+        stats.put("chunksWithTitle", store.size() - chunksWithoutTitle.size());
+        
+        // 조항 이름이 없는 청크의 상세 정보
+        List<Map<String, Object>> details = new ArrayList<>();
+        for (chunkDTO chunk : chunksWithoutTitle) {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("lawName", chunk.getLawName());
+            detail.put("articleNumber", chunk.getArticleNumber());
+            detail.put("fileName", chunk.getFileName());
+            detail.put("category", chunk.getCategory());
+            detail.put("chunkIndex", chunk.getChunkIndex());
+            detail.put("textPreview", chunk.getText().length() > 100 
+                ? chunk.getText().substring(0, 100) + "..." 
+                : chunk.getText());
+            details.add(detail);
+        }
+        stats.put("details", details);
+        
+        return stats;
+    }
+
+    /**
+     * 모든 청크의 필수 필드를 검증하고 문제가 있는 청크를 찾는다.
+     * @return 문제가 있는 청크 리스트와 오류 정보
+     */
+    public Map<String, Object> validateAllChunks() {
+        Map<String, Object> result = new HashMap<>();
+        List<Map<String, Object>> invalidChunks = new ArrayList<>();
+        
+        for (int i = 0; i < store.size(); i++) {
+            chunkDTO chunk = store.get(i);
+            List<String> errors = new ArrayList<>();
+            
+            // 법령명 검증
+            if (chunk.getLawName() == null || chunk.getLawName().trim().isEmpty() || 
+                chunk.getLawName().equals("알 수 없음")) {
+                errors.add("법령명이 없거나 유효하지 않음: " + chunk.getLawName());
+            }
+            
+            // 조항 번호 검증
+            if (chunk.getArticleNumber() == null || chunk.getArticleNumber().trim().isEmpty()) {
+                errors.add("조항 번호가 없음");
+            } else if (!chunk.getArticleNumber().matches("제\\s*\\d+(?:조(?:의\\s*\\d+)?)?")) {
+                errors.add("조항 번호 형식이 올바르지 않음: " + chunk.getArticleNumber());
+            }
+            
+            // 조항 이름 검증
+            if (chunk.getArticleTitle() == null || chunk.getArticleTitle().trim().isEmpty()) {
+                errors.add("조항 이름이 없음");
+            }
+            
+            // 조항 내용 검증
+            if (chunk.getText() == null || chunk.getText().trim().isEmpty()) {
+                errors.add("조항 내용이 없음");
+            } else if (chunk.getText().trim().length() < 10) {
+                errors.add("조항 내용이 너무 짧음 (10자 미만): " + chunk.getText().trim().length() + "자");
+            }
+            
+            // 파일명 검증
+            if (chunk.getFileName() == null || chunk.getFileName().trim().isEmpty()) {
+                errors.add("파일명이 없음");
+            }
+            
+            if (!errors.isEmpty()) {
+                Map<String, Object> invalidChunk = new HashMap<>();
+                invalidChunk.put("index", i);
+                invalidChunk.put("lawName", chunk.getLawName());
+                invalidChunk.put("articleNumber", chunk.getArticleNumber());
+                invalidChunk.put("articleTitle", chunk.getArticleTitle());
+                invalidChunk.put("fileName", chunk.getFileName());
+                invalidChunk.put("category", chunk.getCategory());
+                invalidChunk.put("chunkIndex", chunk.getChunkIndex());
+                invalidChunk.put("textLength", chunk.getText() != null ? chunk.getText().length() : 0);
+                invalidChunk.put("errors", errors);
+                invalidChunks.add(invalidChunk);
+            }
+        }
+        
+        result.put("totalChunks", store.size());
+        result.put("validChunks", store.size() - invalidChunks.size());
+        result.put("invalidChunks", invalidChunks.size());
+        result.put("invalidChunkDetails", invalidChunks);
+        
+        return result;
+    }
+
+
+}
@@ -0,0 +1,535 @@
+package com.example.cwmAi.Config;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * 임베딩 벡터 저장소 (행 번호 기준).
+ * - FLOAT: 원본 float 벡터를 힙의 연속 배열에 보관
+ * - INT8 : 힙에는 차원별 스케일로 양자화한 int8 코드만 보관
+ * - PQ   : 힙에는 곱 양자화(Product Quantization) 코드(부분공간당 1바이트)만 보관
+ * 양자화 모드에서도 정확한 재정렬을 위해 원본 벡터는 메모리 매핑 파일(힙 밖)에 보관한다.
+ * copy()로 만든 복사본은 원본과 행 공간(힙 배열/매핑 파일/코드 배열)을 공유하고, 원본의 행 수 뒤쪽에만 덧붙인다.
+ * 원본은 게시된(더 이상 행을 추가하지 않는) 스냅샷이므로 자기 행 수 안쪽만 읽으며, 덧붙인 행을 보지 않는다.
+ */
+public class VectorStorage {
+
+    public enum Mode {
+        FLOAT, INT8, PQ;
+
+        public static Mode from(String value) {
+            if (value == null || value.isBlank()) {
+                return FLOAT;
+            }
+            try {
+                return Mode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[벡터 저장소] 알 수 없는 저장 방식, FLOAT 사용: " + value);
+                return FLOAT;
+            }
+        }
+    }
+
+    /**
+     * 여러 저장소가 함께 쓰는 매핑 파일. 마지막 저장소가 놓을 때 닫고 삭제한다.
+     */
+    private static final class SpillFile {
+        private final Path path;
+        private final FileChannel channel;
+        private int references = 1;
+
+        private SpillFile(Path path) throws IOException {
+            Files.createDirectories(path.getParent());
+            this.path = path;
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        private synchronized void retain() {
+            references++;
+        }
+
+        private synchronized void release() {
+            if (--references > 0) {
+                return;
+            }
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("[벡터 저장소] 매핑 파일 정리 실패: " + path + " - " + e.getMessage());
+                path.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    private static final int PQ_CENTROIDS = 256;
+    private static final int PQ_TRAIN_ITERATIONS = 12;
+
+    private final int dim;
+    private final Mode mode;
+    // 매핑 파일을 새로 만들 때 사용할 경로
+    private Path spillPath;
+    private final int pqSubspaces;
+    private final int pqSubDim;
+
+    private int rowCount = 0;
+
+    // FLOAT 모드: 힙 행렬 (용량이 남으면 복사본과 공유)
+    private float[] heapVectors = new float[0];
+
+    // 양자화 모드: 원본 벡터를 담는 메모리 매핑 파일 (복사본과 공유)
+    private SpillFile spillFile;
+    private FloatBuffer spill;
+    private int spillCapacityRows = 0;
+
+    // 양자화 코드 (학습/인코딩은 검색 시점에 지연 수행, 재학습 전까지 복사본과 공유)
+    private float[] int8Scales;
+    private byte[] int8Codes = new byte[0];
+    private float[][] pqCentroids;
+    private byte[] pqCodes = new byte[0];
+    private int encodedRows = 0;
+    private int trainedRows = 0;
+
+    public VectorStorage(int dim, Mode mode, Path spillFile, int pqSubspaces) {
+        this.dim = dim;
+        this.mode = mode;
+        this.spillPath = spillFile;
+        int subspaces = Math.max(1, pqSubspaces);
+        while (dim % subspaces != 0) {
+            subspaces--;
+        }
+        this.pqSubspaces = subspaces;
+        this.pqSubDim = dim / subspaces;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public boolean isQuantized() {
+        return mode != Mode.FLOAT;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /* =========================
+       원본 벡터 관리
+     ========================= */
+    /**
+     * 벡터를 새 행으로 추가한다.
+     * @return 추가된 행 번호
+     */
+    public int append(float[] vector) {
+        int row = rowCount;
+        ensureCapacity(row + 1);
+        if (mode == Mode.FLOAT) {
+            System.arraycopy(vector, 0, heapVectors, row * dim, dim);
+        } else {
+            spill.put(row * dim, vector, 0, dim);
+        }
+        rowCount++;
+        return row;
+    }
+
+    public float[] vector(int row) {
+        float[] result = new float[dim];
+        if (mode == Mode.FLOAT) {
+            System.arraycopy(heapVectors, row * dim, result, 0, dim);
+        } else {
+            spill.get(row * dim, result, 0, dim);
+        }
+        return result;
+    }
+
+    /**
+     * 원본 벡터 기준 정확한 내적
+     */
+    public double dot(float[] query, int row) {
+        int offset = row * dim;
+        double sum = 0;
+        if (mode == Mode.FLOAT) {
+            for (int i = 0; i < dim; i++) {
+                sum += query[i] * heapVectors[offset + i];
+            }
+        } else {
+            for (int i = 0; i < dim; i++) {
+                sum += query[i] * spill.get(offset + i);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 두 행의 원본 벡터 내적 (HNSW 구축 중 계속 호출되므로 벡터를 꺼내지 않고 제자리에서 계산)
+     */
+    public double dot(int rowA, int rowB) {
+        int offsetA = rowA * dim;
+        int offsetB = rowB * dim;
+        double sum = 0;
+        if (mode == Mode.FLOAT) {
+            for (int i = 0; i < dim; i++) {
+                sum += heapVectors[offsetA + i] * heapVectors[offsetB + i];
+            }
+        } else {
+            for (int i = 0; i < dim; i++) {
+                sum += spill.get(offsetA + i) * spill.get(offsetB + i);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 살아남은 행만 새 행 공간에 모아 저장한다. keepRows는 오름차순이어야 한다.
+     * 행 공간을 공유하는 다른 저장소가 있으므로 제자리에서 옮기지 않는다.
+     * 양자화 코드는 다음 검색 때 다시 인코딩된다.
+     * @param newSpillFile 양자화 모드에서 새로 만들 매핑 파일
+     */
+    public void compact(int[] keepRows, Path newSpillFile) {
+        if (mode == Mode.FLOAT) {
+            float[] compacted = new float[Math.max(16, keepRows.length) * dim];
+            for (int newRow = 0; newRow < keepRows.length; newRow++) {
+                System.arraycopy(heapVectors, keepRows[newRow] * dim, compacted, newRow * dim, dim);
+            }
+            heapVectors = compacted;
+        } else {
+            FloatBuffer oldSpill = spill;
+            SpillFile oldSpillFile = spillFile;
+            spillFile = null;
+            spill = null;
+            spillCapacityRows = 0;
+            spillPath = newSpillFile;
+            ensureCapacity(keepRows.length);
+            for (int newRow = 0; newRow < keepRows.length; newRow++) {
+                spill.put(newRow * dim, oldSpill, keepRows[newRow] * dim, dim);
+            }
+            if (oldSpillFile != null) {
+                oldSpillFile.release();
+            }
+        }
+        rowCount = keepRows.length;
+        int8Codes = new byte[0];
+        pqCodes = new byte[0];
+        encodedRows = 0;
+    }
+
+    /**
+     * 같은 내용을 가진 저장소를 만든다. (스냅샷 빌더용)
+     * 행 공간은 복사하지 않고 공유하며, 복사본에 추가한 행은 원본의 행 수 뒤쪽에만 쓰이므로 원본에 보이지 않는다.
+     * 원본에는 이후 행을 추가하지 않아야 한다. (게시된 스냅샷만 복사함)
+     * @param newSpillFile 원본에 매핑 파일이 아직 없을 때 복사본이 새로 만들 파일
+     */
+    public VectorStorage copy(Path newSpillFile) {
+        VectorStorage copy = new VectorStorage(dim, mode, newSpillFile, pqSubspaces);
+        copy.heapVectors = heapVectors;
+        if (spillFile != null) {
+            spillFile.retain();
+            copy.spillFile = spillFile;
+            copy.spill = spill;
+            copy.spillCapacityRows = spillCapacityRows;
+        }
+        copy.rowCount = rowCount;
+        // 코드 배열도 원본 행 수 안쪽은 제자리에서 수정되지 않으므로 공유해도 된다.
+        copy.int8Scales = int8Scales;
+        copy.int8Codes = int8Codes;
+        copy.pqCentroids = pqCentroids;
+        copy.pqCodes = pqCodes;
+        copy.encodedRows = encodedRows;
+        copy.trainedRows = trainedRows;
+        return copy;
+    }
+
+    /**
+     * 양자화 코드를 미리 학습/인코딩한다. (스냅샷 게시 전 호출)
+     */
+    public void prepare() {
+        ensureEncoded();
+    }
+
+    /**
+     * 매핑 파일 참조를 놓는다. 공유하는 저장소가 모두 놓으면 파일을 닫고 삭제한다.
+     * 이미 만들어진 매핑은 GC될 때까지 유효하므로 진행 중인 검색에는 영향이 없다.
+     */
+    public void release() {
+        if (spillFile == null) {
+            return;
+        }
+        spillFile.release();
+        spillFile = null;
+    }
+
+    private void ensureCapacity(int rows) {
+        if (mode == Mode.FLOAT) {
+            if (heapVectors.length < rows * dim) {
+                // 새 배열은 이 저장소만 쓴다. (공유하던 원본은 이전 배열을 계속 사용)
+                int newRows = Math.max(rows, Math.max(16, (heapVectors.length / dim) * 2));
+                heapVectors = Arrays.copyOf(heapVectors, newRows * dim);
+            }
+            return;
+        }
+        if (spillCapacityRows >= rows) {
+            return;
+        }
+        int newRows = Math.max(rows, Math.max(256, spillCapacityRows * 2));
+        try {
+            if (spillFile == null) {
+                spillFile = new SpillFile(spillPath);
+            }
+            // 더 큰 영역으로 다시 매핑하면 파일이 늘어나고 기존 내용은 유지된다.
+            // (원본 저장소는 이전 매핑으로 자기 행 수 안쪽만 읽는다)
+            spill = spillFile.channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) newRows * dim * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            spillCapacityRows = newRows;
+        } catch (IOException e) {
+            throw new IllegalStateException("벡터 매핑 파일을 만들 수 없습니다: " + spillPath, e);
+        }
+    }
+
+    /* =========================
+       근사 점수 계산 (양자화 코드)
+     ========================= */
+    /**
+     * 질의 벡터에 대한 행별 점수 함수를 만든다.
+     * FLOAT 모드는 정확한 내적, 양자화 모드는 코드 기반 근사 내적을 반환한다.
+     */
+    public IntToDoubleFunction approximateScorer(float[] query) {
+        if (mode == Mode.FLOAT) {
+            return row -> dot(query, row);
+        }
+        ensureEncoded();
+        if (mode == Mode.INT8) {
+            // 스케일을 질의 쪽에 미리 곱해 두면 행별 계산은 byte 내적 한 번이다.
+            float[] scaledQuery = new float[dim];
+            for (int i = 0; i < dim; i++) {
+                scaledQuery[i] = query[i] * int8Scales[i];
+            }
+            byte[] codes = int8Codes;
+            return row -> {
+                int offset = row * dim;
+                double sum = 0;
+                for (int i = 0; i < dim; i++) {
+                    sum += scaledQuery[i] * codes[offset + i];
+                }
+                return sum;
+            };
+        }
+        // PQ: 부분공간별로 질의와 각 중심점의 내적을 미리 계산 (ADC 테이블)
+        float[][] centroids = pqCentroids;
+        int subspaces = pqSubspaces;
+        float[] table = new float[subspaces * PQ_CENTROIDS];
+        for (int s = 0; s < subspaces; s++) {
+            int centroidCount = centroids[s].length / pqSubDim;
+            for (int c = 0; c < centroidCount; c++) {
+                double sum = 0;
+                for (int j = 0; j < pqSubDim; j++) {
+                    sum += query[s * pqSubDim + j] * centroids[s][c * pqSubDim + j];
+                }
+                table[s * PQ_CENTROIDS + c] = (float) sum;
+            }
+        }
+        byte[] codes = pqCodes;
+        return row -> {
+            int offset = row * subspaces;
+            double sum = 0;
+            for (int s = 0; s < subspaces; s++) {
+                sum += table[s * PQ_CENTROIDS + (codes[offset + s] & 0xFF)];
+            }
+            return sum;
+        };
+    }
+
+    /**
+     * 아직 인코딩되지 않은 행을 인코딩한다.
+     * 학습 이후 행 수가 두 배 이상 늘었으면 양자화 파라미터를 다시 학습한다.
+     */
+    private synchronized void ensureEncoded() {
+        if (mode == Mode.FLOAT || rowCount == 0) {
+            return;
+        }
+        boolean untrained = (mode == Mode.INT8) ? int8Scales == null : pqCentroids == null;
+        boolean retrained = false;
+        if (untrained || rowCount >= trainedRows * 2) {
+            train();
+            encodedRows = 0;
+            retrained = true;
+        }
+        if (encodedRows >= rowCount) {
+            return;
+        }
+        if (mode == Mode.INT8) {
+            byte[] codes = codeArray(int8Codes, dim, retrained);
+            for (int row = encodedRows; row < rowCount; row++) {
+                float[] v = vector(row);
+                for (int i = 0; i < dim; i++) {
+                    int q = Math.round(v[i] / int8Scales[i]);
+                    codes[row * dim + i] = (byte) Math.max(-127, Math.min(127, q));
+                }
+            }
+            int8Codes = codes;
+        } else {
+            byte[] codes = codeArray(pqCodes, pqSubspaces, retrained);
+            for (int row = encodedRows; row < rowCount; row++) {
+                float[] v = vector(row);
+                for (int s = 0; s < pqSubspaces; s++) {
+                    codes[row * pqSubspaces + s] = (byte) nearestCentroid(pqCentroids[s], v, s * pqSubDim);
+                }
+            }
+            pqCodes = codes;
+        }
+        encodedRows = rowCount;
+    }
+
+    /**
+     * 인코딩할 코드 배열. 용량이 남으면 기존 배열의 뒤쪽에 이어 쓰고 (공유하는 원본은 자기 행 수 안쪽만 읽음),
+     * 모자라면 두 배로 늘린 새 배열을, 다시 학습했으면 모든 행을 새로 쓸 빈 배열을 만든다.
+     */
+    private byte[] codeArray(byte[] codes, int rowBytes, boolean retrained) {
+        int capacityRows = Math.max(rowCount, Math.max(16, (codes.length / rowBytes) * 2));
+        if (retrained) {
+            return new byte[capacityRows * rowBytes];
+        }
+        return codes.length >= rowCount * rowBytes ? codes : Arrays.copyOf(codes, capacityRows * rowBytes);
+    }
+
+    private void train() {
+        long startTime = System.currentTimeMillis();
+        if (mode == Mode.INT8) {
+            // 차원별 최대 절댓값을 127에 대응시킨다.
+            float[] maxAbs = new float[dim];
+            for (int row = 0; row < rowCount; row++) {
+                float[] v = vector(row);
+                for (int i = 0; i < dim; i++) {
+                    maxAbs[i] = Math.max(maxAbs[i], Math.abs(v[i]));
+                }
+            }
+            float[] scales = new float[dim];
+            for (int i = 0; i < dim; i++) {
+                scales[i] = maxAbs[i] > 0 ? maxAbs[i] / 127f : 1f / 127f;
+            }
+            int8Scales = scales;
+        } else {
+            pqCentroids = trainProductQuantizer();
+        }
+        trainedRows = rowCount;
+        System.out.println("[벡터 저장소] " + mode + " 양자화 학습 완료 (" + rowCount + "행, "
+                + (System.currentTimeMillis() - startTime) + "ms)");
+    }
+
+    /**
+     * 부분공간마다 k-means로 최대 256개의 중심점을 학습한다.
+     */
+    private float[][] trainProductQuantizer() {
+        int centroidCount = Math.min(PQ_CENTROIDS, rowCount);
+        float[][] centroids = new float[pqSubspaces][centroidCount * pqSubDim];
+        Random random = new Random(17);
+        float[][] rows = new float[rowCount][];
+        for (int row = 0; row < rowCount; row++) {
+            rows[row] = vector(row);
+        }
+        int[] assignment = new int[rowCount];
+        for (int s = 0; s < pqSubspaces; s++) {
+            int base = s * pqSubDim;
+            float[] current = centroids[s];
+            // 초기 중심점: 서로 다른 임의의 행
+            int[] picks = random.ints(0, rowCount).distinct().limit(centroidCount).toArray();
+            for (int c = 0; c < centroidCount; c++) {
+                System.arraycopy(rows[picks[c]], base, current, c * pqSubDim, pqSubDim);
+            }
+            for (int iteration = 0; iteration < PQ_TRAIN_ITERATIONS; iteration++) {
+                for (int row = 0; row < rowCount; row++) {
+                    assignment[row] = nearestCentroid(current, rows[row], base);
+                }
+                float[] sums = new float[centroidCount * pqSubDim];
+                int[] counts = new int[centroidCount];
+                for (int row = 0; row < rowCount; row++) {
+                    int c = assignment[row];
+                    counts[c]++;
+                    for (int j = 0; j < pqSubDim; j++) {
+                        sums[c * pqSubDim + j] += rows[row][base + j];
+                    }
+                }
+                for (int c = 0; c < centroidCount; c++) {
+                    if (counts[c] == 0) {
+                        // 빈 군집은 임의의 행으로 다시 시작
+                        System.arraycopy(rows[random.nextInt(rowCount)], base, current, c * pqSubDim, pqSubDim);
+                        continue;
+                    }
+                    for (int j = 0; j < pqSubDim; j++) {
+                        current[c * pqSubDim + j] = sums[c * pqSubDim + j] / counts[c];
+                    }
+                }
+            }
+        }
+        return centroids;
+    }
+
+    private int nearestCentroid(float[] centroids, float[] vector, int base) {
+        int centroidCount = centroids.length / pqSubDim;
+        int best = 0;
+        double bestDistance = Double.MAX_VALUE;
+        for (int c = 0; c < centroidCount; c++) {
+            double distance = 0;
+            for (int j = 0; j < pqSubDim; j++) {
+                double diff = vector[base + j] - centroids[c * pqSubDim + j];
+                distance += diff * diff;
+            }
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /* =========================
+       메모리 통계
+     ========================= */
+    /**
+     * 힙 사용량과 원본 float 행렬 대비 절감량을 반환한다.
+     */
+    public Map<String, Object> getMemoryStatistics() {
+        ensureEncoded();
+        long floatBytes = (long) rowCount * dim * Float.BYTES;
+        long heapBytes;
+        if (mode == Mode.FLOAT) {
+            heapBytes = floatBytes;
+        } else if (mode == Mode.INT8) {
+            heapBytes = (long) rowCount * dim + (long) dim * Float.BYTES;
+        } else {
+            long codebookBytes = 0;
+            if (pqCentroids != null) {
+                for (float[] centroids : pqCentroids) {
+                    codebookBytes += (long) centroids.length * Float.BYTES;
+                }
+            }
+            heapBytes = (long) rowCount * pqSubspaces + codebookBytes;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.name());
+        stats.put("rows", rowCount);
+        stats.put("dimension", dim);
+        if (mode == Mode.PQ) {
+            stats.put("pqSubspaces", pqSubspaces);
+        }
+        stats.put("floatMatrixBytes", floatBytes);
+        stats.put("heapBytes", heapBytes);
+        stats.put("heapBytesSaved", floatBytes - heapBytes);
+        stats.put("offHeapFullPrecisionBytes", mode == Mode.FLOAT ? 0L : floatBytes);
+        return stats;
+    }
+}
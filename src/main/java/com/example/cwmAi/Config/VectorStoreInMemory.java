@@ -1,259 +1,344 @@
 package com.example.cwmAi.Config;
 
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Component
 public class VectorStoreInMemory {
     /* =========================
        법령 Chunk 저장소 (In-Memory)
+       - 실제 데이터와 인덱스는 불변 스냅샷(StoreSnapshot)에 있다.
+       - 읽기는 현재 스냅샷을 잠금 없이 사용하고,
+         쓰기는 새 스냅샷을 따로 만든 뒤 참조 하나를 교체하여 게시한다.
+       - 따라서 재로딩 중에도 검색은 항상 완성된 이전 버전을 본다.
      ========================= */
-    private final List<chunkDTO> store = new ArrayList<>();
+    private final ChunkEmbedder embedder;
+    private final StoreSnapshot.Settings settings;
+    private final AtomicReference<StoreSnapshot> current = new AtomicReference<>();
 
     /* =========================
-       기본 관리 메서드
+       인덱스 파일 (재시작 시 재구축 생략용)
+       - 게시할 때마다 스냅샷 전체를 파일로 저장한다.
+       - 저장은 전용 스레드 하나가 게시 뒤에 따로 하므로 업로드/동기화가 파일 쓰기를 기다리지 않는다.
+       - 저장 중에 여러 버전이 게시되면 가장 최근 버전만 저장한다.
      ========================= */
-    public void addChunk(chunkDTO chunk) {
-        store.add(chunk);
+    private final Path indexFile;
+    private final boolean persist;
+    private final ExecutorService indexWriter;
+    // 아직 저장하지 않은 최신 스냅샷 (null이면 저장할 것 없음)
+    private final AtomicReference<StoreSnapshot> pendingIndexWrite = new AtomicReference<>();
+    // 인덱스 파일 헤더에 기록할 PDF 추출기 버전 (restoreIndexFile에서 정해지며, 그 전 저장분은 -1이라 다음 기동 때 재구축된다)
+    private volatile int extractorVersion = -1;
+
+    public VectorStoreInMemory(
+            ChunkEmbedder embedder,
+            @Value("${cwmai.hnsw.m:16}") int hnswM,
+            @Value("${cwmai.hnsw.ef-construction:200}") int hnswEfConstruction,
+            @Value("${cwmai.hnsw.ef-search:64}") int hnswEfSearch,
+            @Value("${cwmai.hnsw.brute-force-threshold:2000}") int bruteForceThreshold,
+            @Value("${cwmai.vector.storage:float}") String storageMode,
+            @Value("${cwmai.vector.rerank-depth:200}") int rerankDepth,
+            @Value("${cwmai.vector.pq-subspaces:48}") int pqSubspaces,
+            @Value("${cwmai.index.file:index/store.bin}") String indexFile,
+            @Value("${cwmai.index.persist:true}") boolean persist
+    ) {
+        this.embedder = embedder;
+        this.indexFile = Paths.get(indexFile).toAbsolutePath();
+        this.persist = persist;
+        this.indexWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.settings = new StoreSnapshot.Settings(VectorStorage.Mode.from(storageMode),
+                Paths.get("index").toAbsolutePath(), pqSubspaces, rerankDepth,
+                hnswM, hnswEfConstruction, hnswEfSearch, bruteForceThreshold);
+        deleteStaleSpillFiles(settings.spillDirectory);
+        StoreSnapshot initial = StoreSnapshot.empty(embedder, settings);
+        initial.freeze(0);
+        current.set(initial);
     }
 
-    public int getSize() {
-        return store.size();
+    /**
+     * 이전 실행에서 남은 양자화 모드 매핑 파일(vectors-*.f32)을 지운다.
+     */
+    private static void deleteStaleSpillFiles(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "vectors-*.f32")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("[저장소] 이전 매핑 파일 정리 실패: " + e.getMessage());
+        }
     }
 
-    public void clearChunk() {
-        store.clear();
+    /* =========================
+       스냅샷 조회/게시
+     ========================= */
+    /**
+     * 현재 게시된 스냅샷. 한 요청 안에서 여러 번 조회할 때 같은 버전을 보려면 이 객체를 재사용한다.
+     */
+    public StoreSnapshot snapshot() {
+        return current.get();
     }
 
     /**
-     * 모든 청크를 조회한다.
-     * @return 저장된 모든 청크 리스트
+     * 현재 스냅샷 버전. 저장소 내용이 바뀔 때마다 1씩 증가한다. (캐시 키 용도)
      */
-    public List<chunkDTO> getAllChunks() {
-        return new ArrayList<>(store);
+    public long getVersion() {
+        return current.get().getVersion();
     }
 
     /**
-     * 카테고리별 청크를 조회한다.
-     * @param category 카테고리 (null이면 전체)
-     * @return 해당 카테고리의 청크 리스트
+     * 현재 스냅샷을 복사한 빌더를 수정한 뒤 새 버전으로 게시한다.
+     * 쓰기 작업끼리는 직렬화되며, 수정 중 예외가 나거나 바뀐 내용이 없으면 아무것도 게시하지 않는다.
+     * 다른 쓰기 작업이 기다리므로 추출/청킹/임베딩 같은 오래 걸리는 작업은 호출 전에 끝내고
+     * mutation에서는 결과를 반영하기만 한다.
+     * @param mutation 빌더 수정 작업
+     * @return mutation의 반환값
      */
-    public List<chunkDTO> getChunksByCategory(String category) {
-        if (category == null || category.isBlank()) {
-            return getAllChunks();
-        }
-        List<chunkDTO> result = new ArrayList<>();
-        for (chunkDTO chunk : store) {
-            if (category.equals(chunk.getCategory())) {
-                result.add(chunk);
-            }
-        }
-        return result;
+    public synchronized <T> T update(Function<StoreSnapshot, T> mutation) {
+        return publish(current.get().toBuilder(), mutation, true);
     }
 
     /**
-     * 조항 이름이 없는 청크를 찾는다.
-     * @return 조항 이름이 null이거나 비어있는 청크 리스트
+     * 빈 빌더에서 저장소 전체를 새로 만든 뒤 게시한다. (전체 재로딩용)
+     * 만드는 동안에는 이전 스냅샷이 그대로 검색에 사용된다.
+     * @param mutation 빌더 채우기 작업
+     * @return mutation의 반환값
      */
-    public List<chunkDTO> findChunksWithoutArticleTitle() {
-        List<chunkDTO> result = new ArrayList<>();
-        for (chunkDTO chunk : store) {
-            if (chunk.getArticleTitle() == null || chunk.getArticleTitle().trim().isEmpty()) {
-                result.add(chunk);
-            }
+    public synchronized <T> T rebuild(Function<StoreSnapshot, T> mutation) {
+        return publish(StoreSnapshot.empty(embedder, settings), mutation, false);
+    }
+
+    private <T> T publish(StoreSnapshot builder, Function<StoreSnapshot, T> mutation, boolean skipIfUnchanged) {
+        T result;
+        try {
+            result = mutation.apply(builder);
+        } catch (RuntimeException e) {
+            builder.release();
+            throw e;
+        }
+        if (skipIfUnchanged && !builder.isModified()) {
+            builder.release();
+            return result;
         }
+        swap(builder, current.get().getVersion() + 1);
+        saveIndexFile(builder);
         return result;
     }
 
-    /**
-     * 카테고리별 청크의 조항 이름 목록을 조회한다.
-     * @param category 카테고리
-     * @return 조항 이름과 청크ID를 매핑한 맵 (조항 이름 -> 청크ID)
-     */
-    public Map<String, String> getArticleTitlesByCategory(String category) {
-        return getArticleTitlesByCategoryAndFiles(category, null);
+    private void swap(StoreSnapshot builder, long version) {
+        StoreSnapshot previous = current.get();
+        builder.freeze(version);
+        current.set(builder);
+        previous.release();
+        System.out.println("[저장소] 스냅샷 v" + builder.getVersion() + " 게시 (청크 " + builder.getSize()
+                + "개, 임베딩 " + builder.getEmbeddedSize() + "개)");
     }
-    
-    /**
-     * 카테고리와 파일명 리스트로 필터링하여 조항 이름 목록을 조회한다.
-     * @param category 카테고리
-     * @param fileNames 파일명 리스트 (null이면 모든 파일)
-     * @return 조항 이름과 청크ID를 매핑한 맵 (조항 이름 -> 청크ID)
-     */
-    public Map<String, String> getArticleTitlesByCategoryAndFiles(String category, List<String> fileNames) {
-        Map<String, String> articleTitleToChunkId = new HashMap<>();
-        Set<String> fileNameSet = null;
-        if (fileNames != null && !fileNames.isEmpty()) {
-            fileNameSet = new HashSet<>(fileNames);
+
+    private void saveIndexFile(StoreSnapshot snapshot) {
+        if (!persist) {
+            return;
         }
-        
-        for (chunkDTO chunk : store) {
-            // 카테고리 필터링
-            if (category != null && !category.isBlank() && !category.equals(chunk.getCategory())) {
-                continue;
-            }
-            
-            // 파일명 필터링
-            if (fileNameSet != null && !fileNameSet.contains(chunk.getFileName())) {
-                continue;
-            }
-            
-            String articleTitle = chunk.getArticleTitle();
-            if (articleTitle != null && !articleTitle.trim().isEmpty()) {
-                // 같은 조항 이름이 여러 개 있을 수 있으므로, 첫 번째 매칭만 사용
-                if (!articleTitleToChunkId.containsKey(articleTitle)) {
-                    articleTitleToChunkId.put(articleTitle, chunk.getChunkId());
-                }
-            }
+        // 대기 중인 저장이 있으면 그 작업이 이 스냅샷을 대신 저장한다.
+        if (pendingIndexWrite.getAndSet(snapshot) == null) {
+            indexWriter.execute(this::writePendingIndexFile);
         }
-        return articleTitleToChunkId;
     }
 
+    private void writePendingIndexFile() {
+        StoreSnapshot snapshot = pendingIndexWrite.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            SnapshotFile.write(snapshot, indexFile, extractorVersion);
+            System.out.println("[저장소] 인덱스 파일 v" + snapshot.getVersion() + " 저장 완료: " + indexFile + " (" + Files.size(indexFile) + "바이트, "
+                    + (System.currentTimeMillis() - startTime) + "ms)");
+        } catch (IOException e) {
+            // 저장 실패는 다음 기동 때 재구축될 뿐이므로 검색에는 영향이 없다.
+            System.err.println("[저장소] 인덱스 파일 저장 실패: " + e.getMessage());
+        }
+    }
 
     /**
-     * 조항 이름 리스트로 청크를 조회한다.
-     * @param articleTitles 조항 이름 리스트
-     * @param category 카테고리 (필터링용)
-     * @return 해당 조항 이름에 해당하는 청크 리스트
+     * 종료 전에 대기 중인 인덱스 파일 저장을 마친다.
      */
-    public List<chunkDTO> getChunksByArticleTitles(List<String> articleTitles, String category) {
-        List<chunkDTO> result = new ArrayList<>();
-        Set<String> articleTitleSet = new HashSet<>(articleTitles);
-        
-        for (chunkDTO chunk : store) {
-            // 카테고리 필터링
-            if (category != null && !category.isBlank()) {
-                if (!category.equals(chunk.getCategory())) {
-                    continue;
-                }
-            }
-            
-            // 조항 이름 매칭
-            String articleTitle = chunk.getArticleTitle();
-            if (articleTitle != null && articleTitleSet.contains(articleTitle)) {
-                result.add(chunk);
+    @PreDestroy
+    public void shutdown() {
+        indexWriter.shutdown();
+        try {
+            if (!indexWriter.awaitTermination(30, TimeUnit.SECONDS)) {
+                System.err.println("[저장소] 인덱스 파일 저장이 끝나지 않아 종료합니다. (다음 기동 때 재구축될 수 있음)");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        return result;
     }
 
     /**
-     * 청크ID로 청크를 조회한다.
-     * @param chunkId 청크ID
-     * @return 해당 청크, 없으면 null
+     * 인덱스 파일에서 스냅샷을 복원하여 게시한다. (PDF 추출/청킹/임베딩 생략)
+     * 파일의 추출기/청커 버전이 현재와 다르면 복원하지 않는다.
+     * @param extractorVersion 현재 PDF 추출기 버전 (이후 저장하는 인덱스 파일에도 기록)
+     * @return 복원 성공 여부
      */
-    public chunkDTO getChunkById(String chunkId) {
-        for (chunkDTO chunk : store) {
-            if (chunkId != null && chunkId.equals(chunk.getChunkId())) {
-                return chunk;
+    public synchronized boolean restoreIndexFile(int extractorVersion) {
+        this.extractorVersion = extractorVersion;
+        if (!persist || !Files.exists(indexFile)) {
+            return false;
+        }
+        long startTime = System.currentTimeMillis();
+        StoreSnapshot restored = null;
+        try {
+            long version = SnapshotFile.readHeader(indexFile, extractorVersion).getVersion();
+            restored = SnapshotFile.read(indexFile, extractorVersion, embedder, settings);
+            swap(restored, Math.max(version, current.get().getVersion() + 1));
+            System.out.println("[저장소] 인덱스 파일 복원 완료 (" + (System.currentTimeMillis() - startTime) + "ms)");
+            return true;
+        } catch (IOException | RuntimeException e) {
+            if (restored != null) {
+                restored.release();
             }
+            System.err.println("[저장소] 인덱스 파일 복원 실패, 재구축합니다: " + e.getMessage());
+            return false;
         }
-        return null;
+    }
+
+    /* =========================
+       기본 관리 메서드
+     ========================= */
+    public void addChunk(chunkDTO chunk) {
+        addChunks(List.of(chunk));
     }
 
     /**
-     * 조항 이름이 없는 청크의 통계 정보를 반환한다.
-     * @return 통계 정보 맵
+     * 여러 청크를 추가한 새 스냅샷을 게시한다.
+     * @param chunks 추가할 청크 리스트 (보통 파일 하나 분량)
      */
-    public Map<String, Object> getChunksWithoutArticleTitleStatistics() {
-        Map<String, Object> stats = new HashMap<>();
-        List<chunkDTO> chunksWithoutTitle = findChunksWithoutArticleTitle();
-        
-        stats.put("totalChunks", store.size());
-        stats.put("chunksWithoutTitle", chunksWithoutTitle.size());
-        stats.put("chunksWithTitle", store.size() - chunksWithoutTitle.size());
-        
-        // 조항 이름이 없는 청크의 상세 정보
-        List<Map<String, Object>> details = new ArrayList<>();
-        for (chunkDTO chunk : chunksWithoutTitle) {
-            Map<String, Object> detail = new HashMap<>();
-            detail.put("lawName", chunk.getLawName());
-            detail.put("articleNumber", chunk.getArticleNumber());
-            detail.put("fileName", chunk.getFileName());
-            detail.put("category", chunk.getCategory());
-            detail.put("chunkIndex", chunk.getChunkIndex());
-            detail.put("textPreview", chunk.getText().length() > 100 
-                ? chunk.getText().substring(0, 100) + "..." 
-                : chunk.getText());
-            details.add(detail);
+    public void addChunks(List<chunkDTO> chunks) {
+        if (chunks == null || chunks.isEmpty()) {
+            return;
         }
-        stats.put("details", details);
-        
-        return stats;
+        // 임베딩은 잠금 밖에서 계산한다.
+        List<float[]> embeddings = embedChunks(chunks);
+        update(builder -> {
+            builder.addChunks(chunks, embeddings);
+            return null;
+        });
     }
 
     /**
-     * 모든 청크의 필수 필드를 검증하고 문제가 있는 청크를 찾는다.
-     * @return 문제가 있는 청크 리스트와 오류 정보
+     * 주어진 청크 ID의 청크를 뺀 새 스냅샷을 게시한다.
+     * @return 제거된 청크 수
      */
+    public int removeChunks(Collection<String> chunkIds) {
+        return update(builder -> builder.removeChunks(chunkIds));
+    }
+
+    /**
+     * 청크 임베딩을 일괄 계산한다. (저장소를 수정하지 않으므로 빌더 밖 작업 스레드에서 사용)
+     * @return chunks와 같은 순서의 임베딩, 모델을 사용할 수 없으면 null
+     */
+    public List<float[]> embedChunks(List<chunkDTO> chunks) {
+        return StoreSnapshot.embedChunks(embedder, chunks);
+    }
+
+    public int getSize() {
+        return current.get().getSize();
+    }
+
+    public void clearChunk() {
+        rebuild(builder -> null);
+    }
+
+    /* =========================
+       조회 메서드 (현재 스냅샷에 위임)
+     ========================= */
+    public List<scoredChunkDTO> searchSimilar(String query, String category, List<String> fileNames, int topK) {
+        return current.get().searchSimilar(query, category, fileNames, topK);
+    }
+
+    public List<scoredChunkDTO> searchLexical(String query, String category, List<String> fileNames, int topK) {
+        return current.get().searchLexical(query, category, fileNames, topK);
+    }
+
+    public int getEmbeddedSize() {
+        return current.get().getEmbeddedSize();
+    }
+
+    public Map<String, Object> evaluateHnsw(int queryCount, int k) {
+        return current.get().evaluateHnsw(queryCount, k);
+    }
+
+    public Map<String, Object> getVectorStorageStatistics(int queryCount, int k) {
+        return current.get().getVectorStorageStatistics(queryCount, k);
+    }
+
+    public List<chunkDTO> getAllChunks() {
+        return current.get().getAllChunks();
+    }
+
+    public List<chunkDTO> getChunksByCategory(String category) {
+        return current.get().getChunksByCategory(category);
+    }
+
+    public List<chunkDTO> findChunksWithoutArticleTitle() {
+        return current.get().findChunksWithoutArticleTitle();
+    }
+
+    public Map<String, String> getArticleTitlesByCategory(String category) {
+        return current.get().getArticleTitlesByCategory(category);
+    }
+
+    public Map<String, String> getArticleTitlesByCategoryAndFiles(String category, List<String> fileNames) {
+        return current.get().getArticleTitlesByCategoryAndFiles(category, fileNames);
+    }
+
+    public List<chunkDTO> getChunksByArticleTitles(List<String> articleTitles, String category) {
+        return current.get().getChunksByArticleTitles(articleTitles, category);
+    }
+
+    public List<chunkDTO> getSubChunks(String parentChunkId) {
+        return current.get().getSubChunks(parentChunkId);
+    }
+
+    public String getArticleContext(chunkDTO article, String query, int maxParts, int minSplitLength) {
+        return current.get().getArticleContext(article, query, maxParts, minSplitLength);
+    }
+
+    public chunkDTO getChunkById(String chunkId) {
+        return current.get().getChunkById(chunkId);
+    }
+
+    public Map<String, Object> getChunksWithoutArticleTitleStatistics() {
+        return current.get().getChunksWithoutArticleTitleStatistics();
+    }
+
     public Map<String, Object> validateAllChunks() {
-        Map<String, Object> result = new HashMap<>();
-        List<Map<String, Object>> invalidChunks = new ArrayList<>();
-        
-        for (int i = 0; i < store.size(); i++) {
-            chunkDTO chunk = store.get(i);
-            List<String> errors = new ArrayList<>();
-            
-            // 법령명 검증
-            if (chunk.getLawName() == null || chunk.getLawName().trim().isEmpty() || 
-                chunk.getLawName().equals("알 수 없음")) {
-                errors.add("법령명이 없거나 유효하지 않음: " + chunk.getLawName());
-            }
-            
-            // 조항 번호 검증
-            if (chunk.getArticleNumber() == null || chunk.getArticleNumber().trim().isEmpty()) {
-                errors.add("조항 번호가 없음");
-            } else if (!chunk.getArticleNumber().matches("제\\s*\\d+(?:조(?:의\\s*\\d+)?)?")) {
-                errors.add("조항 번호 형식이 올바르지 않음: " + chunk.getArticleNumber());
-            }
-            
-            // 조항 이름 검증
-            if (chunk.getArticleTitle() == null || chunk.getArticleTitle().trim().isEmpty()) {
-                errors.add("조항 이름이 없음");
-            }
-            
-            // 조항 내용 검증
-            if (chunk.getText() == null || chunk.getText().trim().isEmpty()) {
-                errors.add("조항 내용이 없음");
-            } else if (chunk.getText().trim().length() < 10) {
-                errors.add("조항 내용이 너무 짧음 (10자 미만): " + chunk.getText().trim().length() + "자");
-            }
-            
-            // 파일명 검증
-            if (chunk.getFileName() == null || chunk.getFileName().trim().isEmpty()) {
-                errors.add("파일명이 없음");
-            }
-            
-            if (!errors.isEmpty()) {
-                Map<String, Object> invalidChunk = new HashMap<>();
-                invalidChunk.put("index", i);
-                invalidChunk.put("lawName", chunk.getLawName());
-                invalidChunk.put("articleNumber", chunk.getArticleNumber());
-                invalidChunk.put("articleTitle", chunk.getArticleTitle());
-                invalidChunk.put("fileName", chunk.getFileName());
-                invalidChunk.put("category", chunk.getCategory());
-                invalidChunk.put("chunkIndex", chunk.getChunkIndex());
-                invalidChunk.put("textLength", chunk.getText() != null ? chunk.getText().length() : 0);
-                invalidChunk.put("errors", errors);
-                invalidChunks.add(invalidChunk);
-            }
-        }
-        
-        result.put("totalChunks", store.size());
-        result.put("validChunks", store.size() - invalidChunks.size());
-        result.put("invalidChunks", invalidChunks.size());
-        result.put("invalidChunkDetails", invalidChunks);
-        
-        return result;
+        return current.get().validateAllChunks();
     }
 
 }
-
@@ -1,10 +1,15 @@
 // src/main/java/com/example/cwmAi/Controller/aiApiController.java
 package com.example.cwmAi.Controller;
 
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 
 import com.example.cwmAi.Service.aiService;
+import com.example.cwmAi.dto.ai_DTO.aiResponseDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RestController // 데이터 반환 전용 컨트롤러
@@ -21,11 +26,34 @@ public class aiApiController {
     @PostMapping("/ask")
     public Mono<String> ask(
             @RequestParam String question,
-            @RequestParam(required = false) String category
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String mode
     ) {
         // aiService의 비동기 작업(Mono<String>)을 그대로 반환합니다.
         // Spring WebFlux가 Mono의 완료 시점에 맞춰 비동기적으로 HTTP 응답을 처리합니다.
-        return aiService.askModel(question, category);
+        // mode: 1단계 방식 (llm | retrieval), 생략하면 설정값(cwmai.stage1.mode) 사용
+        return aiService.askModel(question, category, mode);
+    }
+    
+    // 단계별 상태와 답변 조각을 SSE(text/event-stream)로 전달 (POST) - 본문 {"files": [...]}로 파일 선택
+    // 이벤트 이름은 단계: stage1 → stage2 → answer(여러 번) → completed
+    // 모델 호출 대기 중에는 queued(대기 순서)가 오고, 대기가 끝나면 해당 단계 이벤트가 다시 온다.
+    // 대기열이 가득 차면 바로 completed(안내 문구)로 끝난다.
+    @PostMapping(value = "/ask/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<aiResponseDTO>> askStream(
+            @RequestParam String question,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String mode,
+            @RequestBody(required = false) java.util.Map<String, Object> requestBody
+    ) {
+        java.util.List<String> files = null;
+        if (requestBody != null && requestBody.containsKey("files")) {
+            @SuppressWarnings("unchecked")
+            java.util.List<String> filesList = (java.util.List<String>) requestBody.get("files");
+            files = filesList;
+        }
+        return aiService.askModelWithStages(question, category, files, mode)
+                .map(event -> ServerSentEvent.builder(event).event(event.getStage()).build());
     }
     
     // 1단계: 관련 조항 추천 (POST)
@@ -33,6 +61,7 @@ public class aiApiController {
     public Mono<java.util.List<String>> askStage1(
             @RequestParam String question,
             @RequestParam(required = false) String category,
+            @RequestParam(required = false) String mode,
             @RequestBody(required = false) java.util.Map<String, Object> requestBody
     ) {
         java.util.List<String> files = null;
@@ -41,7 +70,7 @@ public class aiApiController {
             java.util.List<String> filesList = (java.util.List<String>) requestBody.get("files");
             files = filesList;
         }
-        return aiService.recommendArticleTitles(question, category, files);
+        return aiService.recommendArticleTitles(question, category, files, mode);
     }
     
     // 2단계: 최종 답변 생성 (POST)
@@ -53,5 +82,81 @@ public class aiApiController {
     ) {
         return aiService.generateFinalAnswer(question, recommendedTitles, category);
     }
+    
+    // 임베딩 유사도 검색 (LLM 호출 없음)
+    @PostMapping("/search")
+    public java.util.List<scoredChunkDTO> search(
+            @RequestParam String question,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "5") int topK,
+            @RequestBody(required = false) java.util.Map<String, Object> requestBody
+    ) {
+        java.util.List<String> files = null;
+        if (requestBody != null && requestBody.containsKey("files")) {
+            @SuppressWarnings("unchecked")
+            java.util.List<String> filesList = (java.util.List<String>) requestBody.get("files");
+            files = filesList;
+        }
+        return aiService.searchSimilarChunks(question, category, files, topK);
+    }
+    
+    // BM25 어휘 검색 (LLM 호출 없음)
+    @PostMapping("/search/lexical")
+    public java.util.List<scoredChunkDTO> searchLexical(
+            @RequestParam String question,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "5") int topK,
+            @RequestBody(required = false) java.util.Map<String, Object> requestBody
+    ) {
+        java.util.List<String> files = null;
+        if (requestBody != null && requestBody.containsKey("files")) {
+            @SuppressWarnings("unchecked")
+            java.util.List<String> filesList = (java.util.List<String>) requestBody.get("files");
+            files = filesList;
+        }
+        return aiService.searchLexicalChunks(question, category, files, topK);
+    }
+    
+    // 조항 이름이 없는 청크 통계
+    @GetMapping("/stats/chunks")
+    public java.util.Map<String, Object> chunkStats() {
+        return aiService.getChunksWithoutArticleTitleStatistics();
+    }
+    
+    // 현재 저장소 스냅샷 버전과 크기
+    @GetMapping("/stats/store")
+    public java.util.Map<String, Object> storeStats() {
+        return aiService.getStoreStatistics();
+    }
+    
+    // Ollama 호출 입장 제어 현황 (처리 중/대기 중 요청 수, 누적 거절 수)
+    @GetMapping("/stats/ollama")
+    public java.util.Map<String, Object> ollamaStats() {
+        return aiService.getOllamaStatistics();
+    }
+    
+    // 답변 캐시 적중률 (정확/의미 일치, 만료/삭제 수)
+    @GetMapping("/stats/cache")
+    public java.util.Map<String, Object> cacheStats() {
+        return aiService.getCacheStatistics();
+    }
+    
+    // 벡터 저장 방식별 메모리 절감량과 재현율 영향
+    @GetMapping("/stats/vectors")
+    public java.util.Map<String, Object> vectorStats(
+            @RequestParam(defaultValue = "100") int queries,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        return aiService.getVectorStorageStatistics(queries, k);
+    }
+    
+    // HNSW 인덱스 재현율/지연 시간 보고서 (efSearch 튜닝용)
+    @GetMapping("/stats/hnsw")
+    public java.util.Map<String, Object> hnswStats(
+            @RequestParam(defaultValue = "100") int queries,
+            @RequestParam(defaultValue = "10") int k
+    ) {
+        return aiService.evaluateHnsw(queries, k);
+    }
 
 }
@@ -1,6 +1,7 @@
 package com.example.cwmAi.Controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.UrlResource;
@@ -15,31 +16,46 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.example.cwmAi.Service.aiService;
+import com.example.cwmAi.Service.indexJobService;
+import com.example.cwmAi.dto.ai_DTO.indexJobDTO;
 
 import jakarta.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 // 응답을 위한 간단한 DTO 클래스 (UploadResponse.java 파일로 별도 생성 권장)
 class UploadResponse {
     public String status;
     public String message;
+    public String jobId; // 색인 작업 ID (진행 상황 조회용, 실패 시 null)
     public UploadResponse(String status, String message) {
         this.status = status;
         this.message = message;
     }
+    public UploadResponse(String status, String message, String jobId) {
+        this(status, message);
+        this.jobId = jobId;
+    }
 }
 
 @Controller
@@ -47,9 +63,19 @@ public class uploadController {
     @Autowired
     private aiService aiService;
     
+    @Autowired
+    private indexJobService indexJobService;
+    
     @Autowired
     private ResourceLoader resourceLoader;
     
+    // ZIP 일괄 업로드 압축 해제 한도 (압축 폭탄 방지): 항목 하나 / ZIP 하나 전체 (바이트)
+    @Value("${cwmai.upload.zip-max-entry-bytes:209715200}")
+    private long zipMaxEntryBytes;
+    
+    @Value("${cwmai.upload.zip-max-total-bytes:1073741824}")
+    private long zipMaxTotalBytes;
+    
     // JAR 파일 실행 위치 기준 상대 경로 (uploads 폴더)
     private static final String UPLOAD_DIR;
     private static final String FILE_DIR;
@@ -185,17 +211,194 @@ public class uploadController {
             if (!uploadDir.exists()) uploadDir.mkdirs();
 
             String filename = StringUtils.cleanPath(file.getOriginalFilename());
-            File dest = Paths.get(uploadDir.getPath(), filename).toFile();
-            file.transferTo(dest);
-            // 업로드 완료 후 메모리 저장소를 최신 상태로 갱신
-            aiService.reloadCategory(category);
-            return new UploadResponse("success", "파일 업로드 성공: " + filename);
+            try (InputStream in = file.getInputStream()) {
+                saveUpload(in, uploadDir.toPath(), filename);
+            }
+            // 파일 저장 후 바로 응답하고, 색인은 작업 대기열에서 처리 (진행 상황은 작업 ID로 조회)
+            indexJobDTO job = indexJobService.submit(category, List.of(filename));
+            return new UploadResponse("success", "파일 업로드 성공: " + filename, job.getJobId());
         } catch (IOException e) {
             e.printStackTrace();
             return new UploadResponse("error", "파일 업로드 실패: " + e.getMessage());
         }
     }
 
+    // 여러 파일 / ZIP 일괄 업로드
+    // - ZIP은 메모리에 올리지 않고 항목을 하나씩 읽어 uploads/<category>/에 바로 저장 (폴더 구조는 무시)
+    // - 모두 저장한 뒤 색인 작업 하나로 한 번에 반영하고, 파일별 청크 수는 작업 상태에서 조회
+    @PostMapping("/upload/bulk")
+    @ResponseBody
+    public UploadResponse uploadBulk(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam("category") String category,
+            jakarta.servlet.http.HttpServletRequest request
+    ) {
+        // admin 체크
+        String userId = (String) request.getAttribute("userId");
+        if (userId == null || !"admin".equals(userId)) {
+            return new UploadResponse("error", "권한이 없습니다. 관리자만 파일을 업로드할 수 있습니다.");
+        }
+        if (files == null || files.stream().allMatch(MultipartFile::isEmpty)) {
+            return new UploadResponse("error", "업로드할 파일이 없습니다.");
+        }
+        Path uploadDir = (category == null || category.isBlank())
+                ? Paths.get(UPLOAD_DIR)
+                : Paths.get(UPLOAD_DIR, category);
+        Set<String> saved = new LinkedHashSet<>();
+        List<String> skipped = new ArrayList<>();
+        try {
+            Files.createDirectories(uploadDir);
+            for (MultipartFile file : files) {
+                if (file.isEmpty()) {
+                    continue;
+                }
+                String originalFilename = file.getOriginalFilename();
+                String filename = originalFilename == null ? null
+                        : StringUtils.getFilename(StringUtils.cleanPath(originalFilename));
+                if (filename == null || filename.isEmpty()) {
+                    skipped.add("(이름 없는 파일)");
+                    continue;
+                }
+                if (filename.toLowerCase().endsWith(".zip")) {
+                    try (InputStream in = file.getInputStream()) {
+                        extractZip(in, uploadDir, saved, skipped);
+                    }
+                    continue;
+                }
+                // ZIP 항목과 같은 기준으로 거른다.
+                if (!isAllowedUploadName(filename)) {
+                    skipped.add(filename);
+                    continue;
+                }
+                if (saved.contains(filename)) {
+                    skipped.add(filename + " (같은 이름의 파일이 이미 있음)");
+                    continue;
+                }
+                try (InputStream in = file.getInputStream()) {
+                    saveUpload(in, uploadDir, filename);
+                    saved.add(filename);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new UploadResponse("error", "파일 업로드 실패: " + e.getMessage());
+        }
+        if (saved.isEmpty()) {
+            return new UploadResponse("error", "업로드할 수 있는 파일이 없습니다. (제외: " + skipped.size() + "개)");
+        }
+        indexJobDTO job = indexJobService.submit(category, new ArrayList<>(saved));
+        String message = "파일 " + saved.size() + "개 업로드 성공"
+                + (skipped.isEmpty() ? "" : " (제외: " + String.join(", ", skipped) + ")");
+        return new UploadResponse("success", message, job.getJobId());
+    }
+
+    /**
+     * ZIP 항목을 하나씩 읽어 업로드 폴더에 저장한다.
+     * 폴더 구조는 무시하고 파일명만 사용하며, 허용 확장자가 아니거나 숨김 파일이면 제외한다.
+     * - 폴더를 무시하여 이름이 겹치는 항목은 먼저 나온 것만 저장한다.
+     * - 압축을 푼 크기가 항목 한도를 넘으면 그 항목을 제외하고, ZIP 전체 한도를 넘으면 나머지 항목을 모두 제외한다.
+     */
+    void extractZip(InputStream in, Path uploadDir, Set<String> saved, List<String> skipped) throws IOException {
+        long remainingBytes = zipMaxTotalBytes;
+        // UTF-8 플래그가 없는 항목은 바이트 그대로 읽어 두고 decodeEntryName에서 문자셋을 판별한다.
+        try (ZipInputStream zip = new ZipInputStream(in, StandardCharsets.ISO_8859_1)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String entryName = decodeEntryName(entry.getName()).replace('\\', '/');
+                String filename = entryName.substring(entryName.lastIndexOf('/') + 1);
+                if (entryName.startsWith("__MACOSX/") || !isAllowedUploadName(filename)) {
+                    skipped.add(entryName);
+                    continue;
+                }
+                if (saved.contains(filename)) {
+                    skipped.add(entryName + " (같은 이름의 파일이 이미 있음)");
+                    continue;
+                }
+                long limit = Math.min(zipMaxEntryBytes, remainingBytes);
+                long written = saveUpload(zip, uploadDir, filename, limit);
+                if (written >= 0) {
+                    remainingBytes -= written;
+                    saved.add(filename);
+                } else if (limit < zipMaxEntryBytes) {
+                    skipped.add(entryName + " 및 이후 항목 (압축 해제 크기가 ZIP 전체 한도 " + zipMaxTotalBytes + "바이트 초과)");
+                    System.err.println("[업로드] ZIP 전체 압축 해제 한도 초과, 나머지 항목 제외: " + entryName);
+                    return;
+                } else {
+                    skipped.add(entryName + " (압축 해제 크기가 항목 한도 " + zipMaxEntryBytes + "바이트 초과)");
+                }
+            }
+        }
+    }
+
+    /**
+     * ZIP 항목 이름의 문자셋을 판별한다.
+     * - UTF-8 플래그가 있는 항목은 이미 UTF-8로 읽혀 있다. (0xFF보다 큰 문자 포함)
+     * - 플래그가 없으면 UTF-8(리눅스/macOS 압축)로 시도하고, 아니면 CP949(윈도우 압축 프로그램)로 읽는다.
+     */
+    static String decodeEntryName(String name) {
+        if (name.chars().anyMatch(c -> c > 0xFF)) {
+            return name;
+        }
+        byte[] bytes = name.getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            return new String(bytes, Charset.forName("MS949"));
+        }
+    }
+
+    /**
+     * 업로드 스트림을 숨김 임시 파일에 쓴 뒤 원자적으로 이름을 바꾼다.
+     * (디렉터리 감시가 쓰는 중인 파일을 적재하지 않도록 함)
+     */
+    private void saveUpload(InputStream in, Path uploadDir, String filename) throws IOException {
+        saveUpload(in, uploadDir, filename, Long.MAX_VALUE);
+    }
+
+    /**
+     * maxBytes까지만 저장한다. 넘으면 쓰던 임시 파일을 지우고 대상 파일은 건드리지 않는다.
+     * @return 저장한 바이트 수, 한도를 넘었으면 -1
+     */
+    private long saveUpload(InputStream in, Path uploadDir, String filename, long maxBytes) throws IOException {
+        Path dest = uploadDir.resolve(filename).normalize();
+        if (!dest.getParent().equals(uploadDir.normalize())) {
+            throw new IOException("잘못된 파일명: " + filename);
+        }
+        Path temp = uploadDir.resolve("." + filename + ".part");
+        try {
+            long written = 0;
+            byte[] buffer = new byte[1 << 16];
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    written += read;
+                    if (written > maxBytes) {
+                        return -1;
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 업로드 파일 색인 작업 진행 상황 (단계, 처리한 파일/페이지 수, 만들어진 청크 수, 파일별 청크 수)
+    @GetMapping("/upload/jobs/{jobId}")
+    @ResponseBody
+    public ResponseEntity<indexJobDTO> uploadJobStatus(@PathVariable String jobId) {
+        indexJobDTO job = indexJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(job);
+    }
+
     // [수정] Thymeleaf 뷰 반환 엔드포인트
     @GetMapping("/files")
     public String listFiles(Model model) {
@@ -336,8 +539,8 @@ public class uploadController {
         File file = new File(baseDir, filename);
         if (file.exists() && file.isFile()) {
             if (file.delete()) {
-                // 파일 삭제 후 메모리 저장소를 최신 상태로 갱신
-                aiService.reloadCategory(category);
+                // 파일 삭제 후 해당 파일의 청크만 메모리 저장소에서 제거
+                aiService.removeFile(category, filename);
                 return "삭제 성공: " + filename;
             } else {
                 return "삭제 실패: " + filename;
@@ -383,6 +586,11 @@ public class uploadController {
         }
     }
 
+    // 일괄 업로드에서 저장할 파일명: 숨김 파일이 아니고 허용 확장자
+    private boolean isAllowedUploadName(String filename) {
+        return !filename.isEmpty() && !filename.startsWith(".") && hasAllowedExtension(filename);
+    }
+
     // 업로드 및 조회 시 허용할 파일 확장자 체크
     private boolean hasAllowedExtension(String name) {
         String lower = name.toLowerCase();
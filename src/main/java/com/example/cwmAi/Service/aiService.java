@@ -3,19 +3,34 @@ package com.example.cwmAi.Service;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.example.cwmAi.Config.AnswerCache;
 import com.example.cwmAi.Config.ChatRequest;
+import com.example.cwmAi.Config.ChunkEmbedder;
+import com.example.cwmAi.Config.ContextPacker;
 import com.example.cwmAi.Config.DocumentChunker;
+import com.example.cwmAi.Config.ExtractedTextCache;
+import com.example.cwmAi.Config.OllamaAdmission;
+import com.example.cwmAi.Config.OllamaProfiles;
+import com.example.cwmAi.Config.PdfTextNormalizer;
+import com.example.cwmAi.Config.SingleFlight;
+import com.example.cwmAi.Config.StoreSnapshot;
 import com.example.cwmAi.Config.VectorStoreInMemory;
 import com.example.cwmAi.dto.ai_DTO.aiResponseDTO;
 import com.example.cwmAi.dto.ai_DTO.chunkDTO;
 import com.example.cwmAi.dto.ai_DTO.messageDTO;
 import com.example.cwmAi.dto.ai_DTO.responseDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+import com.example.cwmAi.dto.ai_DTO.indexJobDTO;
+import com.example.cwmAi.dto.ai_DTO.sourceFileDTO;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -23,14 +38,30 @@ import reactor.netty.http.client.HttpClient;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service("aiService")
@@ -41,6 +72,14 @@ public class aiService {
      ========================= */
     private static final String OLLAMA_BASE_URL = "http://localhost:11434/api";
     private static final String MODEL_NAME = "qwen3:4b-instruct-2507-q4_K_M";
+    private static final String NO_ARTICLE_ANSWER = "관련 조항을 찾을 수 없습니다.";
+    // 모델 답변이 아닌 안내 문구의 시작 (답변 캐시에 저장하지 않음)
+    private static final String OLLAMA_ERROR_PREFIX = "AI 호출 중 오류 발생: ";
+    private static final String AI_RESPONSE_ERROR_PREFIX = "AI 응답";
+    private static final String BUSY_ANSWER_PREFIX = "현재 질문이 많아 답변할 수 없습니다.";
+    // 스트리밍 응답의 줄마다 쓰는 JSON 파서 (스레드 안전)
+    private static final com.fasterxml.jackson.databind.ObjectMapper OBJECT_MAPPER =
+            new com.fasterxml.jackson.databind.ObjectMapper();
     // JAR 파일 실행 위치 기준 상대 경로 (uploads 폴더)
     private static final String UPLOAD_DIR;
     
@@ -57,20 +96,126 @@ public class aiService {
     private final WebClient webClient;
     private final DocumentChunker documentChunker;
     private final VectorStoreInMemory vectorStore;
+    private final ExtractedTextCache textCache;
+    // 단계별 Ollama 생성 설정 (options, format, keep_alive)
+    private final OllamaProfiles ollamaProfiles;
+    // Ollama 동시 호출 제한과 대기열 (2단계 우선)
+    private final OllamaAdmission ollamaAdmission;
+    /* =========================
+       동일 질문 병합 (single-flight)
+       - 정규화한 질문 + 카테고리 + 파일 선택 + 저장소 버전이 같은 요청이 동시에 들어오면 모델 호출 하나를 함께 받는다.
+     ========================= */
+    private final SingleFlight<String, List<String>> titleFlights = new SingleFlight<>("1단계 조항 추천");
+    private final SingleFlight<String, aiResponseDTO> stage1EventFlights = new SingleFlight<>("1단계 조항 추천(스트림)");
+    private final SingleFlight<String, aiResponseDTO> answerEventFlights = new SingleFlight<>("2단계 답변");
+    
+    /* =========================
+       답변 캐시
+       - 1단계 추천 조항과 2단계 답변을 질문(정확 일치/임베딩 의미 일치)으로 재사용한다.
+       - 저장소 버전이 바뀌면 비운다.
+     ========================= */
+    private final AnswerCache<List<String>> titleCache;
+    private final AnswerCache<String> answerCache;
+    // 파일 추출/청킹/임베딩 작업 스레드 수
+    private final int ingestThreads;
+    
+    // PDF 추출/정규화 로직(extractTextFromPdf)이 바뀌면 올린다. (추출 텍스트 캐시 키와 인덱스 파일 헤더에 포함)
+    private static final int PDF_EXTRACTOR_VERSION = 1;
+    // PDF를 몇 페이지씩 나누어 추출/정규화할지 (0이면 문서 전체를 한 번에)
+    private final int pdfPageWindow;
+    // PDFBox 문서 버퍼를 힙 대신 임시 파일에 둘지 여부
+    private final boolean pdfTempFileBuffer;
     
     // 카테고리별 청크 ID 카운터 (예: "공제사업" -> 1, "개인정보보호" -> 1)
     private final Map<String, Integer> categoryChunkCounter = new HashMap<>();
 
+    /* =========================
+       1단계 방식
+       - llm: 조항 이름 목록을 모델에 보내 추천받음 (모델 호출 2회)
+       - retrieval: BM25 + 임베딩 검색 순위를 RRF로 합쳐 프로세스 안에서 추천 (모델 호출 1회)
+     ========================= */
+    public static final String STAGE1_MODE_LLM = "llm";
+    public static final String STAGE1_MODE_RETRIEVAL = "retrieval";
+    // RRF 상수 (순위 r의 점수 = 1 / (RRF_K + r))
+    private static final int RRF_K = 60;
+    private final String stage1Mode;
+    // 검색 방식별로 가져올 후보 청크 수
+    private final int retrievalDepth;
+    // 검색 방식에서 추천할 최대 조항 수 (LLM 방식의 2~7개와 맞춤)
+    private final int retrievalMaxArticles;
+
+    /* =========================
+       2단계 항/호 선택 (계층 검색)
+       - 긴 조항은 질문과 관련된 항/호만 조항 머리말과 함께 프롬프트에 넣는다.
+     ========================= */
+    private final boolean paragraphSelection;
+    // 조항(또는 항)마다 남길 최대 항/호 수
+    private final int answerMaxParts;
+    // 이 길이(자) 미만의 조항/항은 나누지 않고 전문을 넣는다.
+    private final int answerMinSplitLength;
+    // 2단계 프롬프트(시스템 메시지 + 조문 + 질문)의 추정 토큰 예산
+    private final int promptTokenBudget;
+    // 추천 조항이 참조하는 같은 법령의 조항(1단계)을 예산 안에서 덧붙일지 여부와 최대 개수
+    private final boolean referenceExpansion;
+    private final int maxReferencedArticles;
+
     /* =========================
        생성자
      ========================= */
     public aiService(
             WebClient.Builder webClientBuilder,
             DocumentChunker documentChunker,
-            VectorStoreInMemory vectorStore
+            VectorStoreInMemory vectorStore,
+            ExtractedTextCache textCache,
+            OllamaProfiles ollamaProfiles,
+            OllamaAdmission ollamaAdmission,
+            ChunkEmbedder embedder,
+            @Value("${cwmai.ingest.threads:0}") int ingestThreads,
+            @Value("${cwmai.pdf.page-window:16}") int pdfPageWindow,
+            @Value("${cwmai.pdf.temp-file-buffer:true}") boolean pdfTempFileBuffer,
+            @Value("${cwmai.stage1.mode:llm}") String stage1Mode,
+            @Value("${cwmai.stage1.retrieval-depth:30}") int retrievalDepth,
+            @Value("${cwmai.stage1.max-articles:7}") int retrievalMaxArticles,
+            @Value("${cwmai.answer.paragraph-selection:true}") boolean paragraphSelection,
+            @Value("${cwmai.answer.max-parts:3}") int answerMaxParts,
+            @Value("${cwmai.answer.min-split-length:600}") int answerMinSplitLength,
+            @Value("${cwmai.answer.prompt-token-budget:3000}") int promptTokenBudget,
+            @Value("${cwmai.answer.reference-expansion:true}") boolean referenceExpansion,
+            @Value("${cwmai.answer.max-referenced-articles:3}") int maxReferencedArticles,
+            @Value("${cwmai.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${cwmai.cache.max-entries:500}") int cacheMaxEntries,
+            @Value("${cwmai.cache.ttl-ms:3600000}") long cacheTtlMs,
+            @Value("${cwmai.cache.semantic-threshold:0}") double cacheSemanticThreshold
     ) {
         this.documentChunker = documentChunker;
         this.vectorStore = vectorStore;
+        this.textCache = textCache;
+        this.ollamaProfiles = ollamaProfiles;
+        this.ollamaAdmission = ollamaAdmission;
+        // 0 이하이면 CPU 코어 수만큼 사용
+        this.ingestThreads = ingestThreads > 0 ? ingestThreads : Runtime.getRuntime().availableProcessors();
+        this.pdfPageWindow = Math.max(0, pdfPageWindow);
+        this.pdfTempFileBuffer = pdfTempFileBuffer;
+        this.stage1Mode = STAGE1_MODE_RETRIEVAL.equalsIgnoreCase(stage1Mode) ? STAGE1_MODE_RETRIEVAL : STAGE1_MODE_LLM;
+        this.retrievalDepth = Math.max(1, retrievalDepth);
+        this.retrievalMaxArticles = Math.max(1, retrievalMaxArticles);
+        this.paragraphSelection = paragraphSelection;
+        this.answerMaxParts = Math.max(1, answerMaxParts);
+        this.answerMinSplitLength = Math.max(0, answerMinSplitLength);
+        this.promptTokenBudget = Math.max(1, promptTokenBudget);
+        this.referenceExpansion = referenceExpansion;
+        this.maxReferencedArticles = Math.max(0, maxReferencedArticles);
+        this.titleCache = cacheEnabled
+                ? new AnswerCache<>("1단계 조항 추천", cacheMaxEntries, cacheTtlMs, cacheSemanticThreshold, embedder) : null;
+        this.answerCache = cacheEnabled
+                ? new AnswerCache<>("2단계 답변", cacheMaxEntries, cacheTtlMs, cacheSemanticThreshold, embedder) : null;
+        System.out.println("=== 1단계 방식: " + this.stage1Mode + " ===");
+        if (ollamaProfiles.getNumCtx() > 0
+                && this.promptTokenBudget + ollamaProfiles.getStage2NumPredict() > ollamaProfiles.getNumCtx()) {
+            System.err.println("[설정] 2단계 프롬프트 토큰 예산(" + this.promptTokenBudget + ") + 생성 길이("
+                    + ollamaProfiles.getStage2NumPredict() + ")가 num_ctx(" + ollamaProfiles.getNumCtx()
+                    + ")를 넘어 프롬프트 앞부분이 잘릴 수 있습니다.");
+        }
 
         HttpClient httpClient = HttpClient.create()
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 30000)  // 연결 타임아웃 30초
@@ -96,10 +241,22 @@ public class aiService {
      */
     public void loadAllDocuments() {
         System.out.println("=== 전체 문서 초기 로딩 시작 ===");
-        vectorStore.clearChunk();
-        categoryChunkCounter.clear(); // 카운터 초기화
-        readAndChunkUploadedFiles(null); // category=null → 최상위 uploads 전체
-        System.out.println("=== 전체 문서 초기 로딩 완료. 청크 수: " + vectorStore.getSize() + " ===");
+        if (vectorStore.restoreIndexFile(PDF_EXTRACTOR_VERSION)) {
+            // 인덱스 파일 복원 시에는 기존 청크 ID 다음 번호부터 이어서 부여하고,
+            // 저장 이후 바뀐 업로드 파일만 다시 적재한다.
+            restoreChunkCounters();
+            syncUploadedFiles(null);
+        } else {
+            // 추출/청킹/임베딩을 마친 뒤 새 스냅샷을 따로 만들어 한 번에 교체한다.
+            List<IngestedFile> prepared = readAndChunkUploadedFiles(null); // category=null → 최상위 uploads 전체
+            vectorStore.rebuild(builder -> {
+                categoryChunkCounter.clear(); // 카운터 초기화
+                commitIngestedFiles(prepared, builder);
+                return null;
+            });
+        }
+        System.out.println("=== 전체 문서 초기 로딩 완료. 청크 수: " + vectorStore.getSize()
+                + ", 임베딩 수: " + vectorStore.getEmbeddedSize() + " ===");
         
         // 조항 이름이 없는 청크 점검
         checkChunksWithoutArticleTitle();
@@ -142,6 +299,20 @@ public class aiService {
         return vectorStore.getChunksWithoutArticleTitleStatistics();
     }
     
+    /**
+     * 질문과 임베딩 유사도가 높은 청크를 조회한다.
+     */
+    public List<scoredChunkDTO> searchSimilarChunks(String query, String category, List<String> fileNames, int topK) {
+        return vectorStore.searchSimilar(query, category, fileNames, topK);
+    }
+    
+    /**
+     * 질문과 BM25 어휘 점수가 높은 청크를 조회한다.
+     */
+    public List<scoredChunkDTO> searchLexicalChunks(String query, String category, List<String> fileNames, int topK) {
+        return vectorStore.searchLexical(query, category, fileNames, topK);
+    }
+    
     /**
      * 모든 청크의 필수 필드를 검증한다.
      */
@@ -197,18 +368,305 @@ public class aiService {
     }
 
     /**
-     * 특정 카테고리의 문서만 다시 읽어 청킹 후 메모리 저장소에 반영한다.
-     * - 이미 메모리에 로딩된 기존 청크 중 해당 카테고리와 관련된 것만 비우는
-     *   정교한 구현도 가능하지만, 현재는 간단하게 전체 초기화를 선택.
+     * 업로드 디렉터리와 저장소의 원본 파일 목록을 비교하여 바뀐 파일만 반영한다.
+     * - 새 파일: 추출/청킹 후 추가
+     * - 바뀐 파일(크기/수정 시각이 다르고 SHA-256도 다름): 기존 청크 제거 후 다시 추가
+     * - 없어진 파일: 청크 제거
+     * 그대로인 파일의 청크와 청크 ID는 유지되며, 바뀐 것이 없으면 새 스냅샷을 게시하지 않는다.
+     * 현재 스냅샷과 비교하고 추출/청킹/임베딩하는 동안은 저장소를 잠그지 않으며, 결과를 반영할 때만 잠근다.
+     * @param category 비교할 카테고리 (null이면 uploads 전체)
+     * @return 추가/변경/삭제된 파일 경로 목록
+     */
+    public Map<String, List<String>> syncUploadedFiles(String category) {
+        Path uploadRoot = Paths.get(UPLOAD_DIR);
+        boolean allCategories = category == null || category.isBlank();
+        Path scanRoot = allCategories ? uploadRoot : uploadRoot.resolve(category);
+        String scope = allCategories ? "" : category + "/";
+
+        List<Path> files = new ArrayList<>();
+        if (Files.exists(scanRoot)) {
+            try (Stream<Path> paths = Files.walk(scanRoot)) {
+                paths.filter(Files::isRegularFile)
+                        .filter(path -> !path.getFileName().toString().startsWith("."))
+                        .sorted()
+                        .forEach(files::add);
+            } catch (IOException e) {
+                System.err.println("업로드 디렉토리 접근 실패: " + e.getMessage());
+                return new LinkedHashMap<>();
+            }
+        }
+
+        Map<String, sourceFileDTO> indexed = vectorStore.snapshot().getSources();
+        List<String> added = new ArrayList<>();
+        List<String> updated = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        List<Path> toIngest = new ArrayList<>();
+        List<sourceFileDTO> touched = new ArrayList<>();
+        Set<String> present = new HashSet<>();
+        for (Path file : files) {
+            String path = sourcePath(uploadRoot, file);
+            present.add(path);
+            sourceFileDTO source = indexed.get(path);
+            if (source == null) {
+                added.add(path);
+                toIngest.add(file);
+            } else if (isChanged(source, file, touched)) {
+                updated.add(path);
+                toIngest.add(file);
+            }
+        }
+        for (String path : indexed.keySet()) {
+            if (path.startsWith(scope) && !present.contains(path)) {
+                removed.add(path);
+            }
+        }
+        List<IngestedFile> prepared = ingestFiles(toIngest, uploadRoot, null);
+
+        Map<String, List<String>> changes = vectorStore.update(builder -> {
+            refreshSources(builder, touched);
+            // 비교한 뒤 다시 생긴 파일은 지우지 않는다.
+            removed.removeIf(path -> Files.exists(uploadRoot.resolve(path)));
+            for (String path : removed) {
+                removeIndexedFile(builder, path);
+            }
+            commitIngestedFiles(prepared, builder);
+
+            Map<String, List<String>> result = new LinkedHashMap<>();
+            result.put("added", added);
+            result.put("updated", updated);
+            result.put("removed", removed);
+            return result;
+        });
+        System.out.println("[증분 적재] " + (allCategories ? "전체" : category) + " - 추가 " + changes.get("added").size()
+                + ", 변경 " + changes.get("updated").size() + ", 삭제 " + changes.get("removed").size()
+                + " (청크 수: " + vectorStore.getSize() + ")");
+        return changes;
+    }
+
+    /**
+     * 크기/수정 시각이 같으면 그대로인 것으로 보고, 다르면 SHA-256으로 확인한다.
+     * 내용은 같고 수정 시각만 바뀐 파일은 갱신할 원본 파일 정보를 touched에 담는다.
+     */
+    private boolean isChanged(sourceFileDTO source, Path file, List<sourceFileDTO> touched) {
+        try {
+            long size = Files.size(file);
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            if (size == source.getSize() && lastModified == source.getLastModified()) {
+                return false;
+            }
+            String sha256 = sha256(file);
+            if (!sha256.equals(source.getSha256())) {
+                return true;
+            }
+            touched.add(new sourceFileDTO(source.getPath(), size, lastModified, sha256, source.getChunkIds()));
+            return false;
+        } catch (IOException e) {
+            System.err.println("[증분 적재] 파일 확인 실패, 다시 적재합니다: " + file + " - " + e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 내용은 같고 수정 시각만 바뀐 파일의 원본 파일 정보를 갱신한다.
+     * (비교한 뒤 다른 작업이 다시 적재했으면 그 정보를 유지)
+     */
+    private static void refreshSources(StoreSnapshot builder, List<sourceFileDTO> touched) {
+        for (sourceFileDTO source : touched) {
+            sourceFileDTO current = builder.getSources().get(source.getPath());
+            if (current != null && source.getSha256().equals(current.getSha256())) {
+                builder.putSource(new sourceFileDTO(source.getPath(), source.getSize(), source.getLastModified(),
+                        source.getSha256(), current.getChunkIds()));
+            }
+        }
+    }
+
+    /**
+     * 원본 파일 목록에 기록된 청크 ID로 파일의 청크를 제거한다.
+     * @return 제거된 청크 수
+     */
+    private int removeIndexedFile(StoreSnapshot builder, String path) {
+        sourceFileDTO source = builder.getSources().get(path);
+        if (source == null) {
+            return 0;
+        }
+        builder.removeSource(path);
+        return builder.removeChunks(source.getChunkIds());
+    }
+
+    /**
+     * 저장소의 청크 ID("카테고리#번호")에서 카테고리별 마지막 번호를 다시 계산한다.
+     */
+    private void restoreChunkCounters() {
+        categoryChunkCounter.clear();
+        for (chunkDTO chunk : vectorStore.getAllChunks()) {
+            String chunkId = chunk.getChunkId();
+            int separator = chunkId == null ? -1 : chunkId.lastIndexOf('#');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                int chunkNumber = Integer.parseInt(chunkId.substring(separator + 1));
+                categoryChunkCounter.merge(chunkId.substring(0, separator), chunkNumber, Math::max);
+            } catch (NumberFormatException e) {
+                // 형식이 다른 ID는 건너뜀
+            }
+        }
+    }
+
+    /**
+     * uploads 기준 상대 경로 ('/' 구분)
+     */
+    private static String sourcePath(Path uploadRoot, Path file) {
+        return uploadRoot.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+
+    private static sourceFileDTO describeSource(Path uploadRoot, Path file) throws IOException {
+        return new sourceFileDTO(sourcePath(uploadRoot, file), Files.size(file),
+                Files.getLastModifiedTime(file).toMillis(), sha256(file), List.of());
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 특정 카테고리의 문서 중 바뀐 파일만 다시 읽어 청킹 후 메모리 저장소에 반영한다.
+     * - 다른 카테고리와 바뀌지 않은 파일의 청크/청크 ID는 그대로 유지된다.
+     * - 재로딩이 끝날 때까지 검색은 이전 스냅샷을 그대로 사용한다.
      */
     public void reloadCategory(String category) {
         System.out.println("=== 카테고리 재로딩 시작: " + category + " ===");
-        vectorStore.clearChunk();
-        categoryChunkCounter.clear(); // 카운터 초기화
-        readAndChunkUploadedFiles(null); // 단순화를 위해 전체 다시 로딩
+        syncUploadedFiles(category);
         System.out.println("=== 카테고리 재로딩 완료. 청크 수: " + vectorStore.getSize() + " ===");
     }
     
+    /**
+     * 같은 카테고리에 업로드된 여러 파일을 한 번의 저장소 갱신으로 적재한다.
+     * 같은 경로의 파일이 이미 있으면 기존 청크를 교체한다.
+     * (디렉터리 감시가 먼저 같은 내용을 적재한 파일은 다시 적재하지 않는다.)
+     * 추출/청킹/임베딩은 저장소 잠금 밖에서 하므로 다른 적재/삭제 작업을 막지 않는다.
+     * @param progress 진행 상황을 기록할 작업 (없으면 null)
+     * @return 파일명 → 그 파일에서 만들어진 청크 수 (fileNames 순서)
+     */
+    public Map<String, Integer> indexUploadedFiles(String category, List<String> fileNames, indexJobDTO progress) {
+        Path uploadRoot = Paths.get(UPLOAD_DIR);
+        Path directory = (category == null || category.isBlank()) ? uploadRoot : uploadRoot.resolve(category);
+        Map<String, sourceFileDTO> sources = vectorStore.snapshot().getSources();
+        List<Path> toIngest = new ArrayList<>();
+        List<sourceFileDTO> touched = new ArrayList<>();
+        for (String fileName : fileNames) {
+            Path file = directory.resolve(fileName);
+            sourceFileDTO indexed = sources.get(sourcePath(uploadRoot, file));
+            if (indexed == null || isChanged(indexed, file, touched)) {
+                toIngest.add(file);
+            } else if (progress != null) {
+                progress.fileProcessed(indexed.getChunkIds().size());
+            }
+        }
+        List<IngestedFile> prepared = ingestFiles(toIngest, uploadRoot, progress);
+        setStage(progress, indexJobDTO.STAGE_INDEXING);
+
+        Map<String, Integer> chunkCounts = vectorStore.update(builder -> {
+            refreshSources(builder, touched);
+            commitIngestedFiles(prepared, builder);
+
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            for (String fileName : fileNames) {
+                sourceFileDTO source = builder.getSources().get(sourcePath(uploadRoot, directory.resolve(fileName)));
+                counts.put(fileName, source == null ? 0 : source.getChunkIds().size());
+            }
+            return counts;
+        });
+        int total = chunkCounts.values().stream().mapToInt(Integer::intValue).sum();
+        System.out.println("=== 파일 적재 완료: " + (category == null || category.isBlank() ? "(최상위)" : category)
+                + " 파일 " + fileNames.size() + "개 (" + total + "개), 전체 청크 수: " + vectorStore.getSize() + " ===");
+        return chunkCounts;
+    }
+    
+    /**
+     * 삭제된 파일의 청크만 메모리 저장소와 인덱스에서 제거한다.
+     * - 다른 파일의 청크와 청크 ID는 그대로 유지된다.
+     */
+    public void removeFile(String category, String fileName) {
+        String fileCategory = (category == null || category.isBlank()) ? "" : category;
+        String path = fileCategory.isEmpty() ? fileName : fileCategory + "/" + fileName;
+        int removed = vectorStore.update(builder -> removeIndexedFile(builder, path));
+        System.out.println("=== 파일 청크 제거 완료: " + fileName + " (" + removed + "개), 남은 청크 수: "
+                + vectorStore.getSize() + " ===");
+    }
+    
+    /**
+     * 현재 저장소 스냅샷의 버전과 크기를 반환한다.
+     */
+    public Map<String, Object> getStoreStatistics() {
+        StoreSnapshot snapshot = vectorStore.snapshot();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("version", snapshot.getVersion());
+        stats.put("chunks", snapshot.getSize());
+        stats.put("embeddedChunks", snapshot.getEmbeddedSize());
+        stats.put("subChunks", snapshot.getSubChunkCount());
+        return stats;
+    }
+    
+    /**
+     * 답변 캐시 적중률 (1단계 추천 조항, 2단계 답변)
+     */
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", titleCache != null);
+        if (titleCache != null) {
+            stats.put("stage1", titleCache.getStatistics());
+            stats.put("stage2", answerCache.getStatistics());
+        }
+        return stats;
+    }
+    
+    /**
+     * Ollama 호출 입장 제어 현황 (처리 중/대기 중 요청 수, 누적 거절 수)
+     */
+    public Map<String, Object> getOllamaStatistics() {
+        Map<String, Object> stats = ollamaAdmission.getStatistics();
+        long started = 0;
+        long joined = 0;
+        int inFlight = 0;
+        for (SingleFlight<String, ?> flights : List.of(titleFlights, stage1EventFlights, answerEventFlights)) {
+            started += flights.getStartedCount();
+            joined += flights.getJoinedCount();
+            inFlight += flights.getInFlightCount();
+        }
+        stats.put("coalescedStarted", started);
+        stats.put("coalescedJoined", joined);
+        stats.put("coalescedInFlight", inFlight);
+        return stats;
+    }
+    
+    /**
+     * HNSW 인덱스의 efSearch별 재현율/지연 시간 보고서를 반환한다.
+     */
+    public Map<String, Object> evaluateHnsw(int queryCount, int k) {
+        return vectorStore.evaluateHnsw(queryCount, k);
+    }
+    
+    /**
+     * 벡터 저장 방식(FLOAT/INT8/PQ)의 메모리 절감량과 재현율 영향을 반환한다.
+     */
+    public Map<String, Object> getVectorStorageStatistics(int queryCount, int k) {
+        return vectorStore.getVectorStorageStatistics(queryCount, k);
+    }
+    
     /**
      * chunkId를 포함한 새로운 청크를 생성한다.
      */
@@ -232,8 +690,15 @@ public class aiService {
        2단계: 사용자 질문 + 추천받은 조항 이름의 실제 청크 내용 → 최종 답변
      ========================= */
     public Mono<String> askModel(String userPrompt, String category) {
+        return askModel(userPrompt, category, null);
+    }
+    
+    /**
+     * @param mode 1단계 방식 ("llm" 또는 "retrieval", null이면 설정값 사용)
+     */
+    public Mono<String> askModel(String userPrompt, String category, String mode) {
         // 1단계: 조항 이름 추천 (파일 선택 없이 전체 파일 사용)
-        return recommendArticleTitles(userPrompt, category, null)
+        return recommendArticleTitles(userPrompt, category, null, mode)
                 .flatMap(recommendedTitles -> {
                     if (recommendedTitles == null || recommendedTitles.isEmpty()) {
                         return Mono.just("해당 분야의 관련 조항을 찾을 수 없습니다. 보다 정확한 법률 용어로 다시 질문해주세요.");
@@ -241,44 +706,179 @@ public class aiService {
                     
                     // 2단계: 추천받은 조항 이름으로 실제 청크 조회 후 최종 답변
                     return generateFinalAnswer(userPrompt, recommendedTitles, category);
-                });
+                })
+                .onErrorResume(OllamaAdmission.BusyException.class, e -> Mono.just(busyAnswer(e)));
     }
     
     /**
-     * 단계별 상태를 SSE로 전달하는 메서드
+     * 단계별 상태와 답변 조각을 SSE로 전달하는 메서드
+     * - stage1 → stage2(추천 조항) → answer(답변 조각, 여러 번) → completed(전체 답변)
      */
     public Flux<aiResponseDTO> askModelWithStages(String userPrompt, String category) {
+        return askModelWithStages(userPrompt, category, null, null);
+    }
+    
+    public Flux<aiResponseDTO> askModelWithStages(String userPrompt, String category, String mode) {
+        return askModelWithStages(userPrompt, category, null, mode);
+    }
+    
+    /**
+     * @param fileNames 선택된 파일명 리스트 (null이면 모든 파일)
+     * @param mode 1단계 방식 ("llm" 또는 "retrieval", null이면 설정값 사용)
+     */
+    public Flux<aiResponseDTO> askModelWithStages(String userPrompt, String category, List<String> fileNames, String mode) {
         // 1단계 시작
-        Mono<aiResponseDTO> stage1Start = Mono.just(new aiResponseDTO("stage1", "관련 조항을 찾는 중입니다...", null, null));
+        aiResponseDTO stage1Start = new aiResponseDTO("stage1", "관련 조항을 찾는 중입니다...", null, null);
         
-        // 1단계: 조항 이름 추천 (한 번만 실행되도록 cache, 파일 선택 없이 전체 파일 사용)
-        Mono<List<String>> recommendedTitlesMono = recommendArticleTitles(userPrompt, category, null).cache();
+        // 1단계: 조항 이름 추천 (모델 방식은 대기열을 거치며 대기 순서를 알린다.)
+        // 추천 결과는 stage가 없는 이벤트에 담아 다음 단계로 넘긴다.
+        Flux<aiResponseDTO> stage1Events = Flux.defer(() -> {
+            long storeVersion = vectorStore.snapshot().getVersion();
+            AnswerCache.Lookup<List<String>> cached = titleCache == null ? null
+                    : titleCache.lookup(stage1Scope(category, fileNames, mode), userPrompt, storeVersion);
+            if (cached != null && cached.isHit()) {
+                return Flux.just(recommendedArticlesEvent(cached.getValue()));
+            }
+            Flux<aiResponseDTO> events;
+            if (STAGE1_MODE_RETRIEVAL.equals(resolveStage1Mode(mode))) {
+                events = Mono.fromCallable(() -> recommendedArticlesEvent(
+                        recommendArticleTitlesByRetrieval(userPrompt, category, fileNames))).flux();
+            } else {
+                // 같은 질문이 진행 중이면 그 호출의 대기 순서/추천 결과를 함께 받는다.
+                events = stage1EventFlights.run(stage1FlightKey(userPrompt, category, fileNames),
+                        () -> ollamaAdmission.run(OllamaAdmission.Priority.STAGE1,
+                                () -> recommendArticleTitlesByModel(userPrompt, category, fileNames).map(this::recommendedArticlesEvent),
+                                position -> queueEvent(position, stage1Start)));
+            }
+            return events.doOnNext(event -> {
+                if (cached != null && event.getStage() == null && isCacheableTitles(event.getRecommendedArticles())) {
+                    titleCache.put(cached, event.getRecommendedArticles());
+                }
+            });
+        });
         
         // 1단계 완료 후 2단계 시작 및 최종 답변 생성
-        Flux<aiResponseDTO> stage2AndFinal = recommendedTitlesMono
-            .flatMapMany(recommendedTitles -> {
-                if (recommendedTitles == null || recommendedTitles.isEmpty()) {
-                    return Mono.just(new aiResponseDTO("completed", null, null, 
-                        "해당 분야의 관련 조항을 찾을 수 없습니다. 보다 정확한 법률 용어로 다시 질문해주세요."));
+        Flux<aiResponseDTO> stages = stage1Events.concatMap(event -> {
+            if (event.getStage() != null) {
+                return Mono.just(event);
+            }
+            List<String> recommendedTitles = event.getRecommendedArticles();
+            if (recommendedTitles == null || recommendedTitles.isEmpty()) {
+                return Mono.just(new aiResponseDTO("completed", null, null, 
+                    "해당 분야의 관련 조항을 찾을 수 없습니다. 보다 정확한 법률 용어로 다시 질문해주세요."));
+            }
+            
+            // 2단계 시작
+            aiResponseDTO stage2Start = stage2StartEvent(recommendedTitles);
+            
+            // 최종 답변 생성: 생성되는 대로 조각을 보낸 뒤 끝나면 전체 답변을 보낸다.
+            // 캐시에 있으면 전체 답변을 조각 하나로 바로 보낸다.
+            StringBuilder answer = new StringBuilder();
+            Flux<aiResponseDTO> answerDeltas = Flux.defer(() -> {
+                long storeVersion = vectorStore.snapshot().getVersion();
+                AnswerCache.Lookup<String> cached = answerCache == null ? null
+                        : answerCache.lookup(stage2Scope(recommendedTitles, category), userPrompt, storeVersion);
+                if (cached != null && cached.isHit()) {
+                    answer.append(cached.getValue());
+                    return Flux.just(aiResponseDTO.answerDelta(cached.getValue()));
                 }
-                
-                // 2단계 시작
-                Mono<aiResponseDTO> stage2Start = Mono.just(new aiResponseDTO("stage2", 
-                    "관련조항을 바탕으로 답변을 생성중입니다! 조금만 기다려주세요!", 
-                    recommendedTitles, null));
-                
-                // 최종 답변 생성
-                Mono<aiResponseDTO> finalAnswer = generateFinalAnswer(userPrompt, recommendedTitles, category)
-                    .map(answer -> new aiResponseDTO("completed", null, recommendedTitles, answer));
-                
-                // 2단계 시작과 최종 답변을 순차적으로 연결
-                return Flux.concat(stage2Start, finalAnswer);
+                return finalAnswerEvents(userPrompt, recommendedTitles, category)
+                    .doOnNext(answerEvent -> {
+                        if ("answer".equals(answerEvent.getStage())) {
+                            answer.append(answerEvent.getDelta());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (cached != null && isCacheableAnswer(answer.toString())) {
+                            answerCache.put(cached, answer.toString());
+                        }
+                    });
             });
+            Mono<aiResponseDTO> finalAnswer = Mono.fromSupplier(() ->
+                new aiResponseDTO("completed", null, recommendedTitles, answer.toString()));
+            
+            // 2단계 시작, (대기 순서,) 답변 조각, 최종 답변을 순차적으로 연결
+            return Flux.concat(Mono.just(stage2Start), answerDeltas, finalAnswer);
+        });
         
-        return Flux.concat(stage1Start, stage2AndFinal)
+        return Flux.concat(Mono.just(stage1Start), stages)
+            .onErrorResume(OllamaAdmission.BusyException.class, e ->
+                Mono.just(new aiResponseDTO("completed", e.getMessage(), null, busyAnswer(e))))
             .filter(dto -> dto != null && dto.getStage() != null);
     }
     
+    private static aiResponseDTO stage2StartEvent(List<String> recommendedTitles) {
+        return new aiResponseDTO("stage2", "관련조항을 바탕으로 답변을 생성중입니다! 조금만 기다려주세요!", 
+                recommendedTitles, null);
+    }
+    
+    /**
+     * 2단계 답변 이벤트 (대기 순서, 답변 조각)
+     * - 진행 중인 대화이므로 새 질문보다 먼저 모델을 호출한다.
+     * - 같은 질문/조항의 답변이 생성 중이면 그 스트림을 처음부터 함께 받는다.
+     */
+    private Flux<aiResponseDTO> finalAnswerEvents(String userPrompt, List<String> recommendedTitles, String category) {
+        aiResponseDTO stage2Start = stage2StartEvent(recommendedTitles);
+        return answerEventFlights.run(answerFlightKey(userPrompt, recommendedTitles, category),
+                () -> ollamaAdmission.run(OllamaAdmission.Priority.STAGE2,
+                        () -> requestFinalAnswerStream(userPrompt, recommendedTitles, category).map(aiResponseDTO::answerDelta),
+                        position -> queueEvent(position, stage2Start)));
+    }
+    
+    // 1단계 캐시 범위: 방식 + 카테고리 + 파일 선택
+    private String stage1Scope(String category, List<String> fileNames, String mode) {
+        String files = fileNames == null || fileNames.isEmpty() ? "*" : fileNames.stream().sorted().collect(Collectors.joining(","));
+        return resolveStage1Mode(mode) + "|" + category + "|" + files;
+    }
+    
+    // 2단계 캐시 범위: 카테고리 + 추천 조항 (프롬프트가 같아지는 조건)
+    private static String stage2Scope(List<String> recommendedTitles, String category) {
+        return category + "|" + String.join(",", recommendedTitles);
+    }
+    
+    // 1단계 병합 키: 저장소 버전 + 카테고리 + 파일 선택 + 정규화한 질문
+    private String stage1FlightKey(String userPrompt, String category, List<String> fileNames) {
+        return vectorStore.snapshot().getVersion() + "|" + stage1Scope(category, fileNames, STAGE1_MODE_LLM)
+                + "|" + AnswerCache.normalizeQuestion(userPrompt);
+    }
+    
+    // 2단계 병합 키: 저장소 버전 + 카테고리 + 추천 조항 + 정규화한 질문
+    private String answerFlightKey(String userPrompt, List<String> recommendedTitles, String category) {
+        return vectorStore.snapshot().getVersion() + "|" + stage2Scope(recommendedTitles, category)
+                + "|" + AnswerCache.normalizeQuestion(userPrompt);
+    }
+    
+    // 추천 조항이 없으면 (모델 호출/파싱 실패 포함) 캐시하지 않는다.
+    static boolean isCacheableTitles(List<String> titles) {
+        return titles != null && !titles.isEmpty();
+    }
+    
+    // 오류/대기열 안내 문구는 캐시하지 않는다.
+    static boolean isCacheableAnswer(String answer) {
+        return answer != null && !answer.isBlank()
+                && !answer.startsWith(AI_RESPONSE_ERROR_PREFIX)
+                && !answer.startsWith(BUSY_ANSWER_PREFIX)
+                && !answer.contains(OLLAMA_ERROR_PREFIX);
+    }
+    
+    // 1단계 추천 결과를 다음 단계로 넘기는 이벤트 (stage 없음, 클라이언트로 보내지 않음)
+    private aiResponseDTO recommendedArticlesEvent(List<String> recommendedTitles) {
+        return new aiResponseDTO(null, null, recommendedTitles, null);
+    }
+    
+    // 대기 순서 알림, 대기 끝(0)에는 해당 단계의 시작 이벤트를 다시 보낸다.
+    private aiResponseDTO queueEvent(int position, aiResponseDTO stageStart) {
+        if (position == 0) {
+            return stageStart;
+        }
+        return aiResponseDTO.queued(position, "요청이 많아 대기 중입니다. (대기 순서 " + position + "번)");
+    }
+    
+    // 대기열이 가득 차 거절된 질문에 대한 안내
+    private static String busyAnswer(OllamaAdmission.BusyException e) {
+        return BUSY_ANSWER_PREFIX + " 잠시 후 다시 시도해주세요.\n" + e.getMessage();
+    }
+    
     /**
      * 1단계 질의: 사용자 질문과 해당 분야의 조항 이름 목록을 AI에 전달하여 관련 조항 이름을 추천받는다.
      * @param userPrompt 사용자 질문
@@ -287,6 +887,85 @@ public class aiService {
      * @return 추천받은 조항 이름 리스트 (3~10개)
      */
     public Mono<List<String>> recommendArticleTitles(String userPrompt, String category, List<String> fileNames) {
+        return recommendArticleTitles(userPrompt, category, fileNames, null);
+    }
+    
+    /**
+     * 1단계 질의를 지정한 방식으로 수행한다.
+     * @param mode "llm" 또는 "retrieval" (null이나 빈 값이면 설정값 cwmai.stage1.mode 사용)
+     */
+    public Mono<List<String>> recommendArticleTitles(String userPrompt, String category, List<String> fileNames, String mode) {
+        Supplier<Mono<List<String>>> loader;
+        if (STAGE1_MODE_RETRIEVAL.equals(resolveStage1Mode(mode))) {
+            loader = () -> Mono.fromCallable(() -> recommendArticleTitlesByRetrieval(userPrompt, category, fileNames));
+        } else {
+            loader = () -> titleFlights.run(stage1FlightKey(userPrompt, category, fileNames),
+                    ollamaAdmission.run(OllamaAdmission.Priority.STAGE1,
+                            () -> recommendArticleTitlesByModel(userPrompt, category, fileNames)));
+        }
+        if (titleCache == null) {
+            return Mono.defer(loader);
+        }
+        return Mono.defer(() -> titleCache.get(stage1Scope(category, fileNames, mode), userPrompt,
+                vectorStore.snapshot().getVersion(), loader, aiService::isCacheableTitles));
+    }
+    
+    // 요청에 지정한 1단계 방식 (null이나 빈 값이면 설정값)
+    private String resolveStage1Mode(String mode) {
+        return (mode == null || mode.isBlank()) ? stage1Mode : mode.trim().toLowerCase();
+    }
+    
+    /**
+     * 1단계 검색 방식: BM25 순위와 임베딩 순위를 RRF(Reciprocal Rank Fusion)로 합쳐
+     * 상위 청크의 조항 이름을 추천한다. 모델을 호출하지 않는다.
+     * @return 추천 조항 이름 리스트 (최대 retrievalMaxArticles개)
+     */
+    public List<String> recommendArticleTitlesByRetrieval(String userPrompt, String category, List<String> fileNames) {
+        long startTime = System.nanoTime();
+        // 두 검색이 같은 버전의 저장소를 보도록 스냅샷을 한 번만 가져온다.
+        StoreSnapshot snapshot = vectorStore.snapshot();
+        List<scoredChunkDTO> lexical = snapshot.searchLexical(userPrompt, category, fileNames, retrievalDepth);
+        List<scoredChunkDTO> semantic = snapshot.searchSimilar(userPrompt, category, fileNames, retrievalDepth);
+        
+        // 청크별 RRF 점수 합산 (두 순위 목록 중 어디에 있든 순위 점수를 더함)
+        Map<chunkDTO, Double> fused = new LinkedHashMap<>();
+        for (List<scoredChunkDTO> ranking : List.of(lexical, semantic)) {
+            for (int rank = 0; rank < ranking.size(); rank++) {
+                fused.merge(ranking.get(rank).getChunk(), 1.0 / (RRF_K + rank + 1), Double::sum);
+            }
+        }
+        List<Map.Entry<chunkDTO, Double>> ranked = new ArrayList<>(fused.entrySet());
+        ranked.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
+        
+        // 조항 이름 단위로 중복 제거
+        List<String> recommendedTitles = new ArrayList<>();
+        for (Map.Entry<chunkDTO, Double> entry : ranked) {
+            String articleTitle = entry.getKey().getArticleTitle();
+            if (articleTitle == null || articleTitle.trim().isEmpty() || recommendedTitles.contains(articleTitle)) {
+                continue;
+            }
+            recommendedTitles.add(articleTitle);
+            if (recommendedTitles.size() >= retrievalMaxArticles) {
+                break;
+            }
+        }
+        
+        System.out.println("========================================");
+        System.out.println("===== [1단계] 검색 기반 조항 추천 (RRF) =====");
+        System.out.println("========================================");
+        System.out.println("카테고리: " + (category != null ? category : "전체"));
+        System.out.println("선택된 파일: " + (fileNames != null && !fileNames.isEmpty() ? fileNames : "전체 파일"));
+        System.out.println("BM25 후보: " + lexical.size() + ", 임베딩 후보: " + semantic.size());
+        System.out.println("추천받은 조항 이름: " + recommendedTitles);
+        System.out.println("소요 시간: " + (System.nanoTime() - startTime) / 1_000_000.0 + "ms");
+        System.out.println("========================================\n");
+        return recommendedTitles;
+    }
+    
+    /**
+     * 1단계 모델 방식: 조항 이름 목록을 모델에 보내 관련 조항을 추천받는다.
+     */
+    private Mono<List<String>> recommendArticleTitlesByModel(String userPrompt, String category, List<String> fileNames) {
         // 선택된 파일의 청크에서만 조항 이름 추출
         Map<String, String> articleTitleToChunkId = vectorStore.getArticleTitlesByCategoryAndFiles(category, fileNames);
         
@@ -340,7 +1019,7 @@ public class aiService {
         
         messages.add(new messageDTO("user", userMessage));
         
-        ChatRequest requestBody = new ChatRequest(MODEL_NAME, messages);
+        ChatRequest requestBody = ollamaProfiles.stage1Request(MODEL_NAME, messages);
         
         // 1단계 요청 상세 로그
         System.out.println("========================================");
@@ -436,12 +1115,98 @@ public class aiService {
      * @return 최종 답변
      */
     public Mono<String> generateFinalAnswer(String userPrompt, List<String> recommendedTitles, String category) {
-        // 추천받은 조항 이름으로 실제 청크 조회
-        List<chunkDTO> relevantChunks = vectorStore.getChunksByArticleTitles(recommendedTitles, category);
+        // 스트리밍 질의와 같은 호출을 모아서 돌려준다. (같은 질문/조항의 답변이 생성 중이면 함께 받는다)
+        Supplier<Mono<String>> loader = () -> finalAnswerEvents(userPrompt, recommendedTitles, category)
+                .filter(event -> "answer".equals(event.getStage()))
+                .map(aiResponseDTO::getDelta)
+                .collect(Collectors.joining())
+                .map(answer -> answer.isEmpty() ? "AI 응답을 받지 못했습니다. (응답 내용이 비어있음)" : answer)
+                .onErrorResume(OllamaAdmission.BusyException.class, e -> Mono.just(busyAnswer(e)));
+        if (answerCache == null) {
+            return Mono.defer(loader);
+        }
+        return Mono.defer(() -> answerCache.get(stage2Scope(recommendedTitles, category), userPrompt,
+                vectorStore.snapshot().getVersion(), loader, aiService::isCacheableAnswer));
+    }
+    
+    /**
+     * 2단계 최종 답변을 Ollama 스트리밍 응답(NDJSON, 한 줄에 JSON 하나)으로 받아 생성되는 대로 내보낸다.
+     * - 첫 조각은 프롬프트 평가가 끝나자마자 나오므로 답변 전체 생성 시간을 기다리지 않는다.
+     * - 입장 제어는 하지 않는다. (finalAnswerEvents에서 OllamaAdmission을 거친다.)
+     * @return 답변 조각 (#, * 제거), 호출 오류 시 오류 안내 문구
+     */
+    private Flux<String> requestFinalAnswerStream(String userPrompt, List<String> recommendedTitles, String category) {
+        ChatRequest requestBody = buildFinalAnswerRequest(userPrompt, recommendedTitles, category);
+        if (requestBody == null) {
+            return Flux.just(NO_ARTICLE_ANSWER);
+        }
+        requestBody.setStream(true);
+        
+        long startTime = System.currentTimeMillis();
+        long[] firstTokenTime = new long[1];
+        StringBuilder answer = new StringBuilder();
+        return webClient.post()
+                .uri("/chat")
+                .header("Content-Type", "application/json")
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToFlux(String.class) // 줄 단위로 나뉘어 들어온다.
+                .concatMap(line -> {
+                    if (line.isBlank()) {
+                        return Mono.empty();
+                    }
+                    try {
+                        responseDTO response = OBJECT_MAPPER.readValue(line, responseDTO.class);
+                        if (response.getError() != null) {
+                            return Mono.error(new IllegalStateException(response.getError()));
+                        }
+                        String content = response.getContent();
+                        if (content == null || content.isEmpty()) {
+                            return Mono.empty();
+                        }
+                        return Mono.just(content.replace("#", "").replace("*", ""));
+                    } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+                        return Mono.error(e);
+                    }
+                })
+                .filter(token -> !token.isEmpty())
+                .doOnNext(token -> {
+                    if (firstTokenTime[0] == 0) {
+                        firstTokenTime[0] = System.currentTimeMillis();
+                        System.out.println("[2단계] 첫 토큰 수신: " + (firstTokenTime[0] - startTime) + "ms");
+                    }
+                    answer.append(token);
+                })
+                .doOnComplete(() -> {
+                    System.out.println("========================================");
+                    System.out.println("===== [2단계] 스트리밍 답변 완료 =====");
+                    System.out.println("첫 토큰: " + (firstTokenTime[0] == 0 ? "-" : (firstTokenTime[0] - startTime) + "ms")
+                            + ", 전체: " + (System.currentTimeMillis() - startTime) + "ms, 길이: " + answer.length() + "자");
+                    System.out.println("내용:");
+                    System.out.println(answer);
+                    System.out.println("==============================\n");
+                })
+                .onErrorResume(e -> {
+                    System.err.println("===== [2단계] Ollama 스트리밍 호출 오류 =====");
+                    e.printStackTrace();
+                    System.err.println("오류 메시지: " + e.getMessage());
+                    System.err.println("=======================");
+                    return Flux.just((answer.length() > 0 ? "\n\n" : "") + OLLAMA_ERROR_PREFIX + e.getMessage());
+                });
+    }
+    
+    /**
+     * 2단계 요청을 만든다. (조항 조회 → 항/호 선택 → 참조 조문 확장 → 토큰 예산 안에 담기)
+     * @return Ollama /chat 요청, 추천 조항에 해당하는 청크가 없으면 null
+     */
+    private ChatRequest buildFinalAnswerRequest(String userPrompt, List<String> recommendedTitles, String category) {
+        // 추천받은 조항 이름으로 실제 청크 조회 (항/호 선택도 같은 스냅샷에서)
+        StoreSnapshot snapshot = vectorStore.snapshot();
+        List<chunkDTO> relevantChunks = snapshot.getChunksByArticleTitles(recommendedTitles, category);
         
         if (relevantChunks.isEmpty()) {
             System.err.println("[2단계] 추천받은 조항 이름에 해당하는 청크를 찾을 수 없습니다.");
-            return Mono.just("관련 조항을 찾을 수 없습니다.");
+            return null;
         }
         
         System.out.println("[2단계] 추천받은 조항 이름에 해당하는 청크 수: " + relevantChunks.size());
@@ -465,33 +1230,76 @@ public class aiService {
         ));
         
         // 유저 메시지: 청크 내용 + 사용자 질문
-        StringBuilder contextBuilder = new StringBuilder();
-        contextBuilder.append("다음 법령 조문을 참고하여 질문에 한글로만 답변해주세요. 절대 영어를 사용하지 마세요:\n\n");
-        for (chunkDTO chunk : relevantChunks) {
-            contextBuilder
-                    .append("【")
-                    .append(chunk.getLawName())
-                    .append(" ")
-                    .append(chunk.getArticleNumber())
-                    .append(" ")
-                    .append(chunk.getArticleTitle())
-                    .append("】\n")
-                    .append(chunk.getText())
-                    .append("\n\n");
-        }
-        contextBuilder.append("\n질문: ").append(userPrompt);
+        String instruction = "다음 법령 조문을 참고하여 질문에 한글로만 답변해주세요. 절대 영어를 사용하지 마세요:\n\n";
+        String question = "\n질문: " + userPrompt;
+        
+        // 추천 조항이 본문에서 참조하는 조항을 예산이 남는 만큼 덧붙인다. (추천 조항을 모두 담은 뒤에 담기도록 뒤 단계로)
+        List<chunkDTO> candidateChunks = new ArrayList<>(relevantChunks);
+        if (referenceExpansion) {
+            candidateChunks.addAll(snapshot.getReferencedChunks(relevantChunks, maxReferencedArticles));
+        }
+        
+        // 조항별 본문을 만들고 질문과의 BM25 점수를 관련도로 사용한다.
+        // 참조 조항은 관련도를 매기지 않고 getReferencedChunks 순서(참조 수가 많은 순)대로 담는다.
+        double[] relevance = snapshot.scoreChunks(userPrompt, relevantChunks);
+        List<ContextPacker.Section> sections = new ArrayList<>();
+        int fullTextLength = 0;
+        int contextTextLength = 0;
+        for (int i = 0; i < candidateChunks.size(); i++) {
+            chunkDTO chunk = candidateChunks.get(i);
+            boolean referenced = i >= relevantChunks.size();
+            String articleText = paragraphSelection
+                    ? snapshot.getArticleContext(chunk, userPrompt, answerMaxParts, answerMinSplitLength)
+                    : chunk.getText();
+            fullTextLength += chunk.getText().length();
+            contextTextLength += articleText.length();
+            String header = "【" + chunk.getLawName() + " " + chunk.getArticleNumber() + " " + chunk.getArticleTitle()
+                    + (referenced ? " (참조 조문)" : "") + "】\n";
+            sections.add(referenced
+                    ? new ContextPacker.Section(header, articleText + "\n\n", ContextPacker.TIER_REFERENCED, 0)
+                    : new ContextPacker.Section(header, articleText + "\n\n", relevance[i]));
+        }
+        
+        // 시스템 메시지/지시문/질문을 뺀 나머지 예산 안에서 관련도 순으로 조항을 담는다.
+        int contextBudget = promptTokenBudget - ContextPacker.estimateTokens(messages.get(0).getContent())
+                - ContextPacker.estimateTokens(instruction) - ContextPacker.estimateTokens(question);
+        ContextPacker.Result packed = ContextPacker.pack(sections, Math.max(0, contextBudget));
+        
+        StringBuilder contextBuilder = new StringBuilder(instruction);
+        List<chunkDTO> packedChunks = new ArrayList<>();
+        int referencedCount = 0;
+        for (int i = 0; i < candidateChunks.size(); i++) {
+            String text = packed.getTexts().get(i);
+            if (text != null) {
+                contextBuilder.append(text);
+                packedChunks.add(candidateChunks.get(i));
+                if (i >= relevantChunks.size()) {
+                    referencedCount++;
+                }
+            }
+        }
+        contextBuilder.append(question);
         messages.add(new messageDTO("user", contextBuilder.toString()));
+        int promptTokens = ContextPacker.estimateTokens(messages.get(0).getContent())
+                + ContextPacker.estimateTokens(contextBuilder.toString());
         
-        ChatRequest requestBody = new ChatRequest(MODEL_NAME, messages);
+        ChatRequest requestBody = ollamaProfiles.stage2Request(MODEL_NAME, messages);
         
         // 2단계 요청 상세 로그
         System.out.println("========================================");
         System.out.println("===== [2단계] 최종 답변 생성 요청 =====");
         System.out.println("========================================");
-        System.out.println("사용된 청크 수: " + relevantChunks.size());
+        System.out.println("사용된 청크 수: " + packedChunks.size() + " / " + candidateChunks.size()
+                + " (참조 조문 " + referencedCount + "개 포함, 축약 " + packed.getTrimmedCount() + "개, 제외 "
+                + packed.getDroppedCount() + "개)");
+        if (paragraphSelection) {
+            System.out.println("항/호 선택: 조문 " + fullTextLength + "자 → " + contextTextLength + "자");
+        }
+        System.out.println("프롬프트 토큰(추정): " + promptTokens + " / 예산 " + promptTokenBudget
+                + " (조문 " + packed.getUsedTokens() + " / " + packed.getBudget() + ")");
         System.out.println("\n--- [2단계] 사용된 청크 정보 ---");
-        for (int i = 0; i < relevantChunks.size(); i++) {
-            chunkDTO chunk = relevantChunks.get(i);
+        for (int i = 0; i < packedChunks.size(); i++) {
+            chunkDTO chunk = packedChunks.get(i);
             System.out.println((i + 1) + ". " + chunk.getLawName() + " " + 
                 chunk.getArticleNumber() + " " + chunk.getArticleTitle() + 
                 " (청크ID: " + chunk.getChunkId() + ")");
@@ -505,85 +1313,13 @@ public class aiService {
         System.out.println(messages.get(1).getContent());
         System.out.println("========================================\n");
         
-        return webClient.post()
-                .uri("/chat")
-                .header("Content-Type", "application/json")
-                .bodyValue(requestBody)
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(rawResponse -> {
-                    // 2단계 응답 상세 로그
-                    System.out.println("========================================");
-                    System.out.println("===== [2단계] Ollama API 원본 응답 =====");
-                    System.out.println("========================================");
-                    System.out.println(rawResponse);
-                    System.out.println("========================================\n");
-                    
-                    // JSON 파싱: Ollama 응답에서 message.content만 추출
-                    try {
-                        com.fasterxml.jackson.databind.ObjectMapper mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                        responseDTO response = mapper.readValue(rawResponse, responseDTO.class);
-                        
-                        if (response == null) {
-                            System.err.println("[2단계] 응답 객체가 null입니다.");
-                            return "AI 응답을 받지 못했습니다.";
-                        }
-                        
-                        if (response.getMessage() == null) {
-                            System.err.println("[2단계] message 필드가 null입니다.");
-                            return "AI 응답을 받지 못했습니다. (message 필드 없음)";
-                        }
-                        
-                        // message.content만 추출 (thinking 필드는 무시됨)
-                        String content = response.getContent();
-                        
-                        if (content != null && !content.trim().isEmpty()) {
-                            // 가독성을 위해 #과 * 특수문자 제거
-                            String cleanedContent = content.replace("#", "").replace("*", "");
-                            
-                            System.out.println("--- [2단계] 최종 답변 (원본) ---");
-                            System.out.println("길이: " + content.length() + "자");
-                            System.out.println("내용:");
-                            System.out.println(content);
-                            System.out.println("\n--- [2단계] 최종 답변 (정제 후) ---");
-                            System.out.println("길이: " + cleanedContent.length() + "자");
-                            System.out.println("내용:");
-                            System.out.println(cleanedContent);
-                            System.out.println("==============================\n");
-                            return cleanedContent;
-                        }
-                        
-                        System.err.println("[2단계] content가 비어있거나 null입니다.");
-                        return "AI 응답을 받지 못했습니다. (응답 내용이 비어있음)";
-                    } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-                        System.err.println("===== [2단계] JSON 파싱 오류 =====");
-                        System.err.println("오류: " + e.getMessage());
-                        if (rawResponse != null && rawResponse.length() > 0) {
-                            System.err.println("원본 응답 (처음 500자): " + 
-                                rawResponse.substring(0, Math.min(500, rawResponse.length())));
-                        }
-                        e.printStackTrace();
-                        return "AI 응답 파싱 오류: " + e.getMessage();
-                    } catch (Exception e) {
-                        System.err.println("===== [2단계] 예상치 못한 오류 =====");
-                        System.err.println("오류: " + e.getMessage());
-                        e.printStackTrace();
-                        return "AI 응답 처리 중 오류 발생: " + e.getMessage();
-                    }
-                })
-                .onErrorResume(e -> {
-                    System.err.println("===== [2단계] Ollama API 호출 오류 =====");
-                    e.printStackTrace();
-                    System.err.println("오류 메시지: " + e.getMessage());
-                    System.err.println("=======================");
-                    return Mono.just("AI 호출 중 오류 발생: " + e.getMessage() + "\n\n확인 사항:\n1. Ollama 서버가 실행 중인지 확인 (ollama serve)\n2. 모델이 설치되어 있는지 확인 (ollama list)\n3. 포트 11434가 사용 가능한지 확인");
-                });
+        return requestBody;
     }
 
     /* =========================
        파일 로딩 & 청킹 (카테고리별 디렉토리 기준)
      ========================= */
-    private void readAndChunkUploadedFiles(String category) {
+    private List<IngestedFile> readAndChunkUploadedFiles(String category) {
         Path uploadPath;
 
         if (category == null || category.isBlank()) {
@@ -594,104 +1330,251 @@ public class aiService {
 
         if (!Files.exists(uploadPath)) {
             System.err.println("업로드 디렉토리 없음: " + uploadPath);
-            return;
+            return new ArrayList<>();
         }
         // 하위 폴더까지 모두 탐색해 업로드 파일을 읽는다.
+        // 청크 ID가 파일 순서에 따라 정해지므로 경로 순으로 정렬한다.
+        List<Path> files;
         try (Stream<Path> paths = Files.walk(uploadPath)) {
-            paths.filter(Files::isRegularFile)
+            files = paths.filter(Files::isRegularFile)
                     .filter(path -> !path.getFileName().toString().startsWith("."))
-                    .forEach(filePath -> {
-                        String fileName = filePath.getFileName().toString().toLowerCase();
-                        String content = "";
-                        try {
-                            if (fileName.endsWith(".txt")) {
-                                content = Files.readString(filePath);
-                            } else if (fileName.endsWith(".pdf")) {
-                                content = extractTextFromPdf(filePath.toFile());
-                            }
-
-                            if (!content.isBlank()) {
-                                // 파일 경로에서 카테고리 추출
-                                String fileCategory = extractCategoryFromPath(filePath, uploadPath);
-                                List<chunkDTO> chunks =
-                                        documentChunker.chunkText(fileName, content, fileCategory);
-                                for (chunkDTO chunk : chunks) {
-                                    // 카테고리별 청크 ID 부여
-                                    String categoryForId = (chunk.getCategory() != null && !chunk.getCategory().isBlank()) 
-                                        ? chunk.getCategory() : "기타";
-                                    int chunkNumber = categoryChunkCounter.getOrDefault(categoryForId, 0) + 1;
-                                    categoryChunkCounter.put(categoryForId, chunkNumber);
-                                    String chunkId = categoryForId + "#" + chunkNumber;
-                                    
-                                    // chunkId를 포함한 새로운 청크 생성
-                                    chunkDTO chunkWithId = createChunkWithId(chunk, chunkId);
-                                    vectorStore.addChunk(chunkWithId);
-                                }
-                            }
-                        } catch (Exception e) {
-                            System.err.println("파일 처리 실패: " + fileName);
-                            e.printStackTrace();
-                        }
-                    });
+                    .sorted()
+                    .collect(Collectors.toList());
         } catch (IOException e) {
             System.err.println("업로드 디렉토리 접근 실패");
             e.printStackTrace();
+            return new ArrayList<>();
+        }
+        return ingestFiles(files, uploadPath, null);
+    }
+
+    /**
+     * 파일 적재 파이프라인 (준비 단계, 저장소 잠금 밖에서 실행)
+     * - 작업 스레드(최대 ingestThreads개)에서 해시 계산 → 텍스트 추출 → 청킹 → 임베딩을 병렬로 수행
+     * - 진행 중인 파일 수를 스레드 수의 2배로 제한한다.
+     * 결과는 commitIngestedFiles()로 저장소 잠금 안에서 짧게 반영한다.
+     * @param progress 진행 상황을 기록할 작업 (없으면 null)
+     * @return files와 같은 순서의 처리 결과
+     */
+    private List<IngestedFile> ingestFiles(List<Path> files, Path basePath, indexJobDTO progress) {
+        List<IngestedFile> prepared = new ArrayList<>(files.size());
+        if (files.isEmpty()) {
+            return prepared;
+        }
+        long startTime = System.currentTimeMillis();
+        int threads = Math.min(ingestThreads, files.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ingest-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Deque<Future<IngestedFile>> pending = new ArrayDeque<>();
+            int next = 0;
+            while (next < files.size() || !pending.isEmpty()) {
+                while (next < files.size() && pending.size() < threads * 2) {
+                    Path filePath = files.get(next++);
+                    pending.add(workers.submit(() -> ingestFile(filePath, basePath, progress)));
+                }
+                IngestedFile file = pending.poll().get();
+                reportIngestedFile(file, progress);
+                prepared.add(file);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("파일 적재가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            // ingestFile은 예외를 결과에 담아 반환하므로 여기까지 오지 않는다.
+            throw new IllegalStateException("파일 적재 실패", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        System.out.println("[적재] 파일 " + files.size() + "개 처리 (" + threads + "스레드, "
+                + (System.currentTimeMillis() - startTime) + "ms)");
+        return prepared;
+    }
+
+    /**
+     * 파일 하나를 추출/청킹/임베딩한다. (작업 스레드에서 실행, 공유 상태를 수정하지 않음)
+     */
+    private IngestedFile ingestFile(Path filePath, Path basePath, indexJobDTO progress) {
+        String fileName = filePath.getFileName().toString().toLowerCase();
+        IngestedFile result = new IngestedFile(filePath, fileName);
+        try {
+            // 인덱스 파일 재사용 여부 판단을 위해 원본 파일 정보 기록
+            result.source = describeSource(Paths.get(UPLOAD_DIR), filePath);
+            String content = "";
+            setStage(progress, indexJobDTO.STAGE_EXTRACTING);
+            if (fileName.endsWith(".txt")) {
+                content = Files.readString(filePath);
+            } else if (fileName.endsWith(".pdf")) {
+                content = extractTextFromPdfCached(filePath.toFile(), result.source.getSha256(), progress);
+            }
+
+            if (!content.isBlank()) {
+                // 파일 경로에서 카테고리 추출
+                String fileCategory = extractCategoryFromPath(filePath, basePath);
+                setStage(progress, indexJobDTO.STAGE_CHUNKING);
+                result.chunks = documentChunker.chunkText(fileName, content, fileCategory);
+                // 임베딩 텍스트에는 청크 ID가 들어가지 않으므로 ID 부여 전에 계산해 둔다.
+                setStage(progress, indexJobDTO.STAGE_EMBEDDING);
+                result.embeddings = vectorStore.embedChunks(result.chunks);
+            }
+        } catch (Exception e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    private static void setStage(indexJobDTO progress, String stage) {
+        if (progress != null) {
+            progress.setStage(stage);
+        }
+    }
+
+    /**
+     * 처리를 마친 파일의 오류/진행 상황을 기록한다. (호출 스레드에서 파일 순서대로 실행)
+     */
+    private static void reportIngestedFile(IngestedFile file, indexJobDTO progress) {
+        if (file.error != null) {
+            System.err.println("파일 처리 실패: " + file.fileName);
+            file.error.printStackTrace();
+            if (progress != null) {
+                progress.addError(file.fileName + ": " + file.error.getMessage());
+                progress.fileProcessed(0);
+            }
+            return;
+        }
+        if (progress != null) {
+            progress.fileProcessed(file.chunks.size());
+        }
+    }
+
+    /**
+     * 준비된 파일들을 파일 순서대로 빌더에 반영한다. (저장소 잠금 안의 커밋 단계)
+     * - 준비하는 동안 삭제된 파일은 반영하지 않는다.
+     * - 다른 작업이 같은 내용을 먼저 반영한 파일은 건너뛴다.
+     * - 그 밖에는 같은 경로의 기존 청크를 제거한 뒤 추가한다.
+     */
+    private void commitIngestedFiles(List<IngestedFile> files, StoreSnapshot builder) {
+        for (IngestedFile file : files) {
+            if (file.source == null || !Files.exists(file.filePath)) {
+                continue;
+            }
+            sourceFileDTO current = builder.getSources().get(file.source.getPath());
+            if (current != null && current.getSha256().equals(file.source.getSha256())) {
+                continue;
+            }
+            removeIndexedFile(builder, file.source.getPath());
+            commitIngestedFile(file, builder);
+        }
+    }
+
+    /**
+     * 추출 결과에 카테고리별 청크 ID를 부여하고 빌더에 추가한다.
+     */
+    private void commitIngestedFile(IngestedFile file, StoreSnapshot builder) {
+        // 처리에 실패한 파일도 기록하여 파일이 바뀌기 전까지 다시 시도하지 않는다.
+        builder.putSource(file.source);
+        if (file.error != null || file.chunks.isEmpty()) {
+            return;
+        }
+        List<chunkDTO> chunksWithId = new ArrayList<>(file.chunks.size());
+        List<String> chunkIds = new ArrayList<>(file.chunks.size());
+        for (chunkDTO chunk : file.chunks) {
+            // 카테고리별 청크 ID 부여
+            String categoryForId = (chunk.getCategory() != null && !chunk.getCategory().isBlank()) 
+                ? chunk.getCategory() : "기타";
+            int chunkNumber = categoryChunkCounter.getOrDefault(categoryForId, 0) + 1;
+            categoryChunkCounter.put(categoryForId, chunkNumber);
+            String chunkId = categoryForId + "#" + chunkNumber;
+            
+            // chunkId를 포함한 새로운 청크 생성
+            chunkDTO chunkWithId = createChunkWithId(chunk, chunkId);
+            chunksWithId.add(chunkWithId);
+            chunkIds.add(chunkId);
+        }
+        // 파일 단위로 빌더에 추가 (임베딩은 작업 스레드에서 계산됨)
+        builder.addChunks(chunksWithId, file.embeddings);
+        sourceFileDTO source = file.source;
+        builder.putSource(new sourceFileDTO(source.getPath(), source.getSize(), source.getLastModified(),
+                source.getSha256(), chunkIds));
+    }
+
+    /**
+     * 작업 스레드의 파일 처리 결과
+     */
+    private static final class IngestedFile {
+        private final Path filePath;
+        private final String fileName;
+        private sourceFileDTO source;
+        private List<chunkDTO> chunks = new ArrayList<>();
+        private List<float[]> embeddings;
+        private Exception error;
+
+        private IngestedFile(Path filePath, String fileName) {
+            this.filePath = filePath;
+            this.fileName = fileName;
         }
     }
 
     /* =========================
        PDF 처리
      ========================= */
-    private String extractTextFromPdf(File file) throws IOException {
-        try (PDDocument document = PDDocument.load(file)) {
+    /**
+     * 같은 내용의 PDF를 이미 추출한 적이 있으면 캐시된 텍스트를 사용하고,
+     * 없으면 PDFBox로 추출한 뒤 캐시에 저장한다.
+     * @param sha256 파일 내용 SHA-256 (캐시 키)
+     * @param progress 페이지 진행 상황을 기록할 작업 (없으면 null)
+     */
+    private String extractTextFromPdfCached(File file, String sha256, indexJobDTO progress) throws IOException {
+        String cached = textCache.get(sha256, PDF_EXTRACTOR_VERSION);
+        if (cached != null) {
+            return cached;
+        }
+        long startTime = System.currentTimeMillis();
+        String text = extractTextFromPdf(file, progress);
+        System.out.println("[PDF 추출] " + file.getName() + " (" + (System.currentTimeMillis() - startTime) + "ms)");
+        textCache.put(sha256, PDF_EXTRACTOR_VERSION, text);
+        return text;
+    }
 
-            PDFTextStripper stripper = new PDFTextStripper();
-            stripper.setSortByPosition(true); // ★ 필수
-            stripper.setStartPage(1);
-            stripper.setEndPage(document.getNumberOfPages());
-            String text = stripper.getText(document);
-
-            // 1.<10.0개정> 같은 편집 이력 제거
-            text = text.replaceAll("<[^>]+>", "");
-            // 2.페이지 머리글/바닥글 제거 (국가법령정보센터 계열)
-            text = text.replaceAll(
-                    "(?m)^.*(국가법령정보센터|법제처).*$", ""
-            );
-            // 3.쪽수만 있는 줄 제거
-            text = text.replaceAll("(?m)^\\s*\\d+\\s*$", "");
-            
-            // 4. 줄바꿈 정리: 조/장 경계를 보존하면서 문장 중간 줄바꿈은 공백으로 변환
-            // 조/장 패턴 앞의 줄바꿈은 유지하고, 나머지는 공백으로 변환
-            String[] lines = text.split("\\n");
-            StringBuilder cleanedText = new StringBuilder();
-            for (int i = 0; i < lines.length; i++) {
-                String line = lines[i].trim();
-                if (line.isEmpty()) {
-                    continue;
-                }
-                
-                // 조/장 패턴으로 시작하는 줄인지 확인
-                boolean isArticleOrChapterStart = line.matches("^\\s*제\\s*\\d+[장조].*") ||
-                                                  line.matches("^\\s*제\\s*\\d+조의\\d+.*");
-                
-                if (isArticleOrChapterStart && cleanedText.length() > 0) {
-                    // 조/장 시작 전에는 줄바꿈 유지
-                    cleanedText.append("\n").append(line);
-                } else {
-                    // 일반 줄은 공백으로 연결 (조항 내용이 여러 줄에 걸쳐 있을 때 유지)
-                    if (cleanedText.length() > 0 && !cleanedText.toString().endsWith("\n")) {
-                        cleanedText.append(" ");
+    /**
+     * PDF 텍스트를 추출하고 정규화한다.
+     * - 문서 버퍼는 임시 파일에 두고(MemoryUsageSetting), pdfPageWindow 페이지씩 추출한다.
+     * - 추출한 구간은 바로 정규화기(PdfTextNormalizer)에 넣으므로, 정규화 전 원문 전체를 들고 있지 않는다.
+     *   정규화기는 구간 경계와 관계없이 문서 전체를 한 번에 처리한 것과 같은 결과를 낸다.
+     */
+    private String extractTextFromPdf(File file, indexJobDTO progress) throws IOException {
+        MemoryUsageSetting memoryUsage = pdfTempFileBuffer
+                ? MemoryUsageSetting.setupTempFileOnly()
+                : MemoryUsageSetting.setupMainMemoryOnly();
+        try (PDDocument document = PDDocument.load(file, memoryUsage)) {
+
+            int pageCount = document.getNumberOfPages();
+            if (progress != null) {
+                progress.addPages(pageCount);
+            }
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void endPage(PDPage page) throws IOException {
+                    super.endPage(page);
+                    if (progress != null) {
+                        progress.pageProcessed();
                     }
-                    cleanedText.append(line);
                 }
+            };
+            stripper.setSortByPosition(true); // ★ 필수
+
+            int window = pdfPageWindow > 0 ? pdfPageWindow : Math.max(1, pageCount);
+            PdfTextNormalizer normalizer = new PdfTextNormalizer();
+            for (int startPage = 1; startPage <= pageCount; startPage += window) {
+                stripper.setStartPage(startPage);
+                stripper.setEndPage(Math.min(startPage + window - 1, pageCount));
+                normalizer.append(stripper.getText(document));
             }
-            text = cleanedText.toString();
-            
-            // 5. 연속 공백 정리
-            text = text.replaceAll("[ \\t]{2,}", " ");
-            // 6. 연속 개행 정리
-            text = text.replaceAll("\\n{3,}", "\n\n");
-            return text.trim();
+            return normalizer.finish();
         }
     }
 
@@ -0,0 +1,98 @@
+package com.example.cwmAi.Service;
+
+import com.example.cwmAi.dto.ai_DTO.indexJobDTO;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+public class indexJobService {
+
+    /* =========================
+       업로드 파일 색인 작업 대기열
+       - /upload는 파일 저장 후 작업 ID만 돌려주고, 색인은 전용 스레드 하나가 순서대로 처리한다.
+       - 작업 상태는 최근 cwmai.upload.job-history개까지 메모리에 보관한다.
+     ========================= */
+    private final aiService aiService;
+    private final ExecutorService executor;
+    private final Map<String, indexJobDTO> jobs;
+
+    public indexJobService(
+            aiService aiService,
+            @Value("${cwmai.upload.job-history:200}") int jobHistory
+    ) {
+        this.aiService = aiService;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "index-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int maxJobs = Math.max(1, jobHistory);
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, indexJobDTO> eldest) {
+                return size() > maxJobs;
+            }
+        };
+    }
+
+    /**
+     * 저장된 업로드 파일들의 색인 작업을 대기열에 넣는다. 파일들은 한 번의 저장소 갱신으로 반영된다.
+     * @param fileNames 카테고리 폴더에 저장된 파일명
+     * @return 접수된 작업 (작업 ID로 진행 상황 조회)
+     */
+    public indexJobDTO submit(String category, List<String> fileNames) {
+        indexJobDTO job = new indexJobDTO(UUID.randomUUID().toString(), category, fileNames);
+        synchronized (jobs) {
+            jobs.put(job.getJobId(), job);
+        }
+        executor.execute(() -> run(job));
+        return job;
+    }
+
+    /**
+     * @return 작업 상태, 없거나 보관 기간이 지났으면 null
+     */
+    public indexJobDTO getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    private void run(indexJobDTO job) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, Integer> chunkCounts = aiService.indexUploadedFiles(job.getCategory(), job.getFileNames(), job);
+            job.setFileChunkCounts(chunkCounts);
+            job.setFinishedAt(System.currentTimeMillis());
+            // 파일별 추출/청킹 실패는 적재 파이프라인이 작업에 사유를 기록한다. 모두 실패한 경우만 작업 실패로 본다.
+            List<String> errors = job.getErrors();
+            if (!errors.isEmpty() && errors.size() >= job.getTotalFiles()) {
+                job.setStage(indexJobDTO.STAGE_FAILED);
+                return;
+            }
+            job.setStage(indexJobDTO.STAGE_DONE);
+            System.out.println("[색인 작업] " + job.getJobId() + " 완료: 파일 " + job.getTotalFiles() + "개 (청크 "
+                    + job.getChunksProduced() + "개, 실패 " + errors.size() + "개, "
+                    + (job.getFinishedAt() - startTime) + "ms)");
+        } catch (RuntimeException e) {
+            job.setMessage(e.getMessage());
+            job.setFinishedAt(System.currentTimeMillis());
+            job.setStage(indexJobDTO.STAGE_FAILED);
+            System.err.println("[색인 작업] " + job.getJobId() + " 실패: " + job.getFileNames() + " - " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
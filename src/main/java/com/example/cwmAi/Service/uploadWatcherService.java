@@ -0,0 +1,199 @@
+package com.example.cwmAi.Service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class uploadWatcherService {
+
+    /* =========================
+       업로드 디렉터리 감시
+       - uploads와 카테고리 하위 폴더를 WatchService로 감시한다.
+       - 생성/수정/삭제 이벤트가 이어지는 동안은 모아 두었다가,
+         디바운스 시간 동안 새 이벤트가 없으면 증분 적재를 한 번만 실행한다.
+       - rsync/스크립트로 넣은 파일도 재시작 없이 검색에 반영된다.
+     ========================= */
+    private final aiService aiService;
+    private final boolean enabled;
+    // 마지막 이벤트 후 이 시간 동안 조용하면 적재
+    private final long debounceMillis;
+    // 이벤트가 계속 들어와도 첫 이벤트 후 이 시간이 지나면 적재
+    private final long maxDelayMillis;
+    private final Path uploadRoot;
+
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public uploadWatcherService(
+            aiService aiService,
+            @Value("${cwmai.watch.enabled:true}") boolean enabled,
+            @Value("${cwmai.watch.debounce-ms:2000}") long debounceMillis,
+            @Value("${cwmai.watch.max-delay-ms:30000}") long maxDelayMillis
+    ) {
+        this.aiService = aiService;
+        this.enabled = enabled;
+        this.debounceMillis = Math.max(1, debounceMillis);
+        this.maxDelayMillis = Math.max(this.debounceMillis, maxDelayMillis);
+        this.uploadRoot = new File("uploads").getAbsoluteFile().toPath();
+    }
+
+    /**
+     * 감시 스레드를 시작한다. (초기 적재가 끝난 뒤 1회 호출)
+     */
+    public synchronized void start() {
+        if (!enabled || watcherThread != null) {
+            return;
+        }
+        try {
+            Files.createDirectories(uploadRoot);
+            watchService = FileSystems.getDefault().newWatchService();
+            registerTree(uploadRoot);
+        } catch (IOException e) {
+            System.err.println("[업로드 감시] 시작 실패: " + e.getMessage());
+            return;
+        }
+        watcherThread = new Thread(this::watchLoop, "upload-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        System.out.println("[업로드 감시] 시작: " + uploadRoot + " (디바운스 " + debounceMillis + "ms)");
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (watcherThread == null) {
+            return;
+        }
+        watcherThread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // 종료 중 닫기 실패는 무시
+        }
+        watcherThread = null;
+    }
+
+    /* =========================
+       감시 루프
+     ========================= */
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // 첫 이벤트까지 대기
+                WatchKey key = watchService.take();
+                // 이번 묶음에서 바뀐 카테고리 ("" = uploads 최상위, null = 전체 다시 비교)
+                Set<String> categories = new LinkedHashSet<>();
+                boolean fullScan = handleEvents(key, categories);
+                long firstEventAt = System.currentTimeMillis();
+
+                // 디바운스: 조용해지거나 최대 지연 시간이 될 때까지 이벤트를 모은다.
+                while (true) {
+                    long remaining = maxDelayMillis - (System.currentTimeMillis() - firstEventAt);
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    WatchKey next = watchService.poll(Math.min(debounceMillis, remaining), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    fullScan |= handleEvents(next, categories);
+                }
+
+                if (fullScan || categories.size() != 1 || categories.contains("")) {
+                    categories.clear();
+                    categories.add(null);
+                }
+                reindex(categories.iterator().next());
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 종료
+        }
+    }
+
+    /**
+     * 키에 쌓인 이벤트를 꺼내 바뀐 카테고리를 모으고 키를 다시 감시 상태로 돌린다.
+     * @return 이벤트 유실(OVERFLOW)이나 감시 폴더 변경으로 전체 비교가 필요하면 true
+     */
+    private boolean handleEvents(WatchKey key, Set<String> categories) {
+        Path directory = watchedDirectories.get(key);
+        boolean fullScan = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || directory == null) {
+                fullScan = true;
+                continue;
+            }
+            Path changed = directory.resolve((Path) event.context());
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                // 새 폴더: 감시를 추가한다. 등록 전에 들어온 파일은 이어지는 비교에서 함께 반영된다.
+                try {
+                    registerTree(changed);
+                } catch (IOException e) {
+                    System.err.println("[업로드 감시] 폴더 등록 실패: " + changed + " - " + e.getMessage());
+                    fullScan = true;
+                }
+            }
+            categories.add(categoryOf(changed));
+        }
+        if (!key.reset()) {
+            // 감시하던 폴더가 삭제됨
+            watchedDirectories.remove(key);
+            fullScan = true;
+        }
+        return fullScan;
+    }
+
+    private void reindex(String category) {
+        long startTime = System.currentTimeMillis();
+        try {
+            Map<String, List<String>> changes = aiService.syncUploadedFiles(category);
+            int changed = changes.values().stream().mapToInt(List::size).sum();
+            if (changed > 0) {
+                System.out.println("[업로드 감시] " + (category == null ? "전체" : category) + " 적재 완료: 파일 "
+                        + changed + "개 (" + (System.currentTimeMillis() - startTime) + "ms)");
+            }
+        } catch (RuntimeException e) {
+            // 적재 실패로 감시 스레드가 멈추지 않도록 한다. 다음 이벤트 때 다시 비교된다.
+            System.err.println("[업로드 감시] 적재 실패: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * uploads 기준 첫 번째 경로 요소를 카테고리로 본다. (최상위 파일은 "")
+     */
+    private String categoryOf(Path changed) {
+        Path relative = uploadRoot.relativize(changed);
+        return relative.getNameCount() > 1 ? relative.getName(0).toString() : "";
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path directory : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                WatchKey key = directory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY,
+                        StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, directory);
+            }
+        }
+    }
+}
@@ -12,9 +12,24 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 public class aiResponseDTO {
-    private String stage;  // "stage1", "stage2", "completed"
+    private String stage;  // "stage1", "queued", "stage2", "answer", "completed"
     private String statusMessage;  // 상태 메시지
     private List<String> recommendedArticles;  // 1단계에서 추천받은 조항 이름 목록
     private String finalAnswer;  // 최종 답변 (stage가 "completed"일 때만)
-}
+    private String delta;  // 생성 중인 답변 조각 (stage가 "answer"일 때만)
+    private Integer queuePosition;  // 모델 호출 대기 순서, 1부터 (stage가 "queued"일 때만)
+
+    public aiResponseDTO(String stage, String statusMessage, List<String> recommendedArticles, String finalAnswer) {
+        this(stage, statusMessage, recommendedArticles, finalAnswer, null, null);
+    }
 
+    // 스트리밍 답변 조각
+    public static aiResponseDTO answerDelta(String delta) {
+        return new aiResponseDTO("answer", null, null, null, delta, null);
+    }
+
+    // 모델 호출 대기 중 (대기 순서가 바뀔 때마다)
+    public static aiResponseDTO queued(int position, String statusMessage) {
+        return new aiResponseDTO("queued", statusMessage, null, null, null, position);
+    }
+}
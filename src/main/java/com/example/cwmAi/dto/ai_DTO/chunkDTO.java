@@ -5,6 +5,11 @@ import lombok.Getter;
 @Getter
 public class chunkDTO {
 
+    /* ===== 청크 단위 ===== */
+    public static final String LEVEL_ARTICLE = "article";     // 조
+    public static final String LEVEL_PARAGRAPH = "paragraph"; // 항 (①②③)
+    public static final String LEVEL_ITEM = "item";           // 호 (1. 2. 3.)
+
     /* ===== 법령 메타데이터 ===== */
     /** 법률명 */
     private final String lawName;
@@ -27,6 +32,14 @@ public class chunkDTO {
     /** 카테고리 (예: "공제사업", "개인정보보호") */
     private final String category;
 
+    /* ===== 계층 (항/호 하위 청크) ===== */
+    /** 청크 단위 (LEVEL_ARTICLE / LEVEL_PARAGRAPH / LEVEL_ITEM) */
+    private final String level;
+    /** 상위 청크 ID (항 → 조, 호 → 항 또는 조), 조 청크는 null */
+    private final String parentChunkId;
+    /** 항/호 번호 표기 (예: "②", "3."), 조 청크는 null */
+    private final String label;
+
     public chunkDTO(
             String lawName,
             String chapterTitle,
@@ -37,6 +50,24 @@ public class chunkDTO {
             String fileName,
             int chunkIndex,
             String category
+    ) {
+        this(lawName, chapterTitle, articleNumber, articleTitle, text, chunkId, fileName, chunkIndex, category,
+                LEVEL_ARTICLE, null, null);
+    }
+
+    public chunkDTO(
+            String lawName,
+            String chapterTitle,
+            String articleNumber,
+            String articleTitle,
+            String text,
+            String chunkId,
+            String fileName,
+            int chunkIndex,
+            String category,
+            String level,
+            String parentChunkId,
+            String label
     ) {
         this.lawName = lawName;
         this.chapterTitle = chapterTitle;
@@ -47,6 +78,9 @@ public class chunkDTO {
         this.fileName = fileName;
         this.chunkIndex = chunkIndex;
         this.category = category;
+        this.level = level;
+        this.parentChunkId = parentChunkId;
+        this.label = label;
     }
 }
 
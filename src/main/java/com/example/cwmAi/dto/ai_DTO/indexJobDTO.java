@@ -0,0 +1,75 @@
+package com.example.cwmAi.dto.ai_DTO;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// 업로드 파일 색인 작업 상태 (작업 스레드가 갱신하고 진행 상황 조회 API가 읽음)
+@Getter
+@Setter
+public class indexJobDTO {
+    // 작업 단계
+    public static final String STAGE_QUEUED = "queued";         // 대기열에서 대기 중
+    public static final String STAGE_EXTRACTING = "extracting"; // 텍스트 추출 중 (PDF 페이지 단위 진행)
+    public static final String STAGE_CHUNKING = "chunking";     // 청킹 중
+    public static final String STAGE_EMBEDDING = "embedding";   // 임베딩 계산 중
+    public static final String STAGE_INDEXING = "indexing";     // 저장소 반영 중
+    public static final String STAGE_DONE = "done";             // 완료
+    public static final String STAGE_FAILED = "failed";         // 실패
+
+    private final String jobId;
+    private final String category;
+    private final List<String> fileNames;      // 색인할 파일 (카테고리 폴더 기준 파일명)
+    private final long createdAt;              // 접수 시각 (epoch ms)
+    private volatile String stage = STAGE_QUEUED;
+    private volatile int filesProcessed;       // 저장소 반영까지 끝난 파일 수
+    private volatile int pagesProcessed;       // 추출이 끝난 PDF 페이지 수 (모든 파일 합계)
+    private volatile int totalPages;           // 추출 중인 PDF 전체 페이지 수 (캐시 사용/텍스트 파일은 제외)
+    private volatile int chunksProduced;       // 만들어진 청크 수 (모든 파일 합계)
+    private volatile Map<String, Integer> fileChunkCounts; // 파일별 청크 수 (완료 시 채워짐)
+    private final List<String> errors = new ArrayList<>(); // 파일별 처리 실패 사유
+    private volatile String message;           // 작업 전체 실패 사유
+    private volatile long finishedAt;          // 완료/실패 시각 (epoch ms, 진행 중이면 0)
+
+    public indexJobDTO(String jobId, String category, List<String> fileNames) {
+        this.jobId = jobId;
+        this.category = category;
+        this.fileNames = List.copyOf(fileNames);
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    /* =========================
+       진행 상황 누적 (여러 적재 스레드에서 호출)
+     ========================= */
+    public synchronized void addPages(int totalPages) {
+        this.totalPages += totalPages;
+    }
+
+    public synchronized void pageProcessed() {
+        this.pagesProcessed++;
+    }
+
+    public synchronized void fileProcessed(int chunks) {
+        this.filesProcessed++;
+        this.chunksProduced += chunks;
+    }
+
+    public synchronized void addError(String error) {
+        errors.add(error);
+    }
+
+    public synchronized List<String> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    public int getTotalFiles() {
+        return fileNames.size();
+    }
+
+    public boolean isFinished() {
+        return STAGE_DONE.equals(stage) || STAGE_FAILED.equals(stage);
+    }
+}
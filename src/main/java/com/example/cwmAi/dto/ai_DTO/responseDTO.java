@@ -21,6 +21,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 //   ...
 // }
 // 우리는 message.content만 필요하므로 다른 필드는 무시
+// 스트리밍(stream=true)이면 같은 구조의 JSON이 한 줄씩 오고, message.content에는 새로 생성된 조각만 담긴다.
+// (마지막 줄은 done=true, 오류가 나면 {"error": "..."} 한 줄)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,6 +30,8 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 @JsonIgnoreProperties(ignoreUnknown = true)  // 알 수 없는 필드는 무시 (model, created_at, done, total_duration 등)
 public class responseDTO {
     private messageDTO message;  // Ollama: message 객체 (content 포함)
+    private Boolean done;        // 스트리밍: 마지막 줄이면 true
+    private String error;        // 스트리밍 중 오류 메시지
     
     /**
      * Ollama 응답에서 content만 추출
@@ -0,0 +1,12 @@
+package com.example.cwmAi.dto.ai_DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// 검색 결과 DTO (청크 + 유사도 점수)
+@Getter
+@AllArgsConstructor
+public class scoredChunkDTO {
+    private final chunkDTO chunk;
+    private final double score;  // 코사인 유사도 (높을수록 관련도 높음)
+}
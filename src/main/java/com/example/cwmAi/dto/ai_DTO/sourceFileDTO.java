@@ -0,0 +1,17 @@
+package com.example.cwmAi.dto.ai_DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// 저장소에 적재된 업로드 원본 파일 정보 (파일 단위 증분 재색인 / 인덱스 파일 재사용 판단용)
+@Getter
+@AllArgsConstructor
+public class sourceFileDTO {
+    private final String path;          // uploads 기준 상대 경로 (예: "공제사업/규정.pdf")
+    private final long size;            // 파일 크기 (바이트)
+    private final long lastModified;    // 마지막 수정 시각 (epoch ms)
+    private final String sha256;        // 파일 내용 SHA-256 (16진수)
+    private final List<String> chunkIds; // 이 파일에서 만들어진 청크 ID (추가된 순서)
+}
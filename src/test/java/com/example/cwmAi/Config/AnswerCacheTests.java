@@ -0,0 +1,155 @@
+package com.example.cwmAi.Config;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnswerCacheTests {
+
+	/**
+	 * 모든 질문에 같은 벡터를 돌려주는 임베딩 (영어 전용 모델이 한국어 질문을 구분하지 못하는 경우와 같음)
+	 */
+	private static final class ConstantEmbedder extends ChunkEmbedder {
+		final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public float[] embed(String text) {
+			calls.incrementAndGet();
+			float[] vector = new float[DIMENSION];
+			vector[0] = 1f;
+			return vector;
+		}
+	}
+
+	private static AnswerCache<String> cache(int maxEntries, long ttlMs) {
+		return new AnswerCache<>("테스트", maxEntries, ttlMs, 0, null);
+	}
+
+	private static void put(AnswerCache<String> cache, String question, long version, String answer) {
+		AnswerCache.Lookup<String> lookup = cache.lookup("s", question, version);
+		assertFalse(lookup.isHit(), question);
+		cache.put(lookup, answer);
+	}
+
+	private static boolean isHit(AnswerCache<String> cache, String question, long version) {
+		return cache.lookup("s", question, version).isHit();
+	}
+
+	@Test
+	void exactHitIgnoresSpacingCaseAndTrailingPunctuationWithinScope() {
+		AnswerCache<String> cache = cache(10, 0);
+		put(cache, "계약보증금은 언제 국고에 귀속되나요?", 1, "답변");
+
+		AnswerCache.Lookup<String> hit = cache.lookup("s", "  계약보증금은  언제 국고에 귀속되나요 ", 1);
+		assertTrue(hit.isHit());
+		assertEquals("답변", hit.getValue());
+		assertFalse(cache.lookup("other", "계약보증금은 언제 국고에 귀속되나요?", 1).isHit());
+		assertFalse(isHit(cache, "계약보증금은 언제 국고에 귀속되지 않나요?", 1));
+	}
+
+	@Test
+	void leastRecentlyUsedEntryIsEvicted() {
+		AnswerCache<String> cache = cache(2, 0);
+		put(cache, "a", 1, "A");
+		put(cache, "b", 1, "B");
+		assertTrue(isHit(cache, "a", 1));
+		put(cache, "c", 1, "C");
+
+		assertTrue(isHit(cache, "a", 1));
+		assertFalse(isHit(cache, "b", 1));
+		assertTrue(isHit(cache, "c", 1));
+		assertEquals(1L, cache.getStatistics().get("evictions"));
+	}
+
+	@Test
+	void expiredEntryIsRemovedOnLookup() throws InterruptedException {
+		AnswerCache<String> cache = cache(10, 20);
+		put(cache, "a", 1, "A");
+		assertTrue(isHit(cache, "a", 1));
+		Thread.sleep(60);
+
+		assertFalse(isHit(cache, "a", 1));
+		Map<String, Object> stats = cache.getStatistics();
+		assertEquals(1L, stats.get("expirations"));
+		assertEquals(0, stats.get("size"));
+	}
+
+	@Test
+	void newerStoreVersionClearsCacheAndStalePutIsRefused() {
+		AnswerCache<String> cache = cache(10, 0);
+		put(cache, "a", 1, "A");
+		AnswerCache.Lookup<String> staleMiss = cache.lookup("s", "b", 1);
+
+		// 저장소가 바뀐 뒤에는 이전 버전의 답변을 쓰지 않는다.
+		assertFalse(isHit(cache, "a", 2));
+		assertEquals(1L, cache.getStatistics().get("invalidations"));
+
+		// 바뀌기 전에 놓친 조회의 결과는 저장하지 않는다.
+		cache.put(staleMiss, "B");
+		assertFalse(isHit(cache, "b", 2));
+		assertEquals(0, cache.getStatistics().get("size"));
+	}
+
+	@Test
+	void getStoresOnlyCacheableResults() {
+		AnswerCache<String> cache = cache(10, 0);
+		AtomicInteger loads = new AtomicInteger();
+		String[] next = {"AI 호출 중 오류 발생: timeout"};
+		Supplier<Mono<String>> loader = () -> {
+			loads.incrementAndGet();
+			return Mono.just(next[0]);
+		};
+		Predicate<String> cacheable = answer -> !answer.startsWith("AI 호출 중 오류");
+
+		assertEquals("AI 호출 중 오류 발생: timeout", cache.get("s", "q", 1, loader, cacheable).block());
+		next[0] = "정상 답변";
+		assertEquals("정상 답변", cache.get("s", "q", 1, loader, cacheable).block());
+		assertEquals("정상 답변", cache.get("s", "q", 1, loader, cacheable).block());
+		assertEquals(2, loads.get());
+		assertEquals(1L, cache.getStatistics().get("exactHits"));
+	}
+
+	@Test
+	void semanticMatchIsOffByDefaultAndNeverCallsEmbedder() {
+		ConstantEmbedder embedder = new ConstantEmbedder();
+		AnswerCache<String> cache = new AnswerCache<>("테스트", 10, 0, 0, embedder);
+		put(cache, "선금 지급이 허용되나요", 1, "허용");
+
+		assertFalse(isHit(cache, "지급이 선금 허용되나요", 1));
+		assertEquals(0, embedder.calls.get());
+	}
+
+	@Test
+	void semanticMatchRequiresSameWordSet() {
+		AnswerCache<String> cache = new AnswerCache<>("테스트", 10, 0, 0.9, new ConstantEmbedder());
+		put(cache, "선금 지급이 허용되나요", 1, "허용");
+
+		// 임베딩 유사도가 1이어도 단어가 다르면 (뜻이 반대인 질문) 적중하지 않는다.
+		assertFalse(isHit(cache, "선금 지급이 금지되나요", 1));
+		assertFalse(isHit(cache, "선금 지급이 허용되지 않나요", 1));
+		AnswerCache.Lookup<String> reordered = cache.lookup("s", "지급이, 선금 허용되나요", 1);
+		assertTrue(reordered.isHit());
+		assertEquals("허용", reordered.getValue());
+		assertEquals(1L, cache.getStatistics().get("semanticHits"));
+	}
+
+	@Test
+	void semanticHitRefreshesLeastRecentlyUsedOrder() {
+		AnswerCache<String> cache = new AnswerCache<>("테스트", 2, 0, 0.9, new ConstantEmbedder());
+		put(cache, "선금 지급 요건", 1, "A");
+		put(cache, "하자 담보 기간", 1, "B");
+		assertTrue(isHit(cache, "요건 지급 선금", 1));
+		put(cache, "입찰 보증금 반환", 1, "C");
+
+		assertTrue(isHit(cache, "선금 지급 요건", 1));
+		assertFalse(isHit(cache, "하자 담보 기간", 1));
+	}
+}
@@ -0,0 +1,79 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class Bm25IndexTests {
+
+	private static final String[] WORDS = {
+			"계약", "보증금", "국고", "귀속", "입찰", "낙찰자", "선금", "지급", "검사", "대가",
+			"지체상금", "하자", "담보", "물가변동", "설계변경", "공동계약", "수의계약", "해제", "해지", "감독"
+	};
+
+	private static chunkDTO chunk(int number) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < 12; i++) {
+			text.append(WORDS[(number * 7 + i * i) % WORDS.length]).append(' ');
+		}
+		String title = WORDS[number % WORDS.length] + "의 " + WORDS[(number + 3) % WORDS.length];
+		return new chunkDTO("법", null, "제" + number + "조", title, text.toString().trim(),
+				"chunk-" + number, "file" + (number % 3) + ".pdf", number, "계약");
+	}
+
+	private static void assertSameResults(Bm25Index expected, Bm25Index actual) {
+		assertEquals(expected.size(), actual.size());
+		assertEquals(expected.getTermCount(), actual.getTermCount());
+		for (String query : List.of("계약보증금 국고귀속", "선금 지급", "하자담보 책임", "물가변동 설계변경 해지", "없는단어")) {
+			List<scoredChunkDTO> expectedHits = expected.search(query, null, 10);
+			List<scoredChunkDTO> actualHits = actual.search(query, null, 10);
+			assertEquals(expectedHits.size(), actualHits.size(), query);
+			for (int i = 0; i < expectedHits.size(); i++) {
+				assertEquals(expectedHits.get(i).getScore(), actualHits.get(i).getScore(), 1e-9, query);
+			}
+		}
+	}
+
+	@Test
+	void updateMatchesRebuildAfterRemovalsAndAdditions() {
+		List<chunkDTO> chunks = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			chunks.add(chunk(i));
+		}
+		Bm25Index index = Bm25Index.build(chunks);
+
+		// 저장소처럼 순서를 유지한 채 제거하고 뒤에 추가한다.
+		List<chunkDTO> changed = new ArrayList<>(chunks);
+		changed.removeIf(chunk -> chunk.getChunkIndex() % 4 == 1);
+		for (int i = 40; i < 50; i++) {
+			changed.add(chunk(i));
+		}
+		Bm25Index updated = index.update(changed);
+		assertSameResults(Bm25Index.build(changed), updated);
+		for (int doc = 0; doc < changed.size(); doc++) {
+			assertSame(changed.get(doc), updated.getChunk(doc));
+		}
+
+		// 원본 색인은 바뀌지 않는다.
+		assertSameResults(Bm25Index.build(chunks), index);
+	}
+
+	@Test
+	void updateHandlesReorderedChunks() {
+		List<chunkDTO> chunks = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			chunks.add(chunk(i));
+		}
+		Bm25Index index = Bm25Index.build(chunks);
+		List<chunkDTO> reordered = new ArrayList<>(chunks.subList(10, 20));
+		reordered.addAll(chunks.subList(0, 10));
+		assertSameResults(Bm25Index.build(reordered), index.update(reordered));
+		assertSameResults(Bm25Index.build(List.of()), index.update(List.of()));
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.cwmAi.Config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTests {
+
+	/**
+	 * 기존 토큰 추정 (글자마다 영문/숫자 구간을 거슬러 올라가 셈, 비교 기준)
+	 */
+	private static int legacyEstimateTokens(String text) {
+		long tenths = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				if (Character.isWhitespace(c)) {
+					continue;
+				}
+				if (Character.isLetterOrDigit(c)) {
+					int runIndex = 0;
+					while (i - runIndex > 0 && text.charAt(i - runIndex - 1) < 0x80
+							&& Character.isLetterOrDigit(text.charAt(i - runIndex - 1))) {
+						runIndex++;
+					}
+					tenths += runIndex % 4 == 0 ? 10 : 0;
+				} else {
+					tenths += 10;
+				}
+			} else if ((c >= 0xAC00 && c <= 0xD7A3) || (c >= 0x4E00 && c <= 0x9FFF)) {
+				tenths += 12;
+			} else {
+				tenths += 20;
+			}
+		}
+		return (int) ((tenths + 9) / 10);
+	}
+
+	@Test
+	void trimmedSectionKeepsSeparatorBeforeNextHeader() {
+		StringBuilder longBody = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			longBody.append("계약담당공무원은 계약보증금을 국고에 귀속시켜야 한다.\n");
+		}
+		List<ContextPacker.Section> sections = List.of(
+				new ContextPacker.Section("【법 제1조 목적】\n", longBody.toString().trim() + "\n\n", 2.0),
+				new ContextPacker.Section("【법 제2조 정의】\n", "짧은 본문\n\n", 1.0));
+		int budget = ContextPacker.estimateTokens("【법 제2조 정의】\n짧은 본문\n\n") + 300;
+		ContextPacker.Result result = ContextPacker.pack(sections, budget);
+
+		assertEquals(1, result.getTrimmedCount());
+		assertEquals(0, result.getDroppedCount());
+		String first = result.getTexts().get(0);
+		assertNotNull(first);
+		assertTrue(first.endsWith(ContextPacker.TRIM_MARKER + "\n\n"), first);
+		String joined = first + result.getTexts().get(1);
+		assertTrue(joined.contains("(이하 생략)\n\n【법 제2조 정의】"), joined);
+		assertTrue(result.getUsedTokens() <= budget);
+	}
+
+	@Test
+	void estimateMatchesLegacyEstimate() {
+		String[] tokens = {"a", "Z", "7", "abc", "2024", " ", "\n", "\t", ".", "(", "가", "조", "漢", "①", "·", "【", "é"};
+		Random random = new Random(20241017L);
+		for (int n = 0; n < 5000; n++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(60);
+			for (int i = 0; i < length; i++) {
+				text.append(tokens[random.nextInt(tokens.length)]);
+			}
+			String input = text.toString();
+			assertEquals(legacyEstimateTokens(input), ContextPacker.estimateTokens(input), input);
+		}
+	}
+
+	@Test
+	void longAsciiRunIsEstimatedInLinearTime() {
+		String run = "a".repeat(2_000_000);
+		long startTime = System.nanoTime();
+		assertEquals(500_000, ContextPacker.estimateTokens(run));
+		assertEquals(run.substring(0, 400), ContextPacker.trimToTokens(run, 100));
+		assertTrue(System.nanoTime() - startTime < 2_000_000_000L, "영문 구간 토큰 추정이 너무 느립니다.");
+	}
+
+	@Test
+	void referencedTierIsPackedAfterPrimarySections() {
+		String body = "계약담당공무원은 계약보증금을 국고에 귀속시켜야 한다.\n\n";
+		List<ContextPacker.Section> sections = List.of(
+				new ContextPacker.Section("【법 제9조 참조1】\n", body, ContextPacker.TIER_REFERENCED, 0),
+				new ContextPacker.Section("【법 제8조 참조2】\n", body, ContextPacker.TIER_REFERENCED, 0),
+				// BM25 점수가 0인 추천 조항도 참조 조항보다 먼저 담는다.
+				new ContextPacker.Section("【법 제1조 목적】\n", body, 0.0),
+				new ContextPacker.Section("【법 제2조 정의】\n", body, 3.0));
+		int sectionTokens = ContextPacker.estimateTokens("【법 제9조 참조1】\n" + body);
+		ContextPacker.Result result = ContextPacker.pack(sections, sectionTokens * 3);
+
+		assertEquals(3, result.getIncludedCount());
+		assertNotNull(result.getTexts().get(2));
+		assertNotNull(result.getTexts().get(3));
+		// 같은 단계 안에서 관련도가 같으면 앞의 조항이 먼저다.
+		assertNotNull(result.getTexts().get(0));
+		assertNull(result.getTexts().get(1));
+	}
+}
@@ -0,0 +1,345 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentChunkerTests {
+
+	/**
+	 * 기존 chunkText의 두 번 찾기(장/조) + 주변 문자열 참조 판단 (비교 기준, 로그 출력만 뺌)
+	 */
+	private static final class LegacyChunker {
+
+		List<chunkDTO> chunkText(String fileName, String text, String category) {
+			List<chunkDTO> chunks = new ArrayList<>();
+			String lawName = extractLawName(fileName);
+
+			Matcher chapterMatcher = Pattern.compile("(?m)^\\s*제\\s*\\d+장\\s*([^\\n]+)").matcher(text);
+			List<Integer> chapterPositions = new ArrayList<>();
+			List<String> chapterTitles = new ArrayList<>();
+			while (chapterMatcher.find()) {
+				chapterPositions.add(chapterMatcher.start());
+				chapterTitles.add(chapterMatcher.group(1).trim());
+			}
+
+			Matcher articleMatcher = Pattern.compile("(?m)^\\s*제\\s*(\\d+)(?:조(?:의\\s*\\d+)?)?\\s*(?:\\(([^)]+)\\))?")
+					.matcher(text);
+			List<Integer> articlePositions = new ArrayList<>();
+			List<String> articleTitles = new ArrayList<>();
+			List<String> articleNumbers = new ArrayList<>();
+			while (articleMatcher.find()) {
+				int position = articleMatcher.start();
+				String matchedText = articleMatcher.group(0).trim();
+				String articleNum = articleMatcher.group(1);
+				int contextStart = Math.max(0, position - 50);
+				int contextEnd = Math.min(text.length(), position + matchedText.length() + 50);
+				String context = text.substring(contextStart, contextEnd);
+				if (!isLawReference(context, position - contextStart, matchedText)) {
+					articlePositions.add(position);
+					String articleNumberStr = extractArticleNumber(matchedText, articleNum);
+					articleNumbers.add(articleNumberStr);
+					String bracketTitle = articleMatcher.group(2);
+					articleTitles.add(bracketTitle != null && !bracketTitle.isBlank() ? bracketTitle.trim() : articleNumberStr);
+				}
+			}
+			if (articlePositions.isEmpty()) {
+				return chunks;
+			}
+
+			for (int i = 0; i < articlePositions.size(); i++) {
+				int start = articlePositions.get(i);
+				int end = (i + 1 < articlePositions.size()) ? articlePositions.get(i + 1) : text.length();
+				String articleText = cleanArticleText(text.substring(start, end).trim());
+				if (articleText.length() < 50) {
+					continue;
+				}
+				String chapterTitle = findChapterTitle(start, chapterPositions, chapterTitles);
+				if (chapterTitle == null) {
+					chapterTitle = "";
+				}
+				String articleNumber = articleNumbers.get(i);
+				String articleTitle = articleTitles.get(i);
+				if (!validateChunkFields(lawName, articleNumber, articleText, fileName).isEmpty()) {
+					continue;
+				}
+				if (articleTitle == null || articleTitle.trim().isEmpty()) {
+					articleTitle = articleNumber;
+				}
+				chunks.add(new chunkDTO(lawName, chapterTitle, articleNumber, articleTitle, articleText,
+						null, fileName, i, category));
+			}
+			return chunks;
+		}
+
+		private boolean isLawReference(String context, int matchPosition, String matchedText) {
+			String before = context.substring(0, matchPosition);
+			String after = context.substring(matchPosition + matchedText.length());
+			String beforeTrimmed = before.trim();
+			if (beforeTrimmed.isEmpty() || beforeTrimmed.endsWith("\n") || before.matches(".*\\n\\s*$")) {
+				String afterTrimmed = after.trim();
+				return afterTrimmed.matches("^(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|제\\s*\\d+항).*");
+			}
+			Pattern referenceBeforePattern = Pattern.compile(
+					"제\\s*\\d+(?:조(?:의\\s*\\d+)?)?(?:제\\s*\\d+항)?(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|및|와|과)");
+			if (referenceBeforePattern.matcher(beforeTrimmed).find()) {
+				return true;
+			}
+			String afterTrimmed = after.trim();
+			if (afterTrimmed.matches("^(?:을|를|에|의|에\\s*따르면|를\\s*참고|에\\s*따라|에\\s*의하여|에\\s*의한|제\\s*\\d+항).*")) {
+				return true;
+			}
+			if (!beforeTrimmed.isEmpty() && !afterTrimmed.isEmpty()
+					&& !beforeTrimmed.endsWith("\n") && !afterTrimmed.startsWith("\n")) {
+				if (beforeTrimmed.matches(".*제\\s*\\d+(?:조(?:의\\s*\\d+)?)?$")
+						&& afterTrimmed.matches("^(?:을|를|에|의|제\\s*\\d+항).*")) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private String extractArticleNumber(String fullMatch, String articleNum) {
+			if (fullMatch.contains("조의")) {
+				Matcher subMatcher = Pattern.compile("조의\\s*(\\d+)").matcher(fullMatch);
+				if (subMatcher.find()) {
+					return "제" + articleNum + "조의" + subMatcher.group(1);
+				}
+			}
+			return "제" + articleNum + "조";
+		}
+
+		private List<String> validateChunkFields(String lawName, String articleNumber, String text, String fileName) {
+			List<String> errors = new ArrayList<>();
+			if (lawName == null || lawName.trim().isEmpty() || lawName.equals("알 수 없음")) {
+				errors.add("법령명");
+			}
+			if (articleNumber == null || articleNumber.trim().isEmpty()) {
+				errors.add("조항 번호");
+			} else if (!articleNumber.matches("제\\s*\\d+(?:조(?:의\\s*\\d+)?)?")) {
+				errors.add("조항 번호 형식");
+			}
+			if (text == null || text.trim().isEmpty()) {
+				errors.add("조항 내용");
+			} else if (text.trim().length() < 10) {
+				errors.add("조항 내용 길이");
+			}
+			if (fileName == null || fileName.trim().isEmpty()) {
+				errors.add("파일명");
+			}
+			return errors;
+		}
+
+		private String cleanArticleText(String text) {
+			text = text.replaceAll("[ \\t]{2,}", " ");
+			text = text.replaceAll("\\n{3,}", "\n\n");
+			text = text.replaceAll("(?m)[ \\t]+$", "");
+			return text.trim();
+		}
+
+		private String extractLawName(String fileName) {
+			String name = fileName.replaceAll("\\.[^.]+$", "");
+			Matcher matcher = Pattern.compile("([가-힣\\s]+(시행규칙|시행령|법률|법|규정|지침))").matcher(name);
+			return matcher.find() ? matcher.group(1).trim() : "알 수 없음";
+		}
+
+		private String findChapterTitle(int articlePos, List<Integer> chapterPositions, List<String> chapterTitles) {
+			String result = null;
+			for (int i = 0; i < chapterPositions.size(); i++) {
+				if (chapterPositions.get(i) <= articlePos) {
+					result = chapterTitles.get(i);
+				} else {
+					break;
+				}
+			}
+			return result;
+		}
+	}
+
+	private static void assertSameChunks(List<chunkDTO> expected, List<chunkDTO> actual, String message) {
+		assertEquals(expected.size(), actual.size(), message + " (청크 수)");
+		for (int i = 0; i < expected.size(); i++) {
+			chunkDTO e = expected.get(i);
+			chunkDTO a = actual.get(i);
+			String at = message + " #" + i;
+			// 청크 ID는 적재 시 chunkIndex 순서대로 부여되므로 chunkIndex까지 같아야 ID가 같다.
+			assertEquals(e.getChunkIndex(), a.getChunkIndex(), at + " chunkIndex");
+			assertEquals(e.getChunkId(), a.getChunkId(), at + " chunkId");
+			assertEquals(e.getLawName(), a.getLawName(), at + " lawName");
+			assertEquals(e.getChapterTitle(), a.getChapterTitle(), at + " chapterTitle");
+			assertEquals(e.getArticleNumber(), a.getArticleNumber(), at + " articleNumber");
+			assertEquals(e.getArticleTitle(), a.getArticleTitle(), at + " articleTitle");
+			assertEquals(e.getText(), a.getText(), at + " text");
+			assertEquals(e.getFileName(), a.getFileName(), at + " fileName");
+			assertEquals(e.getCategory(), a.getCategory(), at + " category");
+		}
+	}
+
+	@Test
+	void bundledPdfsMatchLegacyChunking() throws IOException {
+		List<Path> pdfs;
+		try (Stream<Path> paths = Files.walk(Paths.get("uploads"))) {
+			pdfs = paths.filter(path -> path.toString().toLowerCase().endsWith(".pdf")).sorted().collect(Collectors.toList());
+		}
+		assertFalse(pdfs.isEmpty(), "uploads에 비교할 PDF가 없습니다.");
+		DocumentChunker chunker = new DocumentChunker();
+		LegacyChunker legacy = new LegacyChunker();
+		for (Path pdf : pdfs) {
+			String text;
+			try (PDDocument document = PDDocument.load(pdf.toFile())) {
+				PDFTextStripper stripper = new PDFTextStripper();
+				stripper.setSortByPosition(true);
+				text = PdfTextNormalizer.normalize(stripper.getText(document));
+			}
+			// 적재 파이프라인과 같이 소문자 파일명, 상위 폴더명을 카테고리로 사용
+			String fileName = pdf.getFileName().toString().toLowerCase();
+			String category = pdf.getParent().getFileName().toString();
+			List<chunkDTO> expected = legacy.chunkText(fileName, text, category);
+			assertFalse(expected.isEmpty(), pdf + "에서 청크가 만들어지지 않았습니다.");
+			assertSameChunks(expected, chunker.chunkText(fileName, text, category), pdf.toString());
+		}
+	}
+
+	@Test
+	void randomTextMatchesLegacyChunking() {
+		String[] tokens = {"제", "1", "12", "조", "장", "의", "의2", "(목적)", "(", ")", "총칙", " ", "  ", "\t", "\n", "\n",
+				"\n\n\n", "을", "를", "에 따라", "및", "제3항", "본문 내용이 이어진다", "가나다라마바사아자차카타파하"};
+		DocumentChunker chunker = new DocumentChunker();
+		LegacyChunker legacy = new LegacyChunker();
+		Random random = new Random(20241017L);
+		int chunkCount = 0;
+		for (int n = 0; n < 3000; n++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(120);
+			for (int i = 0; i < length; i++) {
+				text.append(tokens[random.nextInt(tokens.length)]);
+			}
+			String input = text.toString();
+			List<chunkDTO> expected = legacy.chunkText("테스트 법률.pdf", input, "계약");
+			assertSameChunks(expected, chunker.chunkText("테스트 법률.pdf", input, "계약"), "입력: " + input);
+			chunkCount += expected.size();
+		}
+		assertTrue(chunkCount > 500, "무작위 입력에서 만들어진 청크가 너무 적습니다: " + chunkCount);
+	}
+
+	@Test
+	void articleReferencesSkipOtherLawsAndSelf() {
+		chunkDTO article = new chunkDTO("테스트법", "", "제7조", "계약의 방법",
+				"제7조(계약의 방법) ① 계약은 제3조에 따라 체결한다.\n"
+						+ "② 「국가를 당사자로 하는 계약에 관한 법률」 제5조를 준용하고, (기획재정부 계약예규) 제8조를 따른다.\n"
+						+ "③ 영 제10조에 따른 절차와 이 법 제12조의2를 거친다. 같은 법 제20조는 제외한다.\n"
+						+ "④ 제7조제2항의 경우 제3조를 다시 본다.",
+				"계약#7", "테스트법.pdf", 7, "계약");
+		// 「법령」, (괄호) 뒤, "영"/"같은 법" 뒤의 조항과 자기 조(머리말, 제7조제2항)는 빠지고 "이 법"은 남는다.
+		assertEquals(List.of("제3조", "제12조의2"), DocumentChunker.extractArticleReferences(article));
+	}
+
+	@Test
+	void decreeReferencesSkipParentLaw() {
+		chunkDTO article = new chunkDTO("테스트법 시행령", "", "제4조", "위임",
+				"제4조(위임) 법 제9조에 따라 위임된 사항은 제2조 및 이 영 제6조와 같다.",
+				"계약#4", "테스트법 시행령.pdf", 4, "계약");
+		// 시행령의 "법 제9조"는 모법의 조항이다.
+		assertEquals(List.of("제2조", "제6조"), DocumentChunker.extractArticleReferences(article));
+	}
+
+	private static chunkDTO articleChunk(int number, String text) {
+		return new chunkDTO("공제사업법", "", "제" + number + "조", "조항" + number, text,
+				"공제사업#" + number, "공제사업법.pdf", number, "공제사업");
+	}
+
+	// 하위 청크를 "ID <- 상위 ID (단위 번호표기)"로 나타낸다.
+	private static List<String> describe(List<chunkDTO> subChunks) {
+		List<String> described = new ArrayList<>();
+		for (chunkDTO subChunk : subChunks) {
+			described.add(subChunk.getChunkId() + " <- " + subChunk.getParentChunkId()
+					+ " (" + subChunk.getLevel() + " " + subChunk.getLabel() + ")");
+		}
+		return described;
+	}
+
+	@Test
+	void itemsAreSplitInsideParagraph() {
+		chunkDTO article = articleChunk(12, "제12조(공제사업) ① 조합은 공제사업을 한다.\n"
+				+ "② 공제사업의 범위는 다음 각 호와 같다.\n1. 손해 공제\n2. 생명 공제\n3. 그 밖의 공제\n"
+				+ "③ 그 밖의 사항은 정관으로 정한다.");
+		List<chunkDTO> subChunks = DocumentChunker.splitArticle(article);
+
+		assertEquals(List.of(
+				"공제사업#12-1 <- 공제사업#12 (paragraph ①)",
+				"공제사업#12-2 <- 공제사업#12 (paragraph ②)",
+				"공제사업#12-2-1 <- 공제사업#12-2 (item 1.)",
+				"공제사업#12-2-2 <- 공제사업#12-2 (item 2.)",
+				"공제사업#12-2-3 <- 공제사업#12-2 (item 3.)",
+				"공제사업#12-3 <- 공제사업#12 (paragraph ③)"), describe(subChunks));
+		assertEquals("3. 그 밖의 공제", subChunks.get(4).getText());
+		assertEquals("② 공제사업의 범위는 다음 각 호와 같다.\n1. 손해 공제\n2. 생명 공제\n3. 그 밖의 공제",
+				subChunks.get(1).getText());
+		// 하위 청크는 조 청크의 법령/조항 정보를 물려받는다.
+		assertEquals("제12조", subChunks.get(4).getArticleNumber());
+		assertEquals("공제사업", subChunks.get(4).getCategory());
+	}
+
+	@Test
+	void singleParagraphFallsBackToItemsUnderArticle() {
+		// 항이 하나뿐이면 (MIN_SUB_CHUNKS 미만) 항으로 나누지 않고 조 본문을 바로 호로 나눈다.
+		chunkDTO article = articleChunk(3, "제3조(사업) ① 조합은 다음 각 호의 사업을 한다.\n1. 공제사업\n2. 복지사업");
+		assertEquals(List.of(
+				"공제사업#3-1 <- 공제사업#3 (item 1.)",
+				"공제사업#3-2 <- 공제사업#3 (item 2.)"), describe(DocumentChunker.splitArticle(article)));
+
+		// 호도 하나뿐이면 나누지 않는다.
+		assertTrue(DocumentChunker.splitArticle(articleChunk(4, "제4조(사업) 다음 사업을 한다.\n1. 공제사업")).isEmpty());
+	}
+
+	@Test
+	void paragraphNumbersAreScannedInOrder() {
+		// 순서에 맞지 않는 ③(다른 항 인용)은 건너뛰고, 번호가 이어지는 ①, ②만 항으로 본다.
+		chunkDTO article = articleChunk(7, "제7조(준용) ① 제5조③에도 불구하고 적용한다. ② 그 밖의 사항은 따로 정한다.");
+		List<chunkDTO> subChunks = DocumentChunker.splitArticle(article);
+		assertEquals(List.of(
+				"공제사업#7-1 <- 공제사업#7 (paragraph ①)",
+				"공제사업#7-2 <- 공제사업#7 (paragraph ②)"), describe(subChunks));
+		assertEquals("① 제5조③에도 불구하고 적용한다.", subChunks.get(0).getText());
+
+		// ⑳까지 항으로 나눈다.
+		StringBuilder text = new StringBuilder("제8조(항목)");
+		for (char label = '\u2460'; label <= '\u2473'; label++) {
+			text.append(' ').append(label).append(" 항 본문");
+		}
+		List<chunkDTO> twenty = DocumentChunker.splitArticle(articleChunk(8, text.toString()));
+		assertEquals(20, twenty.size());
+		assertEquals("공제사업#8-20 <- 공제사업#8 (paragraph ⑳)", describe(twenty).get(19));
+	}
+
+	@Test
+	void datesAreNotSplitIntoItems() {
+		// "2013. 1. 2.", "2013. 2. 17."의 1., 2.는 숫자 뒤에 이어지므로 호가 아니다.
+		assertTrue(DocumentChunker.splitArticle(articleChunk(5, "제5조(시행일) 이 규정은 2013. 1. 2. 개정되어 시행한다.")).isEmpty());
+
+		chunkDTO article = articleChunk(6, "제6조(경과조치) 다음 각 호의 계약에 적용한다.\n"
+				+ "1. 2013. 2. 17. 이전에 체결한 계약\n2. 그 밖의 계약");
+		List<chunkDTO> subChunks = DocumentChunker.splitArticle(article);
+		assertEquals(List.of(
+				"공제사업#6-1 <- 공제사업#6 (item 1.)",
+				"공제사업#6-2 <- 공제사업#6 (item 2.)"), describe(subChunks));
+		assertEquals("1. 2013. 2. 17. 이전에 체결한 계약", subChunks.get(0).getText());
+	}
+}
@@ -0,0 +1,159 @@
+package com.example.cwmAi.Config;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaAdmissionTests {
+
+	/**
+	 * 입장한 순서를 기록하고, 테스트가 끝낼 때까지 자리를 차지하는 모델 호출
+	 */
+	private static final class HeldCall implements Supplier<Flux<String>> {
+		final String name;
+		final List<String> started;
+		Sinks.Many<String> upstream;
+
+		HeldCall(String name, List<String> started) {
+			this.name = name;
+			this.started = started;
+		}
+
+		@Override
+		public Flux<String> get() {
+			started.add(name);
+			upstream = Sinks.many().unicast().onBackpressureBuffer();
+			return upstream.asFlux();
+		}
+
+		void finish() {
+			upstream.tryEmitComplete();
+		}
+	}
+
+	/**
+	 * 한 요청이 받은 값(대기 순서 알림 포함)과 오류
+	 */
+	private static final class Subscriber {
+		final List<String> values = new CopyOnWriteArrayList<>();
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final AtomicBoolean completed = new AtomicBoolean();
+		Disposable disposable;
+	}
+
+	private static Subscriber run(OllamaAdmission admission, OllamaAdmission.Priority priority, HeldCall call) {
+		Subscriber subscriber = new Subscriber();
+		subscriber.disposable = admission.run(priority, call, position -> "대기" + position)
+				.subscribe(subscriber.values::add, subscriber.error::set, () -> subscriber.completed.set(true));
+		return subscriber;
+	}
+
+	@Test
+	void stage2WaiterIsAdmittedBeforeEarlierStage1Waiter() {
+		OllamaAdmission admission = new OllamaAdmission(1, 4, 0);
+		List<String> started = new CopyOnWriteArrayList<>();
+		HeldCall running = new HeldCall("running", started);
+		HeldCall stage1 = new HeldCall("stage1", started);
+		HeldCall stage2 = new HeldCall("stage2", started);
+
+		run(admission, OllamaAdmission.Priority.STAGE1, running);
+		Subscriber first = run(admission, OllamaAdmission.Priority.STAGE1, stage1);
+		Subscriber second = run(admission, OllamaAdmission.Priority.STAGE2, stage2);
+		// 2단계 요청이 들어오면 먼저 기다리던 1단계 요청은 2번째로 밀린다.
+		assertEquals(List.of("대기1", "대기2"), first.values);
+		assertEquals(List.of("대기1"), second.values);
+
+		running.finish();
+		assertEquals(List.of("running", "stage2"), started);
+		assertEquals(List.of("대기1", "대기0"), second.values);
+		assertEquals(List.of("대기1", "대기2", "대기1"), first.values);
+
+		stage2.finish();
+		assertEquals(List.of("running", "stage2", "stage1"), started);
+		assertEquals(1, admission.getStatistics().get("active"));
+	}
+
+	@Test
+	void fullQueueEvictsNewestStage1WaiterForStage2() {
+		OllamaAdmission admission = new OllamaAdmission(1, 2, 0);
+		List<String> started = new CopyOnWriteArrayList<>();
+		HeldCall running = new HeldCall("running", started);
+
+		run(admission, OllamaAdmission.Priority.STAGE1, running);
+		Subscriber older = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("older", started));
+		Subscriber newer = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("newer", started));
+		Subscriber stage2 = run(admission, OllamaAdmission.Priority.STAGE2, new HeldCall("stage2", started));
+
+		assertInstanceOf(OllamaAdmission.BusyException.class, newer.error.get());
+		assertNull(older.error.get());
+		assertNull(stage2.error.get());
+
+		// 대기열이 가득 찬 상태의 1단계 요청은 바로 거절된다.
+		Subscriber rejected = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("rejected", started));
+		assertInstanceOf(OllamaAdmission.BusyException.class, rejected.error.get());
+		assertEquals(2L, admission.getStatistics().get("rejected"));
+
+		running.finish();
+		assertEquals(List.of("running", "stage2"), started);
+	}
+
+	@Test
+	void waiterIsRejectedWhenQueueTimeoutPasses() throws InterruptedException {
+		OllamaAdmission admission = new OllamaAdmission(1, 4, 50);
+		List<String> started = new CopyOnWriteArrayList<>();
+		HeldCall running = new HeldCall("running", started);
+
+		run(admission, OllamaAdmission.Priority.STAGE1, running);
+		Subscriber waiting = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("waiting", started));
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (waiting.error.get() == null && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertInstanceOf(OllamaAdmission.BusyException.class, waiting.error.get());
+		assertEquals(0, admission.getStatistics().get("queuedStage1"));
+		// 시간이 지나 거절된 요청은 자리가 나도 실행되지 않는다.
+		running.finish();
+		assertEquals(List.of("running"), started);
+		assertEquals(0, admission.getStatistics().get("active"));
+	}
+
+	@Test
+	void cancellingWhileQueuedOrRunningReleasesTheSlot() {
+		OllamaAdmission admission = new OllamaAdmission(1, 4, 0);
+		List<String> started = new CopyOnWriteArrayList<>();
+		HeldCall running = new HeldCall("running", started);
+
+		Subscriber active = run(admission, OllamaAdmission.Priority.STAGE1, running);
+		Subscriber cancelled = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("cancelled", started));
+		Subscriber next = run(admission, OllamaAdmission.Priority.STAGE1, new HeldCall("next", started));
+		assertEquals(List.of("대기2"), next.values);
+
+		// 대기 중 취소: 대기열에서 빠지고 뒤의 요청이 앞당겨진다.
+		cancelled.disposable.dispose();
+		assertEquals(List.of("대기2", "대기1"), next.values);
+		assertEquals(1, admission.getStatistics().get("queuedStage1"));
+
+		// 실행 중 취소: 자리를 반납하고 다음 요청이 들어간다.
+		active.disposable.dispose();
+		assertEquals(List.of("running", "next"), started);
+		assertEquals(1, admission.getStatistics().get("active"));
+		assertFalse(cancelled.completed.get());
+		assertNull(cancelled.error.get());
+		assertTrue(next.values.contains("대기0"));
+	}
+}
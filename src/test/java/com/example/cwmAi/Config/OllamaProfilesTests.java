@@ -0,0 +1,86 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.messageDTO;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaProfilesTests {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	private final OllamaProfiles profiles = new OllamaProfiles("30m", 8192, 256, 0, true, 1024, 0.2, 0.1);
+
+	private static List<messageDTO> messages() {
+		List<messageDTO> messages = new ArrayList<>();
+		messages.add(new messageDTO("system", "시스템"));
+		messages.add(new messageDTO("user", "질문"));
+		return messages;
+	}
+
+	private static Set<String> fieldNames(JsonNode node) {
+		Set<String> names = new HashSet<>();
+		Iterator<String> it = node.fieldNames();
+		it.forEachRemaining(names::add);
+		return names;
+	}
+
+	@Test
+	void stage1RequestNestsOptionsAndFixesJsonFormat() throws Exception {
+		JsonNode json = MAPPER.readTree(MAPPER.writeValueAsString(profiles.stage1Request("model", messages())));
+
+		assertEquals(Set.of("model", "messages", "stream", "format", "keep_alive", "options"), fieldNames(json));
+		assertEquals("model", json.get("model").asText());
+		assertEquals(2, json.get("messages").size());
+		assertFalse(json.get("stream").asBoolean());
+		assertEquals("30m", json.get("keep_alive").asText());
+		assertEquals("array", json.get("format").get("type").asText());
+		assertEquals("string", json.get("format").get("items").get("type").asText());
+
+		JsonNode options = json.get("options");
+		assertEquals(Set.of("num_predict", "num_ctx", "temperature"), fieldNames(options));
+		assertEquals(256, options.get("num_predict").asInt());
+		assertEquals(8192, options.get("num_ctx").asInt());
+		assertEquals(0.0, options.get("temperature").asDouble());
+	}
+
+	@Test
+	void stage2RequestHasNoFormatAndNoTopLevelGenerationFields() throws Exception {
+		ChatRequest request = profiles.stage2Request("model", messages());
+		request.setStream(true);
+		JsonNode json = MAPPER.readTree(MAPPER.writeValueAsString(request));
+
+		assertEquals(Set.of("model", "messages", "stream", "keep_alive", "options"), fieldNames(json));
+		assertTrue(json.get("stream").asBoolean());
+		for (String field : List.of("num_predict", "num_ctx", "temperature", "min_p", "top_k")) {
+			assertFalse(json.has(field), field);
+		}
+
+		JsonNode options = json.get("options");
+		assertEquals(Set.of("num_predict", "num_ctx", "temperature", "min_p"), fieldNames(options));
+		assertEquals(1024, options.get("num_predict").asInt());
+		assertEquals(0.2, options.get("temperature").asDouble());
+		assertEquals(0.1, options.get("min_p").asDouble());
+	}
+
+	@Test
+	void blankKeepAliveAndZeroNumCtxAreOmitted() throws Exception {
+		OllamaProfiles defaults = new OllamaProfiles("", 0, 128, 0, false, 512, 0.2, 0.1);
+		JsonNode json = MAPPER.readTree(MAPPER.writeValueAsString(defaults.stage1Request("model", messages())));
+
+		assertFalse(json.has("keep_alive"));
+		assertFalse(json.has("format"));
+		assertFalse(json.get("options").has("num_ctx"));
+		assertEquals(128, json.get("options").get("num_predict").asInt());
+	}
+}
@@ -0,0 +1,142 @@
+package com.example.cwmAi.Config;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class PdfTextNormalizerTests {
+
+	/**
+	 * 기존 extractTextFromPdf의 정규식 정규화 (비교 기준)
+	 */
+	private static String legacyNormalize(String text) {
+		text = text.replaceAll("<[^>]+>", "");
+		text = text.replaceAll("(?m)^.*(국가법령정보센터|법제처).*$", "");
+		text = text.replaceAll("(?m)^\\s*\\d+\\s*$", "");
+		String[] lines = text.split("\\n");
+		StringBuilder cleanedText = new StringBuilder();
+		for (int i = 0; i < lines.length; i++) {
+			String line = lines[i].trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+			boolean isArticleOrChapterStart = line.matches("^\\s*제\\s*\\d+[장조].*") ||
+					line.matches("^\\s*제\\s*\\d+조의\\d+.*");
+			if (isArticleOrChapterStart && cleanedText.length() > 0) {
+				cleanedText.append("\n").append(line);
+			} else {
+				if (cleanedText.length() > 0 && !cleanedText.toString().endsWith("\n")) {
+					cleanedText.append(" ");
+				}
+				cleanedText.append(line);
+			}
+		}
+		text = cleanedText.toString();
+		text = text.replaceAll("[ \\t]{2,}", " ");
+		text = text.replaceAll("\\n{3,}", "\n\n");
+		return text.trim();
+	}
+
+	/**
+	 * 입력을 여러 조각으로 나누어 넣어도 결과가 같아야 한다.
+	 */
+	private static String normalizeInPieces(String text, int pieceLength) {
+		PdfTextNormalizer normalizer = new PdfTextNormalizer();
+		for (int start = 0; start < text.length(); start += pieceLength) {
+			normalizer.append(text.substring(start, Math.min(text.length(), start + pieceLength)));
+		}
+		return normalizer.finish();
+	}
+
+	@Test
+	void bundledPdfsMatchLegacyNormalization() throws IOException {
+		List<Path> pdfs;
+		try (Stream<Path> paths = Files.walk(Paths.get("uploads"))) {
+			pdfs = paths.filter(path -> path.toString().toLowerCase().endsWith(".pdf")).sorted().collect(Collectors.toList());
+		}
+		assertFalse(pdfs.isEmpty(), "uploads에 비교할 PDF가 없습니다.");
+		for (Path pdf : pdfs) {
+			try (PDDocument document = PDDocument.load(pdf.toFile())) {
+				PDFTextStripper stripper = new PDFTextStripper();
+				stripper.setSortByPosition(true);
+				String raw = stripper.getText(document);
+				String expected = legacyNormalize(raw);
+				assertEquals(expected, PdfTextNormalizer.normalize(raw), pdf.toString());
+
+				// 페이지 단위로 나누어 넣는 경우 (페이지를 넘어가는 편집 이력 포함)
+				PdfTextNormalizer normalizer = new PdfTextNormalizer();
+				for (int page = 1; page <= document.getNumberOfPages(); page++) {
+					stripper.setStartPage(page);
+					stripper.setEndPage(page);
+					normalizer.append(stripper.getText(document));
+				}
+				assertEquals(expected, normalizer.finish(), pdf + " (페이지 단위)");
+			}
+		}
+	}
+
+	@Test
+	void edgeCasesMatchLegacyNormalization() {
+		List<String> cases = List.of(
+				"",
+				"\n\n  \n",
+				"제1장 총칙\n제1조(목적) 이 법은\n목적으로 한다.\n제2조의2(정의) 용어",
+				"본문 <개정 2020.\n12. 8.> 계속\n제3조 내용",
+				"<>열린 꺾쇠 <닫히지 않은 태그\n다음 줄 < 또",
+				"<<중첩> 뒤 <a>b<c>",
+				"머리말\n법제처 1 국가법령정보센터\n본문\n  12  \n\n끝",
+				"A\r\n 3 \r\nB\r\n제 4 조 내용\r\n",
+				"X\r \n12\n \rY",
+				"A\r \r12\r\tB",
+				"A  \n12 B\u0085제5조 x",
+				"탭\t\t공백   여러  개\t하나",
+				"제\r7조 줄 안 구분자\n제8조\rX\n제9장",
+				"12",
+				"12\n",
+				"본문\n 12\n \n34\n끝");
+		for (String text : cases) {
+			String expected = legacyNormalize(text);
+			assertEquals(expected, PdfTextNormalizer.normalize(text), text);
+			assertEquals(expected, normalizeInPieces(text, 1), text + " (한 글자씩)");
+		}
+	}
+
+	@Test
+	void randomTextMatchesLegacyNormalization() {
+		String[] tokens = {"a", "본문", "제", "조", "장", "의", "1", "23", " ", "  ", "\t", "\u000B", "\f",
+				"\n", "\n", "\r", "\r\n", "\u0085", " ", " ", "<", ">", "<개정>", "법제처", "국가법령정보센터"};
+		Random random = new Random(20241017L);
+		for (int n = 0; n < 20000; n++) {
+			StringBuilder text = new StringBuilder();
+			int length = random.nextInt(40);
+			for (int i = 0; i < length; i++) {
+				text.append(tokens[random.nextInt(tokens.length)]);
+			}
+			String input = text.toString();
+			String expected = legacyNormalize(input);
+			assertEquals(expected, PdfTextNormalizer.normalize(input), () -> "입력: " + escape(input));
+			assertEquals(expected, normalizeInPieces(input, 1 + random.nextInt(5)), () -> "입력(조각): " + escape(input));
+		}
+	}
+
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder();
+		for (char c : text.toCharArray()) {
+			escaped.append(c < 0x20 || (c >= 0x80 && c < 0xA0) || c == ' ' || c == ' '
+					? String.format("\\u%04x", (int) c) : String.valueOf(c));
+		}
+		return escaped.toString();
+	}
+}
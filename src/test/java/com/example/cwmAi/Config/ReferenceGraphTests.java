@@ -0,0 +1,61 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReferenceGraphTests {
+
+	private static chunkDTO article(String fileName, int number, String body) {
+		return new chunkDTO("테스트법", "", "제" + number + "조", "조항" + number,
+				"제" + number + "조(조항" + number + ") ① " + body, fileName + "#" + number, fileName, number, "계약");
+	}
+
+	private static List<String> references(ReferenceGraph graph, chunkDTO chunk) {
+		List<String> ids = new ArrayList<>();
+		Arrays.stream(graph.getReferencedChunks(chunk)).forEach(referenced -> ids.add(referenced.getChunkId()));
+		return ids;
+	}
+
+	@Test
+	void updateRebuildsOnlyChangedLaws() {
+		List<chunkDTO> lawA = List.of(article("a.pdf", 1, "제2조에 따른다."), article("a.pdf", 2, "제1조를 본다."));
+		List<chunkDTO> lawB = List.of(article("b.pdf", 1, "제3조에 따른다."), article("b.pdf", 3, "본문"));
+		List<chunkDTO> store = new ArrayList<>(lawA);
+		store.addAll(lawB);
+		ReferenceGraph before = ReferenceGraph.build(store);
+		// 다른 법령의 같은 번호 조항으로는 이어지지 않는다.
+		assertEquals(List.of("a.pdf#2"), references(before, lawA.get(0)));
+		assertEquals(List.of("b.pdf#3"), references(before, lawB.get(0)));
+
+		// b.pdf 재업로드: 제3조가 제2조로 바뀜, c.pdf 추가
+		List<chunkDTO> newLawB = List.of(article("b.pdf", 1, "제2조에 따른다."), article("b.pdf", 2, "본문"));
+		List<chunkDTO> lawC = List.of(article("c.pdf", 5, "제6조를 준용한다."), article("c.pdf", 6, "본문"));
+		ReferenceGraph after = before.update(Map.of(
+				ReferenceGraph.lawKey(lawB.get(0)), newLawB,
+				ReferenceGraph.lawKey(lawC.get(0)), lawC));
+		List<chunkDTO> newStore = new ArrayList<>(lawA);
+		newStore.addAll(newLawB);
+		newStore.addAll(lawC);
+		ReferenceGraph rebuilt = ReferenceGraph.build(newStore);
+		for (chunkDTO chunk : newStore) {
+			assertEquals(references(rebuilt, chunk), references(after, chunk), chunk.getChunkId());
+		}
+		assertEquals(rebuilt.size(), after.size());
+		assertEquals(rebuilt.getEdgeCount(), after.getEdgeCount());
+		// 빠진 청크는 더 이상 그래프에 없고, 이전 그래프는 그대로다.
+		assertEquals(List.of(), references(after, lawB.get(0)));
+		assertEquals(List.of("b.pdf#3"), references(before, lawB.get(0)));
+
+		// 법령 삭제
+		ReferenceGraph removed = after.update(Map.of(ReferenceGraph.lawKey(lawC.get(0)), List.of()));
+		assertEquals(2, removed.getLawCount());
+		assertEquals(List.of(), references(removed, lawC.get(0)));
+	}
+}
@@ -0,0 +1,139 @@
+package com.example.cwmAi.Config;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTests {
+
+	/**
+	 * 호출 수를 세고, 테스트가 값/완료를 직접 보내는 상류 호출
+	 */
+	private static final class CountingCall implements Supplier<Flux<String>> {
+		final AtomicInteger calls = new AtomicInteger();
+		final AtomicBoolean cancelled = new AtomicBoolean();
+		Sinks.Many<String> upstream;
+
+		@Override
+		public Flux<String> get() {
+			calls.incrementAndGet();
+			upstream = Sinks.many().unicast().onBackpressureBuffer();
+			return upstream.asFlux().doOnCancel(() -> cancelled.set(true));
+		}
+	}
+
+	@Test
+	void joinersShareOneCallAndLateJoinerGetsFullReplay() {
+		SingleFlight<String, String> flight = new SingleFlight<>("테스트");
+		CountingCall call = new CountingCall();
+		List<String> first = new CopyOnWriteArrayList<>();
+		List<String> late = new CopyOnWriteArrayList<>();
+		AtomicInteger completed = new AtomicInteger();
+
+		flight.run("k", call).subscribe(first::add, e -> { }, completed::incrementAndGet);
+		call.upstream.tryEmitNext("a");
+		flight.run("k", call).subscribe(late::add, e -> { }, completed::incrementAndGet);
+		call.upstream.tryEmitNext("b");
+		call.upstream.tryEmitComplete();
+
+		assertEquals(1, call.calls.get());
+		assertEquals(List.of("a", "b"), first);
+		assertEquals(List.of("a", "b"), late);
+		assertEquals(2, completed.get());
+		assertEquals(1, flight.getStartedCount());
+		assertEquals(1, flight.getJoinedCount());
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	void cancellingOneSubscriberKeepsCallForOthersAndLastCancelCancelsIt() {
+		SingleFlight<String, String> flight = new SingleFlight<>("테스트");
+		CountingCall call = new CountingCall();
+		List<String> remaining = new ArrayList<>();
+
+		Disposable leaving = flight.run("k", call).subscribe();
+		Disposable staying = flight.run("k", call).subscribe(remaining::add);
+		leaving.dispose();
+		assertFalse(call.cancelled.get());
+		assertEquals(1, flight.getInFlightCount());
+
+		call.upstream.tryEmitNext("a");
+		assertEquals(List.of("a"), remaining);
+
+		staying.dispose();
+		assertTrue(call.cancelled.get());
+		assertEquals(0, flight.getInFlightCount());
+		assertEquals(1, call.calls.get());
+	}
+
+	@Test
+	void keyIsRemovedBeforeTerminalSignal() {
+		SingleFlight<String, String> flight = new SingleFlight<>("테스트");
+		CountingCall call = new CountingCall();
+		AtomicInteger inFlightOnComplete = new AtomicInteger(-1);
+		List<String> retried = new ArrayList<>();
+
+		flight.run("k", call).subscribe(value -> { }, e -> { }, () -> {
+			inFlightOnComplete.set(flight.getInFlightCount());
+			// 완료를 받은 직후 같은 키로 다시 요청하면 끝난 호출을 재생하지 않고 새로 호출한다.
+			flight.run("k", call).subscribe(retried::add);
+		});
+		call.upstream.tryEmitNext("old");
+		call.upstream.tryEmitComplete();
+
+		assertEquals(0, inFlightOnComplete.get());
+		assertEquals(2, call.calls.get());
+		call.upstream.tryEmitNext("new");
+		assertEquals(List.of("new"), retried);
+	}
+
+	@Test
+	void errorIsSharedAndKeyIsReleased() {
+		SingleFlight<String, String> flight = new SingleFlight<>("테스트");
+		CountingCall call = new CountingCall();
+		List<Throwable> errors = new ArrayList<>();
+
+		flight.run("k", call).subscribe(value -> { }, errors::add);
+		flight.run("k", call).subscribe(value -> { }, errors::add);
+		call.upstream.tryEmitError(new IllegalStateException("실패"));
+
+		assertEquals(1, call.calls.get());
+		assertEquals(2, errors.size());
+		assertEquals(0, flight.getInFlightCount());
+	}
+
+	@Test
+	void monoCallersShareOneCall() {
+		SingleFlight<String, String> flight = new SingleFlight<>("테스트");
+		AtomicInteger calls = new AtomicInteger();
+		Sinks.One<String> result = Sinks.one();
+		Mono<String> call = Mono.defer(() -> {
+			calls.incrementAndGet();
+			return result.asMono();
+		});
+		List<String> values = new ArrayList<>();
+
+		flight.run("k", call).subscribe(values::add);
+		flight.run("k", call).subscribe(values::add);
+		// 다른 키는 따로 호출한다.
+		flight.run("other", Mono.fromSupplier(() -> "x")).subscribe(values::add);
+		result.tryEmitValue("답변");
+
+		assertEquals(1, calls.get());
+		assertEquals(List.of("x", "답변", "답변"), values);
+		assertEquals(0, flight.getInFlightCount());
+	}
+}
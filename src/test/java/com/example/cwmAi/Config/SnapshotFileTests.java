@@ -0,0 +1,84 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+import com.example.cwmAi.dto.ai_DTO.sourceFileDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SnapshotFileTests {
+
+	@TempDir
+	Path directory;
+
+	private static final ChunkEmbedder EMBEDDER = new ChunkEmbedder() {
+		@Override
+		public float[] embed(String text) {
+			float[] vector = new float[DIMENSION];
+			vector[Math.floorMod(text.hashCode(), DIMENSION)] = 1f;
+			return vector;
+		}
+	};
+
+	private StoreSnapshot.Settings settings() {
+		return new StoreSnapshot.Settings(VectorStorage.Mode.FLOAT, directory, 48, 50, 8, 40, 32, 0);
+	}
+
+	private StoreSnapshot snapshot() {
+		StoreSnapshot snapshot = StoreSnapshot.empty(EMBEDDER, settings());
+		List<chunkDTO> chunks = new ArrayList<>();
+		List<float[]> embeddings = new ArrayList<>();
+		List<String> chunkIds = new ArrayList<>();
+		for (int i = 1; i <= 10; i++) {
+			chunkDTO chunk = new chunkDTO("테스트법", null, "제" + i + "조", "조항" + i,
+					"제" + i + "조 본문 계약 보증금 " + i, "계약#" + i, "a.pdf", i, "계약");
+			chunks.add(chunk);
+			embeddings.add(EMBEDDER.embed(chunk.getText()));
+			chunkIds.add(chunk.getChunkId());
+		}
+		snapshot.addChunks(chunks, embeddings);
+		snapshot.putSource(new sourceFileDTO("계약/a.pdf", 100, 1, "abc", chunkIds));
+		snapshot.freeze(7);
+		return snapshot;
+	}
+
+	private static List<String> search(StoreSnapshot snapshot) {
+		List<String> result = new ArrayList<>();
+		for (scoredChunkDTO hit : snapshot.searchSimilar("계약 보증금", null, null, 5)) {
+			result.add(hit.getChunk().getChunkId() + "=" + hit.getScore());
+		}
+		return result;
+	}
+
+	@Test
+	void roundTripRestoresChunksSourcesAndSearch() throws IOException {
+		StoreSnapshot original = snapshot();
+		Path file = directory.resolve("store.bin");
+		SnapshotFile.write(original, file, 3);
+
+		assertEquals(7, SnapshotFile.readHeader(file, 3).getVersion());
+		StoreSnapshot restored = SnapshotFile.read(file, 3, EMBEDDER, settings());
+		restored.freeze(8);
+		assertEquals(original.getSize(), restored.getSize());
+		assertEquals(original.getSources().keySet(), restored.getSources().keySet());
+		assertEquals(search(original), search(restored));
+	}
+
+	@Test
+	void differentExtractorVersionIsRejected() throws IOException {
+		Path file = directory.resolve("store.bin");
+		SnapshotFile.write(snapshot(), file, 3);
+
+		// 추출기가 바뀌면 저장된 청크 텍스트를 쓰지 않고 재구축하도록 읽기를 거부한다.
+		assertThrows(IOException.class, () -> SnapshotFile.readHeader(file, 4));
+		assertThrows(IOException.class, () -> SnapshotFile.read(file, 4, EMBEDDER, settings()));
+	}
+}
@@ -0,0 +1,154 @@
+package com.example.cwmAi.Config;
+
+import com.example.cwmAi.dto.ai_DTO.chunkDTO;
+import com.example.cwmAi.dto.ai_DTO.scoredChunkDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StoreSnapshotTests {
+
+	@TempDir
+	Path spillDirectory;
+
+	/**
+	 * 텍스트마다 고정된 임의 단위 벡터를 돌려주는 임베딩
+	 */
+	private static final class RandomEmbedder extends ChunkEmbedder {
+		@Override
+		public float[] embed(String text) {
+			Random random = new Random(text.hashCode());
+			float[] vector = new float[DIMENSION];
+			double norm = 0;
+			for (int i = 0; i < vector.length; i++) {
+				vector[i] = (float) random.nextGaussian();
+				norm += vector[i] * vector[i];
+			}
+			for (int i = 0; i < vector.length; i++) {
+				vector[i] /= (float) Math.sqrt(norm);
+			}
+			return vector;
+		}
+	}
+
+	private static final RandomEmbedder EMBEDDER = new RandomEmbedder();
+
+	private static chunkDTO chunk(int number, String fileName) {
+		return new chunkDTO("테스트법", null, "제" + number + "조", "조항" + number,
+				"제" + number + "조 본문 계약 보증금 " + number, "계약#" + number, fileName, number, "계약");
+	}
+
+	private static void add(StoreSnapshot builder, List<chunkDTO> chunks) {
+		List<float[]> embeddings = new ArrayList<>();
+		for (chunkDTO chunk : chunks) {
+			embeddings.add(EMBEDDER.embed(chunk.getText()));
+		}
+		builder.addChunks(chunks, embeddings);
+	}
+
+	private static List<String> search(StoreSnapshot snapshot) {
+		List<String> result = new ArrayList<>();
+		for (String query : List.of("계약 보증금", "조항 12", "본문 37", "국고 귀속")) {
+			for (scoredChunkDTO hit : snapshot.searchSimilar(query, null, null, 5)) {
+				result.add(hit.getChunk().getChunkId() + "=" + hit.getScore());
+			}
+			result.add("|");
+		}
+		return result;
+	}
+
+	private void publishedSnapshotIsUnchangedByLaterBuilders(VectorStorage.Mode mode) {
+		StoreSnapshot.Settings settings = new StoreSnapshot.Settings(mode, spillDirectory, 48, 50, 8, 40, 32, 0);
+		StoreSnapshot first = StoreSnapshot.empty(EMBEDDER, settings);
+		List<chunkDTO> initial = new ArrayList<>();
+		for (int i = 0; i < 60; i++) {
+			initial.add(chunk(i, "a.pdf"));
+		}
+		add(first, initial);
+		first.freeze(1);
+		List<String> before = search(first);
+
+		// 뒤에 덧붙이기만 하는 갱신
+		StoreSnapshot second = first.toBuilder();
+		List<chunkDTO> appended = new ArrayList<>();
+		for (int i = 60; i < 80; i++) {
+			appended.add(chunk(i, "b.pdf"));
+		}
+		add(second, appended);
+		second.freeze(2);
+		assertEquals(before, search(first), mode + " 덧붙인 뒤");
+		assertEquals(60, first.getSize());
+		assertEquals(60, first.getChunksByCategory("계약").size());
+		assertNull(first.getChunkById("계약#70"));
+		assertEquals(80, second.getEmbeddedSize());
+		List<String> secondBefore = search(second);
+
+		// 삭제(툼스톤)가 많아 행렬과 그래프를 다시 만드는 갱신
+		StoreSnapshot third = second.toBuilder();
+		List<String> removedIds = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			removedIds.add("계약#" + i);
+		}
+		assertEquals(40, third.removeChunks(removedIds));
+		add(third, List.of(chunk(80, "c.pdf")));
+		third.freeze(3);
+		assertEquals(before, search(first), mode + " 정리한 뒤");
+		assertEquals(secondBefore, search(second), mode + " 정리한 뒤");
+		assertEquals(80, second.getEmbeddedSize());
+		assertNotNull(second.getChunkById("계약#10"));
+		assertEquals(80, second.getChunksByCategory("계약").size());
+		assertEquals(41, third.getEmbeddedSize());
+		assertEquals(41, third.getChunksByCategory("계약").size());
+		for (scoredChunkDTO hit : third.searchSimilar("계약 보증금", null, null, 41)) {
+			assertEquals(-1, removedIds.indexOf(hit.getChunk().getChunkId()), hit.getChunk().getChunkId());
+		}
+		first.release();
+		second.release();
+		third.release();
+	}
+
+	@Test
+	void publishedFloatSnapshotIsUnchangedByLaterBuilders() {
+		publishedSnapshotIsUnchangedByLaterBuilders(VectorStorage.Mode.FLOAT);
+	}
+
+	@Test
+	void publishedInt8SnapshotIsUnchangedByLaterBuilders() {
+		publishedSnapshotIsUnchangedByLaterBuilders(VectorStorage.Mode.INT8);
+	}
+
+	@Test
+	void discardedBuilderDoesNotAffectNextBuilder() {
+		StoreSnapshot.Settings settings = new StoreSnapshot.Settings(VectorStorage.Mode.PQ, spillDirectory, 48, 50, 8, 40, 32, 0);
+		StoreSnapshot first = StoreSnapshot.empty(EMBEDDER, settings);
+		List<chunkDTO> initial = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			initial.add(chunk(i, "a.pdf"));
+		}
+		add(first, initial);
+		first.freeze(1);
+
+		StoreSnapshot discarded = first.toBuilder();
+		add(discarded, List.of(chunk(100, "x.pdf"), chunk(101, "x.pdf")));
+		discarded.release();
+
+		StoreSnapshot next = first.toBuilder();
+		add(next, List.of(chunk(30, "b.pdf")));
+		next.freeze(2);
+		assertEquals(31, next.getEmbeddedSize());
+		assertNull(next.getChunkById("계약#100"));
+		List<scoredChunkDTO> hits = next.searchSimilar("제30조 본문 계약 보증금 30", null, null, 1);
+		assertEquals("계약#30", hits.get(0).getChunk().getChunkId());
+		assertEquals(1.0, hits.get(0).getScore(), 1e-4);
+		first.release();
+		next.release();
+	}
+}
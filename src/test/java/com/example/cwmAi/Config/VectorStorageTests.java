@@ -0,0 +1,36 @@
+package com.example.cwmAi.Config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class VectorStorageTests {
+
+	@TempDir
+	Path spillDirectory;
+
+	@Test
+	void rowDotMatchesQueryDotInEveryMode() {
+		Random random = new Random(3);
+		for (VectorStorage.Mode mode : VectorStorage.Mode.values()) {
+			VectorStorage storage = new VectorStorage(8, mode, spillDirectory.resolve(mode + ".f32"), 4);
+			for (int row = 0; row < 20; row++) {
+				float[] vector = new float[8];
+				for (int i = 0; i < vector.length; i++) {
+					vector[i] = random.nextFloat() - 0.5f;
+				}
+				storage.append(vector);
+			}
+			for (int a = 0; a < 20; a++) {
+				for (int b = 0; b < 20; b++) {
+					assertEquals(storage.dot(storage.vector(a), b), storage.dot(a, b), 1e-6, mode + " " + a + "," + b);
+				}
+			}
+			storage.release();
+		}
+	}
+}
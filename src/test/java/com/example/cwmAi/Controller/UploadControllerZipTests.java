@@ -0,0 +1,111 @@
+package com.example.cwmAi.Controller;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UploadControllerZipTests {
+
+	@TempDir
+	Path uploadDir;
+
+	private static final Charset MS949 = Charset.forName("MS949");
+
+	// 항목 이름 → 크기(바이트)로 ZIP을 만든다. charset이 UTF-8이 아니면 UTF-8 플래그 없이 기록된다.
+	private static byte[] zip(Charset charset, Map<String, Integer> entries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(bytes, charset)) {
+			for (Map.Entry<String, Integer> entry : entries.entrySet()) {
+				out.putNextEntry(new ZipEntry(entry.getKey()));
+				out.write(new byte[entry.getValue()]);
+				out.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static uploadController controller(long maxEntryBytes, long maxTotalBytes) {
+		uploadController controller = new uploadController();
+		ReflectionTestUtils.setField(controller, "zipMaxEntryBytes", maxEntryBytes);
+		ReflectionTestUtils.setField(controller, "zipMaxTotalBytes", maxTotalBytes);
+		return controller;
+	}
+
+	@Test
+	void entryNameCharsetIsDetected() {
+		String name = "계약/국가계약법.pdf";
+		// UTF-8 플래그가 있으면 이미 UTF-8로 읽혀 있다.
+		assertEquals(name, uploadController.decodeEntryName(name));
+		// 플래그 없이 ISO-8859-1로 읽힌 UTF-8 이름 (리눅스/macOS 압축)
+		assertEquals(name, uploadController.decodeEntryName(
+				new String(name.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1)));
+		// 플래그 없이 ISO-8859-1로 읽힌 CP949 이름 (윈도우 압축 프로그램)
+		assertEquals(name, uploadController.decodeEntryName(
+				new String(name.getBytes(MS949), StandardCharsets.ISO_8859_1)));
+		assertEquals("plain.pdf", uploadController.decodeEntryName("plain.pdf"));
+	}
+
+	@Test
+	void windowsZipEntryNamesAreSavedInKorean() throws IOException {
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		entries.put("법령/공제사업법.pdf", 10);
+		entries.put("__MACOSX/법령/._공제사업법.pdf", 10);
+		entries.put("법령/메모.docx", 10);
+		Set<String> saved = new LinkedHashSet<>();
+		List<String> skipped = new ArrayList<>();
+
+		controller(100, 1000).extractZip(new ByteArrayInputStream(zip(MS949, entries)), uploadDir, saved, skipped);
+
+		assertEquals(Set.of("공제사업법.pdf"), saved);
+		assertTrue(Files.exists(uploadDir.resolve("공제사업법.pdf")));
+		assertEquals(List.of("__MACOSX/법령/._공제사업법.pdf", "법령/메모.docx"), skipped);
+	}
+
+	@Test
+	void entryAndTotalSizeLimitsAreEnforced() throws IOException {
+		Map<String, Integer> entries = new LinkedHashMap<>();
+		entries.put("a.pdf", 80);
+		entries.put("big.pdf", 150);  // 항목 한도(100) 초과: 이 항목만 제외
+		entries.put("b.pdf", 90);
+		entries.put("c.pdf", 90);     // 남은 전체 한도(250 - 170 = 80) 초과: 이후 항목 모두 제외
+		entries.put("d.pdf", 10);
+		Set<String> saved = new LinkedHashSet<>();
+		List<String> skipped = new ArrayList<>();
+
+		controller(100, 250).extractZip(new ByteArrayInputStream(zip(StandardCharsets.UTF_8, entries)),
+				uploadDir, saved, skipped);
+
+		assertEquals(Set.of("a.pdf", "b.pdf"), saved);
+		assertEquals(2, skipped.size());
+		assertTrue(skipped.get(0).startsWith("big.pdf (압축 해제 크기가 항목 한도"), skipped.get(0));
+		assertTrue(skipped.get(1).startsWith("c.pdf 및 이후 항목"), skipped.get(1));
+		assertEquals(80, Files.size(uploadDir.resolve("a.pdf")));
+		assertEquals(90, Files.size(uploadDir.resolve("b.pdf")));
+		// 한도를 넘은 항목은 임시 파일까지 지워진다.
+		try (Stream<Path> files = Files.list(uploadDir)) {
+			assertEquals(List.of("a.pdf", "b.pdf"), files.map(path -> path.getFileName().toString()).sorted().toList());
+		}
+		assertFalse(Files.exists(uploadDir.resolve("d.pdf")));
+	}
+}
@@ -0,0 +1,32 @@
+package com.example.cwmAi.Service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiServiceCacheRulesTests {
+
+	@Test
+	void emptyRecommendationIsNotCached() {
+		assertFalse(aiService.isCacheableTitles(null));
+		assertFalse(aiService.isCacheableTitles(List.of()));
+		assertTrue(aiService.isCacheableTitles(List.of("제12조 계약보증금")));
+	}
+
+	@Test
+	void errorBusyAndEmptyAnswersAreNotCached() {
+		assertFalse(aiService.isCacheableAnswer(null));
+		assertFalse(aiService.isCacheableAnswer(""));
+		assertFalse(aiService.isCacheableAnswer("  \n"));
+		assertFalse(aiService.isCacheableAnswer("AI 응답을 받지 못했습니다. (응답 내용이 비어있음)"));
+		assertFalse(aiService.isCacheableAnswer("AI 응답 파싱 오류: Unexpected character"));
+		assertFalse(aiService.isCacheableAnswer("현재 질문이 많아 답변할 수 없습니다. 잠시 후 다시 시도해주세요.\n대기 중인 질문: 8"));
+		assertFalse(aiService.isCacheableAnswer("AI 호출 중 오류 발생: Connection refused"));
+		// 스트리밍 중간에 끊기면 받은 답변 뒤에 오류 문구가 붙는다.
+		assertFalse(aiService.isCacheableAnswer("계약보증금은 국고에 귀속됩니다.\n\nAI 호출 중 오류 발생: timeout"));
+		assertTrue(aiService.isCacheableAnswer("계약보증금은 국고에 귀속됩니다."));
+	}
+}